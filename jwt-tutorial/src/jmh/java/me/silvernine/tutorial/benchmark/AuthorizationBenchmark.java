@@ -0,0 +1,59 @@
+package me.silvernine.tutorial.benchmark;
+
+import me.silvernine.tutorial.authorization.AuthorizationRule;
+import me.silvernine.tutorial.authorization.AuthorizationRuleCompiler;
+import me.silvernine.tutorial.jwt.JwtAuthentication;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.expression.Expression;
+import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+//@PreAuthorize("hasAnyRole('USER','ADMIN')") 판단 한번의 비용
+//- spel     : method security와 같이 호출마다 EvaluationContext를 만들고 SpEL을 평가 (권한 Set 생성 + 검색)
+//- compiled : CompiledAuthorizationInterceptor와 같이 컴파일된 규칙과 JwtAuthentication의 권한 bitmask 비교
+//AOP 프록시, AccessDecisionManager 호출 비용은 포함되지 않으므로 실제 차이는 이보다 크다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AuthorizationBenchmark {
+
+    private static final String EXPRESSION = "hasAnyRole('USER','ADMIN')";
+
+    @Param({"1", "8"})
+    private int roleCount;
+
+    private JwtAuthentication authentication;
+    private DefaultMethodSecurityExpressionHandler expressionHandler;
+    private Expression expression;
+    private MethodInvocation invocation;
+    private AuthorizationRuleCompiler.Compiled compiled;
+    private AuthorizationRule rule;
+
+    @Setup
+    public void setUp() throws Exception {
+        //roleCount가 1이면 ROLE_USER만, 8이면 ROLE_USER, ROLE_ADMIN, ROLE_2 ... ROLE_7
+        authentication = new JwtAuthentication("benchmark-user",
+                String.join(",", BenchmarkFixtures.roleNames(roleCount)), "token");
+        expressionHandler = new DefaultMethodSecurityExpressionHandler();
+        expression = expressionHandler.getExpressionParser().parseExpression(EXPRESSION);
+        invocation = new SimpleMethodInvocation(this, Object.class.getMethod("toString"));
+        compiled = AuthorizationRuleCompiler.compile(Collections.singletonList(EXPRESSION));
+        rule = compiled.getRule(EXPRESSION);
+    }
+
+    @Benchmark
+    public boolean spel() {
+        return ExpressionUtils.evaluateAsBoolean(expression,
+                expressionHandler.createEvaluationContext(authentication, invocation));
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return rule.isGranted(authentication, authentication.getAuthorityMask(compiled.getAuthorityBits()));
+    }
+}
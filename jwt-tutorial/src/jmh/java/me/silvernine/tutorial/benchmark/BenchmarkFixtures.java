@@ -0,0 +1,91 @@
+package me.silvernine.tutorial.benchmark;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.silvernine.tutorial.jwt.CompactTokenCodec;
+import me.silvernine.tutorial.jwt.KeyRing;
+import me.silvernine.tutorial.jwt.RoleRegistry;
+import me.silvernine.tutorial.jwt.SigningKey;
+import me.silvernine.tutorial.jwt.TokenProvider;
+import me.silvernine.tutorial.jwt.VerifiedTokenCache;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+//벤치마크에서 공통으로 사용하는 객체들
+//Spring 컨텍스트를 띄우지 않고 측정하려는 클래스만 직접 만든다
+final class BenchmarkFixtures {
+
+    //application.yml의 jwt.secret과 같은 값
+    static final String SECRET = "c2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQtc2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQK";
+    static final long TOKEN_VALIDITY_IN_SECONDS = 1800;
+
+    private BenchmarkFixtures() {}
+
+    static TokenProvider tokenProvider(boolean cacheEnabled) {
+        return tokenProvider(cacheEnabled, false);
+    }
+
+    //compact: JWT 대신 CompactTokenCodec의 압축 토큰으로 발급 (권한 목록은 roleNames(8))
+    static TokenProvider tokenProvider(boolean cacheEnabled, boolean compact) {
+        KeyRing keyRing = KeyRing.fixed(SigningKey.hmac(SignatureAlgorithm.HS512, SECRET));
+        CompactTokenCodec compactTokenCodec = new CompactTokenCodec(keyRing, RoleRegistry.fixed(roleNames(8)),
+                compact, "HmacSHA256", 16);
+        TokenProvider tokenProvider = new TokenProvider(keyRing, TOKEN_VALIDITY_IN_SECONDS,
+                new VerifiedTokenCache(cacheEnabled, 10000), authMetrics(), compactTokenCodec, true);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    static AuthMetrics authMetrics() {
+        return new AuthMetrics(new SimpleMeterRegistry());
+    }
+
+    //ROLE_USER, ROLE_ADMIN, ROLE_2, ROLE_3 ... 처럼 roleCount개의 권한을 만든다
+    static List<String> roleNames(int roleCount) {
+        List<String> roleNames = new ArrayList<>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            roleNames.add(i == 0 ? "ROLE_USER" : i == 1 ? "ROLE_ADMIN" : "ROLE_" + i);
+        }
+        return roleNames;
+    }
+
+    static Authentication authentication(String username, int roleCount) {
+        List<GrantedAuthority> authorities = new ArrayList<>(roleCount);
+        for (String roleName : roleNames(roleCount)) {
+            authorities.add(new SimpleGrantedAuthority(roleName));
+        }
+        return new UsernamePasswordAuthenticationToken(username, null, authorities);
+    }
+
+    //Spring Data 리포지토리 인터페이스의 스텁
+    //methods에 등록된 메소드 이름만 응답하고, 그 외의 메소드는 호출되면 예외를 던진다
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                default:
+                    break;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
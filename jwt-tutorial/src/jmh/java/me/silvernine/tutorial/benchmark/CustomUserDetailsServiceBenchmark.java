@@ -0,0 +1,46 @@
+package me.silvernine.tutorial.benchmark;
+
+import me.silvernine.tutorial.dto.UserAccountRow;
+import me.silvernine.tutorial.repository.UserRepository;
+import me.silvernine.tutorial.service.CustomUserDetailsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+//CustomUserDetailsService.loadUserByUsername에서 DB조회를 뺀 나머지 비용 측정
+//(유저+권한 행 -> GrantedAuthority 변환 -> Spring Security User 생성)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CustomUserDetailsServiceBenchmark {
+
+    @Param({"1", "2", "8"})
+    private int roleCount;
+
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Setup
+    public void setUp() {
+        List<UserAccountRow> rows = new ArrayList<>();
+        for (String roleName : BenchmarkFixtures.roleNames(roleCount)) {
+            rows.add(new UserAccountRow("benchmark-user",
+                    "{bcrypt}$2a$10$lDnHPz7eUkSi6ao14Twuau08mzhWrL4kyZGGU5xfiGALO/Vxd5DOi", "benchmark", true, roleName));
+        }
+
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("findAccountRowsByUsername", args -> rows);
+        customUserDetailsService = new CustomUserDetailsService(
+                BenchmarkFixtures.repository(UserRepository.class, methods), BenchmarkFixtures.authMetrics());
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return customUserDetailsService.loadUserByUsername("benchmark-user");
+    }
+}
@@ -0,0 +1,80 @@
+package me.silvernine.tutorial.benchmark;
+
+import me.silvernine.tutorial.config.SecurityConfig;
+import me.silvernine.tutorial.jwt.JwtFilter;
+import me.silvernine.tutorial.jwt.TokenProvider;
+import me.silvernine.tutorial.jwt.TokenRevocationStore;
+import me.silvernine.tutorial.repository.RevokedTokenRepository;
+import me.silvernine.tutorial.store.LocalSharedStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+//인증이 필요한 요청 하나가 JwtFilter를 통과하는 비용 측정
+//(헤더에서 토큰 추출 -> 검증 -> 폐기 여부 확인 -> SecurityContext 저장)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"1", "8"})
+    private int roleCount;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private JwtFilter jwtFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletRequest permitAllRequest;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        TokenProvider tokenProvider = BenchmarkFixtures.tokenProvider(cacheEnabled);
+
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("findByExpiresAtGreaterThan", args -> Collections.emptyList());
+        TokenRevocationStore tokenRevocationStore = new TokenRevocationStore(
+                BenchmarkFixtures.repository(RevokedTokenRepository.class, methods), new LocalSharedStore(),
+                BenchmarkFixtures.TOKEN_VALIDITY_IN_SECONDS, 60);
+        tokenRevocationStore.afterPropertiesSet();
+
+        jwtFilter = new JwtFilter(tokenProvider, tokenRevocationStore, BenchmarkFixtures.authMetrics(),
+                SecurityConfig.permitAllRequestMatcher());
+
+        String token = tokenProvider.createToken(BenchmarkFixtures.authentication("benchmark-user", roleCount));
+        request = new MockHttpServletRequest("GET", "/api/user");
+        request.addHeader(JwtFilter.AUTHORIZATION_HEADER, "Bearer " + token);
+        permitAllRequest = new MockHttpServletRequest("GET", "/api/hello");
+        permitAllRequest.addHeader(JwtFilter.AUTHORIZATION_HEADER, "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws Exception {
+        jwtFilter.doFilter(request, response, NO_OP_CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    //permitAll API에 토큰을 붙여서 호출한 경우 (토큰 검증 생략)
+    @Benchmark
+    public Authentication doFilterPermitAll() throws Exception {
+        jwtFilter.doFilter(permitAllRequest, response, NO_OP_CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
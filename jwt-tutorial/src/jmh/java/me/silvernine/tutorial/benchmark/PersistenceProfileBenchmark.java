@@ -0,0 +1,92 @@
+package me.silvernine.tutorial.benchmark;
+
+import me.silvernine.tutorial.JwtTutorialApplication;
+import me.silvernine.tutorial.config.CacheConfig;
+import me.silvernine.tutorial.dto.UserAccountRow;
+import me.silvernine.tutorial.entity.Authority;
+import me.silvernine.tutorial.entity.User;
+import me.silvernine.tutorial.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//기본 프로필(메모리 DB, SQL 로그)과 prod 프로필(파일 DB, 커넥션 풀/문장 캐시/JDBC batch, SQL 로그 끔)의 DB 경로 비교
+//프로필별로 애플리케이션 컨텍스트를 띄우고 리포지토리를 직접 호출한다
+//기본 프로필은 show_sql 출력까지 측정에 포함된다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PersistenceProfileBenchmark {
+
+    private static final String USERNAME = "benchmark-user";
+    //hibernate.jdbc.batch_size와 같은 크기
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"default", "prod"})
+    private String profile;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private Path dataDirectory;
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private Cache usersCache;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataDirectory = Files.createTempDirectory("jwt-tutorial-benchmark");
+        context = new SpringApplicationBuilder(JwtTutorialApplication.class)
+                .profiles(profile)
+                .properties(
+                        "server.port=0",
+                        "db.path=" + dataDirectory.resolve("db"))
+                .run();
+        userRepository = context.getBean(UserRepository.class);
+        usersCache = context.getBean(CacheManager.class).getCache(CacheConfig.USERS);
+        userRepository.save(user(USERNAME));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDirectory);
+    }
+
+    //로그인 경로의 유저+권한 조회 (users 캐시를 비워서 매번 DB까지 간다)
+    @Benchmark
+    public List<UserAccountRow> findAccountRowsByUsername() {
+        usersCache.evict(USERNAME);
+        return userRepository.findAccountRowsByUsername(USERNAME);
+    }
+
+    //유저 BATCH_SIZE명 저장 (prod는 JDBC batch로 묶인다)
+    @Benchmark
+    public List<User> saveAll() {
+        List<User> users = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            users.add(user("benchmark-" + sequence.incrementAndGet()));
+        }
+        return userRepository.saveAll(users);
+    }
+
+    private static User user(String username) {
+        return User.builder()
+                .username(username)
+                .password("{bcrypt}$2a$10$lDnHPz7eUkSi6ao14Twuau08mzhWrL4kyZGGU5xfiGALO/Vxd5DOi")
+                .nickname("benchmark")
+                .activated(true)
+                .authorities(Collections.singleton(Authority.builder().authorityName("ROLE_USER").build()))
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package me.silvernine.tutorial.benchmark;
+
+import me.silvernine.tutorial.jwt.TokenProvider;
+import me.silvernine.tutorial.jwt.TokenVerification;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+//TokenProvider의 토큰 생성/검증 경로 측정
+//roleCount: auth claim에 들어가는 권한 개수, cacheEnabled: VerifiedTokenCache 사용 여부
+//compact: JWT 대신 압축 토큰(CompactTokenCodec) 사용 여부
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TokenProviderBenchmark {
+
+    @Param({"1", "2", "8"})
+    private int roleCount;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    @Param({"false", "true"})
+    private boolean compact;
+
+    private TokenProvider tokenProvider;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = BenchmarkFixtures.tokenProvider(cacheEnabled, compact);
+        authentication = BenchmarkFixtures.authentication("benchmark-user@example.com", roleCount);
+        token = tokenProvider.createToken(authentication);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+
+    //JwtFilter가 사용하는 경로 (검증 + Authentication 생성을 한번에)
+    @Benchmark
+    public TokenVerification verify() {
+        return tokenProvider.verify(token);
+    }
+}
@@ -0,0 +1,75 @@
+package me.silvernine.tutorial.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//동시 연결 처리량 비교
+//connections개의 연결이 동시에 latencyMillis만큼 요청 스레드를 막는 API(JwtFilter 포함)를 호출하고,
+//전체 소요 시간으로 실제로 동시에 처리된 요청 수(= connections * latency / elapsed)를 계산한다
+//플랫폼 스레드는 server.tomcat.threads.max(여기서는 50)에서 막히고, virtual thread는 연결 수만큼 늘어난다
+//연결 수와 지연 시간은 ./gradlew loadTest -PloadTest.connections=1000 -PloadTest.latencyMillis=500 으로 바꿀 수 있다
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.tomcat.threads.max=" + ConcurrentConnectionLoadTest.MAX_THREADS)
+@Import(SlowEndpointConfig.class)
+abstract class ConcurrentConnectionLoadTest {
+
+    static final int MAX_THREADS = 50;
+
+    private final int connections = Integer.getInteger("connections", 400);
+    private final long latencyMillis = Long.getLong("latencyMillis", 200);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Value("${server.virtual-threads.enabled:false}")
+    private boolean virtualThreads;
+
+    //동시에 처리된 요청 수를 확인
+    protected abstract void verifyConcurrency(double concurrency);
+
+    @Test
+    void concurrentConnections() throws Exception {
+        LoadTestClient client = new LoadTestClient(restTemplate);
+        String token = client.login("admin", "admin").getToken();
+        String path = "/api/load/slow?millis=" + latencyMillis;
+
+        ExecutorService clients = Executors.newFixedThreadPool(connections);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> responses = new ArrayList<>(connections);
+            for (int i = 0; i < connections; i++) {
+                responses.add(clients.submit(() -> {
+                    start.await();
+                    return client.get(path, token);
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<Integer> response : responses) {
+                assertThat(response.get()).isEqualTo(200);
+            }
+            double elapsedMillis = (System.nanoTime() - begin) / 1_000_000.0;
+            double concurrency = connections * latencyMillis / elapsedMillis;
+
+            System.out.printf("virtual-threads=%s tomcat.threads.max=%d connections=%d latency=%dms elapsed=%.0fms concurrency=%.1f%n",
+                    virtualThreads, MAX_THREADS, connections, latencyMillis, elapsedMillis, concurrency);
+            verifyConcurrency(concurrency);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
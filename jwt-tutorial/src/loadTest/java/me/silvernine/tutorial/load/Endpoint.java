@@ -0,0 +1,34 @@
+package me.silvernine.tutorial.load;
+
+//혼합 부하에서 호출하는 API, key는 설정(mix, threshold.<key>.*)과 결과 파일 이름에 사용
+public enum Endpoint {
+    LOGIN("login", "POST /api/authenticate"),
+    SIGNUP("signup", "POST /api/signup"),
+    USER("user", "GET /api/user"),
+    USER_LOOKUP("lookup", "GET /api/user/{username}");
+
+    private final String key;
+    private final String description;
+
+    Endpoint(String key, String description) {
+        this.key = key;
+        this.description = description;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public static Endpoint fromKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 endpoint입니다: " + key);
+    }
+}
@@ -0,0 +1,80 @@
+package me.silvernine.tutorial.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//endpoint 하나의 지연 시간 분포(마이크로초)와 오류 수
+//지연 시간은 요청을 보냈어야 하는 시각부터 재므로, 서버가 밀려서 늦게 보낸 요청의 대기 시간도 포함된다 (coordinated omission 보정)
+//오류 응답은 빠르게 실패하면 분위수를 낮춰 보이게 하므로 성공 분포에 넣지 않고 따로 기록한다
+public class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Endpoint endpoint;
+    private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram errorHistogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        histogram.recordValue(toMicros(latencyNanos));
+    }
+
+    public void recordError(long latencyNanos) {
+        errors.increment();
+        errorHistogram.recordValue(toMicros(latencyNanos));
+    }
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    //워밍업 결과를 버린다
+    public void reset() {
+        histogram.reset();
+        errorHistogram.reset();
+        errors.reset();
+        dropped.reset();
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    //성공한 요청의 지연 시간
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    //오류 응답(예외 포함)의 지연 시간
+    public Histogram getErrorHistogram() {
+        return errorHistogram;
+    }
+
+    public long getCount() {
+        return histogram.getTotalCount() + errorHistogram.getTotalCount() + dropped.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum() + dropped.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public double getPercentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static long toMicros(long latencyNanos) {
+        return Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS);
+    }
+}
@@ -0,0 +1,114 @@
+package me.silvernine.tutorial.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+//고정 도착률(open model) 부하 생성기
+//요청 i는 begin + i * interval에 보내야 하고, 응답이 늦어져도 다음 요청을 기다리지 않는다
+//(응답을 기다렸다가 보내는 closed model은 서버가 느려지면 부하도 같이 줄어서 지연 시간이 실제보다 좋게 측정된다)
+public class FixedRateLoadGenerator {
+
+    //endpoint 하나를 호출하고 HTTP 응답 코드를 리턴
+    public interface RequestExecutor {
+        int execute(Endpoint endpoint) throws Exception;
+    }
+
+    private final LoadTestSettings settings;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    //측정 구간(마지막 응답까지)의 시간, 처리량 계산에 사용
+    private long elapsedNanos;
+
+    public FixedRateLoadGenerator(LoadTestSettings settings) {
+        this.settings = settings;
+        Map<Endpoint, Integer> mix = settings.getMix();
+        this.endpoints = mix.keySet().toArray(new Endpoint[0]);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += mix.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+            stats.put(endpoints[i], new EndpointStats(endpoints[i]));
+        }
+    }
+
+    //워밍업 후 durationSeconds 동안의 결과를 리턴
+    public Map<Endpoint, EndpointStats> run(RequestExecutor executor) throws InterruptedException {
+        ExecutorService clients = Executors.newCachedThreadPool();
+        Semaphore inFlight = new Semaphore(settings.getMaxInFlight());
+        try {
+            generate(executor, clients, inFlight, settings.getWarmupSeconds());
+            awaitInFlight(inFlight);
+            stats.values().forEach(EndpointStats::reset);
+
+            long begin = System.nanoTime();
+            generate(executor, clients, inFlight, settings.getDurationSeconds());
+            awaitInFlight(inFlight);
+            elapsedNanos = System.nanoTime() - begin;
+            return stats;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1_000_000_000.0;
+    }
+
+    private void generate(RequestExecutor executor, ExecutorService clients, Semaphore inFlight, int seconds) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+        long requests = (long) settings.getRate() * seconds;
+        long begin = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long intendedStart = begin + i * intervalNanos;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            EndpointStats endpointStats = stats.get(pick());
+            if (!inFlight.tryAcquire()) {
+                endpointStats.recordDropped();
+                continue;
+            }
+            clients.execute(() -> {
+                try {
+                    int status = executor.execute(endpointStats.getEndpoint());
+                    long latency = System.nanoTime() - intendedStart;
+                    if (status >= 200 && status < 300) {
+                        endpointStats.recordSuccess(latency);
+                    } else {
+                        endpointStats.recordError(latency);
+                    }
+                } catch (Exception e) {
+                    endpointStats.recordError(System.nanoTime() - intendedStart);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private Endpoint pick() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    private void awaitInFlight(Semaphore inFlight) throws InterruptedException {
+        int permits = settings.getMaxInFlight();
+        inFlight.acquire(permits);
+        inFlight.release(permits);
+    }
+}
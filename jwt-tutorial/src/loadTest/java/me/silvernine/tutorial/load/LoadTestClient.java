@@ -0,0 +1,52 @@
+package me.silvernine.tutorial.load;
+
+import me.silvernine.tutorial.dto.LoginDto;
+import me.silvernine.tutorial.dto.TokenDto;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//부하 테스트에서 공통으로 사용하는 요청 (로그인, 회원가입, 토큰을 붙인 GET)
+public class LoadTestClient {
+
+    private final TestRestTemplate restTemplate;
+
+    public LoadTestClient(TestRestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    public TokenDto login(String username, String password) {
+        LoginDto loginDto = new LoginDto(username, password);
+        ResponseEntity<TokenDto> response = restTemplate.postForEntity("/api/authenticate", loginDto, TokenDto.class);
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new IllegalStateException("로그인 실패: " + response.getStatusCode());
+        }
+        return response.getBody();
+    }
+
+    //응답 코드만 리턴 (4xx, 5xx도 예외 없이)
+    public int loginStatus(String username, String password) {
+        return restTemplate.postForEntity("/api/authenticate", new LoginDto(username, password), String.class)
+                .getStatusCodeValue();
+    }
+
+    public int signup(String username, String password, String nickname) {
+        Map<String, String> userDto = new HashMap<>();
+        userDto.put("username", username);
+        userDto.put("password", password);
+        userDto.put("nickname", nickname);
+        return restTemplate.postForEntity("/api/signup", userDto, String.class).getStatusCodeValue();
+    }
+
+    public int get(String path, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class)
+                .getStatusCodeValue();
+    }
+}
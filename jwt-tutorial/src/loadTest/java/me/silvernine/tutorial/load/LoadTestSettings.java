@@ -0,0 +1,84 @@
+package me.silvernine.tutorial.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+//load-test.properties의 기본값 + 시스템 프로퍼티(./gradlew loadTest -PloadTest.rate=500)
+public class LoadTestSettings {
+
+    private final Properties properties = new Properties();
+
+    private LoadTestSettings() {
+    }
+
+    public static LoadTestSettings load() {
+        LoadTestSettings settings = new LoadTestSettings();
+        try (InputStream inputStream = LoadTestSettings.class.getResourceAsStream("/load-test.properties")) {
+            if (inputStream != null) {
+                settings.properties.load(inputStream);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("load-test.properties를 읽을 수 없습니다.", e);
+        }
+        //시스템 프로퍼티가 우선
+        for (String name : System.getProperties().stringPropertyNames()) {
+            settings.properties.setProperty(name, System.getProperty(name));
+        }
+        return settings;
+    }
+
+    //초당 요청 수 (고정 도착률, 응답이 늦어도 요청 간격은 그대로)
+    public int getRate() {
+        return Integer.parseInt(properties.getProperty("rate", "200"));
+    }
+
+    public int getWarmupSeconds() {
+        return Integer.parseInt(properties.getProperty("warmupSeconds", "5"));
+    }
+
+    public int getDurationSeconds() {
+        return Integer.parseInt(properties.getProperty("durationSeconds", "20"));
+    }
+
+    //동시에 처리중인 요청의 상한, 넘으면 보내지 않고 dropped로 센다
+    public int getMaxInFlight() {
+        return Integer.parseInt(properties.getProperty("maxInFlight", "1000"));
+    }
+
+    public String getReportDir() {
+        return properties.getProperty("reportDir", "build/reports/load-test");
+    }
+
+    //mix=login:10,signup:5,user:70,lookup:15 (가중치, 합이 100일 필요는 없다)
+    public Map<Endpoint, Integer> getMix() {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String entry : properties.getProperty("mix", "login:10,signup:5,user:70,lookup:15").split(",")) {
+            String[] keyAndWeight = entry.trim().split(":");
+            mix.put(Endpoint.fromKey(keyAndWeight[0].trim()), Integer.parseInt(keyAndWeight[1].trim()));
+        }
+        return mix;
+    }
+
+    //threshold.<endpoint>.p99 등 (ms), 없으면 검사하지 않는다
+    public Double getLatencyThreshold(Endpoint endpoint, String percentile) {
+        return getDouble("threshold." + endpoint.getKey() + "." + percentile);
+    }
+
+    //전체 요청 중 실패(응답 코드 오류, 예외, dropped) 비율의 상한
+    public Double getMaxErrorRate() {
+        return getDouble("threshold.error-rate");
+    }
+
+    //보낸 요청 수 / 목표 요청 수의 하한 (부하 생성기가 목표 도착률을 유지했는지)
+    public Double getMinThroughputRatio() {
+        return getDouble("threshold.throughput-ratio");
+    }
+
+    private Double getDouble(String name) {
+        String value = properties.getProperty(name);
+        return value == null || value.trim().isEmpty() ? null : Double.valueOf(value.trim());
+    }
+}
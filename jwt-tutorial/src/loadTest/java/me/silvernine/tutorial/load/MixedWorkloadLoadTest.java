@@ -0,0 +1,139 @@
+package me.silvernine.tutorial.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//내장 H2로 앱을 띄우고 로그인/회원가입/조회를 고정 도착률로 섞어서 호출하는 부하 테스트
+//endpoint별 지연 시간 분위수(HdrHistogram)와 처리량을 출력하고, load-test.properties의 기준을 넘으면 실패한다
+//endpoint별 분포는 reportDir(build/reports/load-test)에 <endpoint>.hgrm으로 저장된다 (HdrHistogram plotter로 비교), 오류 응답은 <endpoint>-errors.hgrm
+//모든 요청이 같은 IP(localhost)에서 오므로 로그인 시도 제한은 끄고 측정한다
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "login.rate-limit.enabled=false")
+class MixedWorkloadLoadTest {
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    static {
+        //HttpURLConnection의 keep-alive 연결을 동시 요청 수만큼 재사용
+        System.setProperty("http.maxConnections", "1000");
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private final AtomicLong signupSequence = new AtomicLong();
+
+    @Test
+    void mixedWorkload() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.load();
+        LoadTestClient client = new LoadTestClient(restTemplate);
+        String userToken = client.login("user", "user").getToken();
+        String adminToken = client.login("admin", "admin").getToken();
+        //같은 JVM에서 여러번 실행해도 username이 겹치지 않도록
+        String signupPrefix = "load" + Long.toString(ThreadLocalRandom.current().nextLong(1L << 32), 36) + "-";
+
+        FixedRateLoadGenerator generator = new FixedRateLoadGenerator(settings);
+        Map<Endpoint, EndpointStats> results = generator.run(endpoint -> {
+            switch (endpoint) {
+                case LOGIN:
+                    return client.loginStatus("user", "user");
+                case SIGNUP:
+                    String username = signupPrefix + signupSequence.incrementAndGet();
+                    return client.signup(username, "password", username);
+                case USER:
+                    return client.get("/api/user", userToken);
+                case USER_LOOKUP:
+                    return client.get("/api/user/user", adminToken);
+                default:
+                    throw new IllegalArgumentException(endpoint.name());
+            }
+        });
+
+        report(settings, generator.getElapsedSeconds(), results);
+        assertThat(violations(settings, generator.getElapsedSeconds(), results)).isEmpty();
+    }
+
+    private void report(LoadTestSettings settings, double elapsedSeconds, Map<Endpoint, EndpointStats> results)
+            throws IOException {
+        System.out.printf("rate=%d/s duration=%ds elapsed=%.1fs mix=%s%n",
+                settings.getRate(), settings.getDurationSeconds(), elapsedSeconds, settings.getMix());
+        System.out.printf("%-26s %8s %9s %7s %8s %8s %8s %8s %8s%n",
+                "endpoint", "count", "req/s", "errors", "p50", "p90", "p99", "p99.9", "max");
+
+        Path reportDir = Paths.get(settings.getReportDir());
+        Files.createDirectories(reportDir);
+        for (EndpointStats stats : results.values()) {
+            StringBuilder line = new StringBuilder(String.format("%-26s %8d %9.1f %7d",
+                    stats.getEndpoint().getDescription(), stats.getCount(),
+                    stats.getHistogram().getTotalCount() / elapsedSeconds, stats.getErrors()));
+            for (double percentile : PERCENTILES) {
+                line.append(String.format(" %8.1f", stats.getPercentileMillis(percentile)));
+            }
+            line.append(String.format(" %8.1f", stats.getHistogram().getMaxValue() / 1000.0));
+            System.out.println(line);
+
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(reportDir.resolve(stats.getEndpoint().getKey() + ".hgrm")))) {
+                //ms 단위로 출력
+                stats.getHistogram().outputPercentileDistribution(out, 1000.0);
+            }
+            if (stats.getErrorHistogram().getTotalCount() > 0) {
+                try (PrintStream out = new PrintStream(
+                        Files.newOutputStream(reportDir.resolve(stats.getEndpoint().getKey() + "-errors.hgrm")))) {
+                    stats.getErrorHistogram().outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+    }
+
+    private List<String> violations(LoadTestSettings settings, double elapsedSeconds,
+                                    Map<Endpoint, EndpointStats> results) {
+        List<String> violations = new ArrayList<>();
+        long total = 0;
+        long errors = 0;
+        long completed = 0;
+        for (EndpointStats stats : results.values()) {
+            total += stats.getCount();
+            errors += stats.getErrors();
+            //처리량과 분위수는 성공한 요청만으로 계산한다
+            completed += stats.getHistogram().getTotalCount();
+            for (String percentile : new String[]{"p50", "p90", "p99", "p99.9"}) {
+                Double threshold = settings.getLatencyThreshold(stats.getEndpoint(), percentile);
+                double actual = stats.getPercentileMillis(Double.parseDouble(percentile.substring(1)));
+                if (threshold != null && actual > threshold) {
+                    violations.add(String.format("%s %s %.1fms > %.1fms",
+                            stats.getEndpoint().getDescription(), percentile, actual, threshold));
+                }
+            }
+        }
+
+        Double maxErrorRate = settings.getMaxErrorRate();
+        double errorRate = total == 0 ? 0 : (double) errors / total;
+        if (maxErrorRate != null && errorRate > maxErrorRate) {
+            violations.add(String.format("error rate %.4f > %.4f", errorRate, maxErrorRate));
+        }
+
+        Double minThroughputRatio = settings.getMinThroughputRatio();
+        double throughputRatio = completed / elapsedSeconds / settings.getRate();
+        if (minThroughputRatio != null && throughputRatio < minThroughputRatio) {
+            violations.add(String.format("throughput %.1f/s is %.2f of the target %d/s (< %.2f)",
+                    completed / elapsedSeconds, throughputRatio, settings.getRate(), minThroughputRatio));
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,12 @@
+package me.silvernine.tutorial.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//기존 Tomcat 스레드풀, 동시 처리량은 server.tomcat.threads.max를 넘지 못한다
+class PlatformThreadConnectionLoadTest extends ConcurrentConnectionLoadTest {
+
+    @Override
+    protected void verifyConcurrency(double concurrency) {
+        assertThat(concurrency).isLessThanOrEqualTo(MAX_THREADS * 1.1);
+    }
+}
@@ -0,0 +1,28 @@
+package me.silvernine.tutorial.load;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+//부하 테스트에서만 사용하는 API
+//요청 스레드를 millis만큼 막아서 느린 DB/외부 API 호출을 흉내낸다 (JwtFilter를 거치도록 인증 필요)
+@TestConfiguration
+public class SlowEndpointConfig {
+
+    @Bean
+    public SlowController slowController() {
+        return new SlowController();
+    }
+
+    @RestController
+    public static class SlowController {
+
+        @GetMapping("/api/load/slow")
+        public String slow(@RequestParam(defaultValue = "200") long millis) throws InterruptedException {
+            Thread.sleep(millis);
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package me.silvernine.tutorial.load;
+
+import me.silvernine.tutorial.config.VirtualThreadConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+//server.virtual-threads.enabled=true, JDK 21 미만에서는 건너뛴다
+@TestPropertySource(properties = "server.virtual-threads.enabled=true")
+class VirtualThreadConnectionLoadTest extends ConcurrentConnectionLoadTest {
+
+    @BeforeAll
+    static void requireVirtualThreads() {
+        assumeTrue(VirtualThreadConfig.isSupported(), "virtual thread는 JDK 21 이상에서만 지원");
+    }
+
+    @Override
+    protected void verifyConcurrency(double concurrency) {
+        assertThat(concurrency).isGreaterThan(MAX_THREADS * 2);
+    }
+}
@@ -0,0 +1,35 @@
+package me.silvernine.tutorial.authorization;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Map;
+
+//권한 이름 -> bit (@PreAuthorize 규칙에 나오는 권한만, 최대 64개)
+//규칙에 나오지 않는 권한은 어떤 규칙에도 영향이 없으므로 bit를 주지 않는다
+//시작할때 AuthorizationRuleCompiler가 만들고 이후에는 바뀌지 않는다
+public final class AuthorityBits {
+
+    static final int MAX_AUTHORITIES = 64;
+
+    private final Map<String, Long> bits;
+
+    AuthorityBits(Map<String, Long> bits) {
+        this.bits = bits;
+    }
+
+    public long maskOf(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            Long bit = bits.get(authority.getAuthority());
+            if (bit != null) {
+                mask |= bit;
+            }
+        }
+        return mask;
+    }
+
+    long bitOf(String authority) {
+        return bits.get(authority);
+    }
+}
@@ -0,0 +1,54 @@
+package me.silvernine.tutorial.authorization;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+//@PreAuthorize 표현식 하나를 컴파일한 결과
+//hasRole, hasAnyRole, hasAuthority, hasAnyAuthority(와 그 or 조합)는 권한 bitmask 하나로 바뀌어서
+//요청마다 SpEL 평가나 권한 목록 순회 없이 mask & requiredMask로 판단한다
+public final class AuthorizationRule {
+
+    enum Kind {
+        PERMIT_ALL,
+        DENY_ALL,
+        AUTHENTICATED,
+        ANONYMOUS,
+        ANY_AUTHORITY
+    }
+
+    private final String expression;
+    private final Kind kind;
+    private final long requiredMask;
+
+    AuthorizationRule(String expression, Kind kind, long requiredMask) {
+        this.expression = expression;
+        this.kind = kind;
+        this.requiredMask = requiredMask;
+    }
+
+    //authorityMask: authentication의 권한을 AuthorityBits로 바꾼 값
+    public boolean isGranted(Authentication authentication, long authorityMask) {
+        switch (kind) {
+            case PERMIT_ALL:
+                return true;
+            case DENY_ALL:
+                return false;
+            //SecurityExpressionRoot와 같이 AnonymousAuthenticationToken인지로 판단
+            case AUTHENTICATED:
+                return !(authentication instanceof AnonymousAuthenticationToken);
+            case ANONYMOUS:
+                return authentication instanceof AnonymousAuthenticationToken;
+            default:
+                return (authorityMask & requiredMask) != 0;
+        }
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
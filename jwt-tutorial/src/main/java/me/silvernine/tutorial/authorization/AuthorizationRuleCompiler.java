@@ -0,0 +1,144 @@
+package me.silvernine.tutorial.authorization;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//@PreAuthorize 표현식을 AuthorizationRule로 바꾼다
+//지원하는 형태 (SecurityExpressionRoot와 같은 의미)
+//- hasRole('X'), hasAnyRole('X', ...)            : 'ROLE_' 접두사가 없으면 붙인다
+//- hasAuthority('X'), hasAnyAuthority('X', ...) : 그대로
+//- 위 표현식들을 or로 이은 것
+//- permitAll, denyAll, isAuthenticated(), isAnonymous()
+//그 외의 표현식(and, not, 메소드 파라미터 참조 등)은 IllegalStateException으로 시작을 실패시킨다
+//(조용히 무시되어 권한 검사가 빠지는 일이 없도록)
+public final class AuthorizationRuleCompiler {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final Pattern CALL = Pattern.compile("(hasRole|hasAnyRole|hasAuthority|hasAnyAuthority)\\s*\\((.*)\\)");
+    private static final Pattern QUOTED = Pattern.compile("'([^']*)'");
+    private static final Pattern OR = Pattern.compile("\\s+or\\s+|\\s*\\|\\|\\s*");
+
+    private AuthorizationRuleCompiler() {}
+
+    //표현식들을 한번에 컴파일해서 권한 bit를 공유하는 규칙들을 만든다
+    public static Compiled compile(Collection<String> expressions) {
+        Map<String, List<String>> authoritiesByExpression = new HashMap<>();
+        Set<String> allAuthorities = new LinkedHashSet<>();
+        for (String expression : expressions) {
+            List<String> authorities = parseAuthorities(expression);
+            if (authorities != null) {
+                authoritiesByExpression.put(expression, authorities);
+                allAuthorities.addAll(authorities);
+            }
+        }
+        if (allAuthorities.size() > AuthorityBits.MAX_AUTHORITIES) {
+            throw new IllegalStateException("@PreAuthorize에 사용된 권한이 " + AuthorityBits.MAX_AUTHORITIES
+                    + "개를 넘습니다: " + allAuthorities.size());
+        }
+
+        Map<String, Long> bits = new HashMap<>();
+        for (String authority : allAuthorities) {
+            bits.put(authority, 1L << bits.size());
+        }
+        AuthorityBits authorityBits = new AuthorityBits(bits);
+
+        Map<String, AuthorizationRule> rules = new HashMap<>();
+        for (String expression : expressions) {
+            List<String> authorities = authoritiesByExpression.get(expression);
+            if (authorities == null) {
+                rules.put(expression, simpleRule(expression));
+                continue;
+            }
+            long mask = 0;
+            for (String authority : authorities) {
+                mask |= authorityBits.bitOf(authority);
+            }
+            rules.put(expression, new AuthorizationRule(expression, AuthorizationRule.Kind.ANY_AUTHORITY, mask));
+        }
+        return new Compiled(authorityBits, rules);
+    }
+
+    //권한 검사 표현식이면 필요한 권한 목록(하나라도 있으면 허용), 아니면 null
+    private static List<String> parseAuthorities(String expression) {
+        String trimmed = expression.trim();
+        if (!CALL.matcher(trimmed.split(OR.pattern(), 2)[0].trim()).matches()) {
+            return null;
+        }
+        List<String> authorities = new ArrayList<>();
+        for (String term : OR.split(trimmed)) {
+            Matcher call = CALL.matcher(term.trim());
+            if (!call.matches()) {
+                throw unsupported(expression);
+            }
+            boolean role = call.group(1).endsWith("Role");
+            boolean any = call.group(1).startsWith("hasAny");
+            List<String> names = parseArguments(call.group(2), expression);
+            if (names.isEmpty() || (!any && names.size() != 1)) {
+                throw unsupported(expression);
+            }
+            for (String name : names) {
+                authorities.add(role && !name.startsWith(ROLE_PREFIX) ? ROLE_PREFIX + name : name);
+            }
+        }
+        return authorities;
+    }
+
+    //'A', 'B' 형태의 인자만 허용
+    private static List<String> parseArguments(String arguments, String expression) {
+        List<String> names = new ArrayList<>();
+        for (String argument : arguments.split(",")) {
+            Matcher quoted = QUOTED.matcher(argument.trim());
+            if (!quoted.matches()) {
+                throw unsupported(expression);
+            }
+            names.add(quoted.group(1));
+        }
+        return names;
+    }
+
+    private static AuthorizationRule simpleRule(String expression) {
+        switch (expression.trim()) {
+            case "permitAll":
+            case "permitAll()":
+                return new AuthorizationRule(expression, AuthorizationRule.Kind.PERMIT_ALL, 0);
+            case "denyAll":
+            case "denyAll()":
+                return new AuthorizationRule(expression, AuthorizationRule.Kind.DENY_ALL, 0);
+            case "isAuthenticated()":
+                return new AuthorizationRule(expression, AuthorizationRule.Kind.AUTHENTICATED, 0);
+            case "isAnonymous()":
+                return new AuthorizationRule(expression, AuthorizationRule.Kind.ANONYMOUS, 0);
+            default:
+                throw unsupported(expression);
+        }
+    }
+
+    private static IllegalStateException unsupported(String expression) {
+        return new IllegalStateException("컴파일할 수 없는 @PreAuthorize 표현식입니다: " + expression);
+    }
+
+    public static final class Compiled {
+        private final AuthorityBits authorityBits;
+        private final Map<String, AuthorizationRule> rules;
+
+        private Compiled(AuthorityBits authorityBits, Map<String, AuthorizationRule> rules) {
+            this.authorityBits = authorityBits;
+            this.rules = rules;
+        }
+
+        public AuthorityBits getAuthorityBits() {
+            return authorityBits;
+        }
+
+        public AuthorizationRule getRule(String expression) {
+            return rules.get(expression);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package me.silvernine.tutorial.authorization;
+
+import me.silvernine.tutorial.jwt.JwtAuthentication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.prepost.PreFilter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Component //컨트롤러 메소드의 @PreAuthorize를 시작할때 컴파일해서 요청마다 bitmask로 검사
+//method security(@EnableGlobalMethodSecurity)는 호출마다 AOP 인터셉터 -> SpEL 평가 -> 권한 목록 순회를 거치지만
+//여기서는 HandlerMethod로 규칙을 찾고 Authentication의 권한 bitmask와 비교만 한다
+//- 메소드의 @PreAuthorize가 클래스의 @PreAuthorize보다 우선 (method security와 같음)
+//- 인증정보가 없으면 AuthenticationCredentialsNotFoundException, 거절되면 AccessDeniedException
+//  (ExceptionTranslationFilter가 401/403으로 바꾸는 것도 기존과 같다)
+//- 컨트롤러가 아닌 빈의 보안 어노테이션은 검사할 수 없으므로 시작을 실패시킨다
+public class CompiledAuthorizationInterceptor implements HandlerInterceptor, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledAuthorizationInterceptor.class);
+
+    private static final List<Class<? extends Annotation>> SECURITY_ANNOTATIONS = Arrays.asList(
+            PreAuthorize.class, PostAuthorize.class, PreFilter.class, PostFilter.class, Secured.class);
+
+    private final ListableBeanFactory beanFactory;
+
+    //시작할때 한번 만들어지고 이후에는 읽기만 한다
+    private volatile Map<Method, AuthorizationRule> rules;
+    private volatile AuthorityBits authorityBits;
+
+    public CompiledAuthorizationInterceptor(ListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    //모든 HandlerMapping이 초기화된 다음, 웹서버가 요청을 받기 전에 실행된다
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<Method, String> expressions = new HashMap<>();
+        for (RequestMappingHandlerMapping mapping : beanFactory.getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values()) {
+                PreAuthorize preAuthorize = findPreAuthorize(handlerMethod.getMethod(), handlerMethod.getBeanType());
+                if (preAuthorize != null) {
+                    expressions.put(handlerMethod.getMethod(), preAuthorize.value());
+                }
+            }
+        }
+        checkNoUnsupportedAnnotations(expressions.keySet());
+
+        AuthorizationRuleCompiler.Compiled compiled = AuthorizationRuleCompiler.compile(new HashSet<>(expressions.values()));
+        Map<Method, AuthorizationRule> compiledRules = new HashMap<>();
+        for (Map.Entry<Method, String> entry : expressions.entrySet()) {
+            compiledRules.put(entry.getKey(), compiled.getRule(entry.getValue()));
+        }
+        this.authorityBits = compiled.getAuthorityBits();
+        this.rules = compiledRules;
+        logger.info("@PreAuthorize 규칙 {}개를 컴파일했습니다.", compiledRules.size());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        //비동기 응답을 보내는 재dispatch는 처음 dispatch에서 이미 검사했다
+        if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        AuthorizationRule rule = rules.get(((HandlerMethod) handler).getMethod());
+        if (rule == null) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new AuthenticationCredentialsNotFoundException(
+                    "An Authentication object was not found in the SecurityContext");
+        }
+        if (!authentication.isAuthenticated()) {
+            throw new InsufficientAuthenticationException("인증되지 않은 Authentication입니다.");
+        }
+        if (!rule.isGranted(authentication, authorityMask(authentication))) {
+            throw new AccessDeniedException("Access is denied");
+        }
+        return true;
+    }
+
+    //JwtFilter가 저장한 JwtAuthentication은 mask를 한번만 계산해서 가지고 있다
+    private long authorityMask(Authentication authentication) {
+        if (authentication instanceof JwtAuthentication) {
+            return ((JwtAuthentication) authentication).getAuthorityMask(authorityBits);
+        }
+        return authorityBits.maskOf(authentication.getAuthorities());
+    }
+
+    private static PreAuthorize findPreAuthorize(Method method, Class<?> beanType) {
+        PreAuthorize preAuthorize = AnnotatedElementUtils.findMergedAnnotation(method, PreAuthorize.class);
+        return preAuthorize != null ? preAuthorize : AnnotatedElementUtils.findMergedAnnotation(beanType, PreAuthorize.class);
+    }
+
+    //애플리케이션 패키지의 빈(과 빈이 구현한 인터페이스)에서 여기서 검사할 수 없는 보안 어노테이션을 찾으면 실패
+    //- 컨트롤러 메소드가 아닌 곳의 @PreAuthorize (서비스, 리포지토리 등)
+    //- @PostAuthorize, @PreFilter, @PostFilter, @Secured
+    private void checkNoUnsupportedAnnotations(Set<Method> handlerMethods) {
+        if (!AutoConfigurationPackages.has((BeanFactory) beanFactory)) {
+            return;
+        }
+        List<String> packages = AutoConfigurationPackages.get((BeanFactory) beanFactory);
+        Set<Class<?>> handlerTypes = new HashSet<>();
+        for (Method handlerMethod : handlerMethods) {
+            handlerTypes.add(handlerMethod.getDeclaringClass());
+        }
+
+        Set<Class<?>> types = new HashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            if (beanType == null) {
+                continue;
+            }
+            types.add(ClassUtils.getUserClass(beanType));
+            types.addAll(ClassUtils.getAllInterfacesForClassAsSet(beanType));
+        }
+        for (Class<?> type : types) {
+            if (!isInPackages(type, packages)) {
+                continue;
+            }
+            for (Class<? extends Annotation> annotation : SECURITY_ANNOTATIONS) {
+                if (AnnotatedElementUtils.hasAnnotation(type, annotation)
+                        && (annotation != PreAuthorize.class || !handlerTypes.contains(type))) {
+                    throw unsupportedAnnotation(type.getName(), annotation);
+                }
+            }
+            ReflectionUtils.doWithMethods(type, method -> {
+                for (Class<? extends Annotation> annotation : SECURITY_ANNOTATIONS) {
+                    if (AnnotatedElementUtils.hasAnnotation(method, annotation)
+                            && (annotation != PreAuthorize.class || !handlerMethods.contains(method))) {
+                        throw unsupportedAnnotation(type.getName() + "." + method.getName(), annotation);
+                    }
+                }
+            });
+        }
+    }
+
+    private static IllegalStateException unsupportedAnnotation(String target, Class<? extends Annotation> annotation) {
+        return new IllegalStateException("컨트롤러 메소드의 @PreAuthorize만 지원합니다: "
+                + target + " (@" + annotation.getSimpleName() + ")");
+    }
+
+    private static boolean isInPackages(Class<?> type, List<String> packages) {
+        String name = type.getName();
+        for (String packageName : packages) {
+            if (name.startsWith(packageName + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package me.silvernine.tutorial.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+//서버가 시작될때 현재 장비에서 BCrypt 해시 시간을 직접 측정해서
+//목표 시간(target-millis) 안에 끝나는 가장 높은 cost를 골라주는 클래스
+//cost가 1 올라가면 해시 시간은 약 2배가 되므로, 낮은 cost부터 목표 시간을 넘을때까지 올려가며 측정한다
+public class BCryptStrengthCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptStrengthCalibrator.class);
+
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_STRENGTH = 16;
+    private static final String SAMPLE_PASSWORD = "bcrypt-calibration-sample";
+
+    private BCryptStrengthCalibrator() {}
+
+    public static int calibrate(long targetMillis, int minStrength) {
+        //JIT 워밍업
+        BCryptPasswordEncoder warmup = new BCryptPasswordEncoder(MIN_STRENGTH);
+        for (int i = 0; i < 10; i++) {
+            warmup.encode(SAMPLE_PASSWORD);
+        }
+
+        int chosen = MIN_STRENGTH;
+        for (int strength = MIN_STRENGTH; strength <= MAX_STRENGTH; strength++) {
+            long elapsedMillis = measure(strength);
+            logger.debug("BCrypt cost {} : {}ms", strength, elapsedMillis);
+            if (elapsedMillis > targetMillis) {
+                break;
+            }
+            chosen = strength;
+        }
+
+        int strength = Math.max(chosen, minStrength);
+        logger.info("BCrypt cost를 {}로 설정합니다. (목표 {}ms, 최소 cost {})", strength, targetMillis, minStrength);
+        return strength;
+    }
+
+    private static long measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
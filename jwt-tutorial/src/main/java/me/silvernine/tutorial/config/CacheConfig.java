@@ -0,0 +1,137 @@
+package me.silvernine.tutorial.config;
+
+import me.silvernine.tutorial.exception.SharedStoreException;
+import me.silvernine.tutorial.store.SharedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+//Spring Cache 설정
+//캐시 저장소(Caffeine)와 크기, TTL은 application.yml의 spring.cache에서 설정한다
+//캐시는 서버마다 따로 있으므로, 공유 저장소(store.type=remote, embedded)를 쓰면
+//evict/clear를 SharedStore로 알려서 다른 서버의 캐시에서도 지운다 (권한이 바뀐 유저가 다른 서버에서 이전 권한으로 보이지 않도록)
+//알림을 놓친 서버는 spring.cache.caffeine.spec의 expireAfterWrite가 지나면 다시 읽는다
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+    //username -> 로그인용 (유저, 권한) 행 목록 (UserAccountRow)
+    public static final String USERS = "users";
+    //username -> /api/user 응답용 (유저, 권한) 행 목록
+    public static final String USER_INFO = "userInfo";
+
+    //메세지는 "캐시이름 키", 키가 없으면 clear
+    static final String EVICT_CHANNEL = "cache.evict";
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    //spring.cache.type=caffeine 자동설정 대신 등록 (spec, cache-names는 그대로 사용)
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties, SharedStore sharedStore) {
+        BroadcastingCaffeineCacheManager cacheManager = new BroadcastingCaffeineCacheManager(sharedStore);
+        String specification = cacheProperties.getCaffeine().getSpec();
+        if (StringUtils.hasText(specification)) {
+            cacheManager.setCacheSpecification(specification);
+        }
+        if (!cacheProperties.getCacheNames().isEmpty()) {
+            cacheManager.setCacheNames(cacheProperties.getCacheNames());
+        }
+        if (sharedStore.isShared()) {
+            sharedStore.subscribe(EVICT_CHANNEL, cacheManager::onEvicted);
+        }
+        return cacheManager;
+    }
+
+    private static final class BroadcastingCaffeineCacheManager extends CaffeineCacheManager {
+        private final SharedStore sharedStore;
+
+        private BroadcastingCaffeineCacheManager(SharedStore sharedStore) {
+            this.sharedStore = sharedStore;
+        }
+
+        @Override
+        protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+            return new BroadcastingCaffeineCache(name, cache, isAllowNullValues(), this);
+        }
+
+        //다른 서버(또는 이 서버)가 보낸 알림, 로컬 캐시에서만 지운다
+        private void onEvicted(String message) {
+            int separator = message.indexOf(' ');
+            String name = separator < 0 ? message : message.substring(0, separator);
+            Cache cache = getCache(name);
+            if (!(cache instanceof BroadcastingCaffeineCache)) {
+                return;
+            }
+            if (separator < 0) {
+                ((BroadcastingCaffeineCache) cache).clearLocal();
+            } else {
+                ((BroadcastingCaffeineCache) cache).evictLocal(message.substring(separator + 1));
+            }
+        }
+
+        private void publish(String message) {
+            if (!sharedStore.isShared()) {
+                return;
+            }
+            try {
+                sharedStore.publish(EVICT_CHANNEL, message);
+            } catch (SharedStoreException e) {
+                logger.warn("캐시 삭제를 다른 서버에 알리지 못했습니다. {}: {}", message, e.getMessage());
+            }
+        }
+    }
+
+    private static final class BroadcastingCaffeineCache extends CaffeineCache {
+        private final BroadcastingCaffeineCacheManager cacheManager;
+
+        private BroadcastingCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                          boolean allowNullValues, BroadcastingCaffeineCacheManager cacheManager) {
+            super(name, cache, allowNullValues);
+            this.cacheManager = cacheManager;
+        }
+
+        @Override
+        public void evict(Object key) {
+            super.evict(key);
+            cacheManager.publish(getName() + " " + key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean present = super.evictIfPresent(key);
+            cacheManager.publish(getName() + " " + key);
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            cacheManager.publish(getName());
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean notEmpty = super.invalidate();
+            cacheManager.publish(getName());
+            return notEmpty;
+        }
+
+        //캐시 키는 username(String)이므로 알림으로 받은 문자열 그대로 지운다
+        private void evictLocal(String key) {
+            super.evict(key);
+        }
+
+        private void clearLocal() {
+            super.clear();
+        }
+    }
+}
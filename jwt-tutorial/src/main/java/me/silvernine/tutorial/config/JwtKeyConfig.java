@@ -0,0 +1,33 @@
+package me.silvernine.tutorial.config;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import me.silvernine.tutorial.jwt.SigningKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//토큰 서명 키 설정
+//jwt.signature-algorithm이 HS로 시작하면 jwt.secret을 그 알고리즘으로 사용하고 (secret이 짧으면 시작할때 실패),
+//RS256, PS256, ES256 등 비대칭 알고리즘이면 jwt.keystore의 개인키/공개키를 사용한다
+//(키스토어 예: keytool -genkeypair -alias jwt -keyalg EC -groupname secp256r1 -storetype PKCS12 -keystore jwt.p12)
+@Configuration
+public class JwtKeyConfig {
+
+    @Bean
+    public SigningKey signingKey(
+            @Value("${jwt.signature-algorithm:HS512}") String signatureAlgorithm,
+            @Value("${jwt.secret:}") String secret,
+            @Value("${jwt.keystore.path:}") String keyStorePath,
+            @Value("${jwt.keystore.type:PKCS12}") String keyStoreType,
+            @Value("${jwt.keystore.password:}") String keyStorePassword,
+            @Value("${jwt.keystore.alias:jwt}") String keyStoreAlias) {
+        SignatureAlgorithm algorithm = SignatureAlgorithm.forName(signatureAlgorithm);
+        if (algorithm.isHmac()) {
+            return SigningKey.hmac(algorithm, secret);
+        }
+        if (!algorithm.isRsa() && !algorithm.isEllipticCurve()) {
+            throw new IllegalStateException("지원하지 않는 서명 알고리즘입니다: " + signatureAlgorithm);
+        }
+        return SigningKey.fromKeyStore(keyStorePath, keyStoreType, keyStorePassword, keyStoreAlias, algorithm);
+    }
+}
@@ -1,40 +1,112 @@
 package me.silvernine.tutorial.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import me.silvernine.tutorial.jwt.JwtSecurityConfig;
 import me.silvernine.tutorial.jwt.JwtAccessDeniedHandler;
 import me.silvernine.tutorial.jwt.JwtAuthenticationEntryPoint;
 import me.silvernine.tutorial.jwt.TokenProvider;
+import me.silvernine.tutorial.jwt.TokenRevocationStore;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import me.silvernine.tutorial.ratelimit.LoginRateLimitFilter;
+import me.silvernine.tutorial.ratelimit.LoginRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
-import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @EnableWebSecurity
-@EnableGlobalMethodSecurity(prePostEnabled = true)//나중애 @PreAuthorize를 메소드단위로 추가하기 위해 사용
+//컨트롤러 메소드의 @PreAuthorize는 method security(SpEL) 대신
+//시작할때 bitmask로 컴파일해두는 CompiledAuthorizationInterceptor가 검사한다 (WebMvcConfig)
 public class SecurityConfig {
+    private static final String BCRYPT_ID = "bcrypt";
+
+    //인증 없이 호출할 수 있는 API
+    //authorizeRequests의 permitAll()과 JwtFilter의 토큰 검증 생략에 같이 사용되므로 한곳에서만 관리한다
+    public static final String[] PERMIT_ALL_PATTERNS = {
+            "/api/hello",
+            //토큰을 받기위한 로그인 API인 /api/authenticate와
+            //회원가인 API인 /api/signup는 토큰이 없는 상태에서 요청이 들어오기 때문에
+            //모두 permitAll()해준다
+            "/api/authenticate",
+            "/api/signup",
+            //access 토큰이 만료된 상태에서 호출하는 refresh API도 permitAll()
+            "/api/refresh",
+            //헬스체크는 누구나
+            "/actuator/health",
+            //다른 서비스가 토큰을 직접 검증할때 사용하는 공개키
+            "/.well-known/jwks.json"
+    };
+
     private final TokenProvider tokenProvider;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAccessDeniedHandler jwtAccessDeniedHandler;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final AuthMetrics authMetrics;
+    private final LoginRateLimiter loginRateLimiter;
+    private final ObjectMapper objectMapper;
 
     //기존에 만들었던 jwt관련 클래스를 주입받는다
     public SecurityConfig(
             TokenProvider tokenProvider,
             JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
-            JwtAccessDeniedHandler jwtAccessDeniedHandler
+            JwtAccessDeniedHandler jwtAccessDeniedHandler,
+            TokenRevocationStore tokenRevocationStore,
+            AuthMetrics authMetrics,
+            LoginRateLimiter loginRateLimiter,
+            ObjectMapper objectMapper
     ) {
         this.tokenProvider = tokenProvider;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
         this.jwtAccessDeniedHandler = jwtAccessDeniedHandler;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.loginRateLimiter = loginRateLimiter;
+        this.objectMapper = objectMapper;
+        this.authMetrics = authMetrics;
     }
 
+    //{bcrypt} 접두사로 알고리즘을 구분하는 DelegatingPasswordEncoder
+    //- 새로 저장되는 비밀번호는 "{bcrypt}$2a$<cost>$..." 형태
+    //- data.sql의 접두사 없는 기존 해시("$2a$08$...")도 bcrypt로 비교한다
+    //- 로그인에 성공했을때 접두사가 없거나 cost가 설정값과 다르면 CustomUserDetailsService.updatePassword로 재해시된다
+    //password.bcrypt.calibrate가 true이면 시작할때 이 장비에서 target-millis 안에 끝나는 cost를 측정해서 사용
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${password.bcrypt.strength:10}") int strength,
+            @Value("${password.bcrypt.calibrate:false}") boolean calibrate,
+            @Value("${password.bcrypt.target-millis:250}") long targetMillis,
+            @Value("${password.bcrypt.min-strength:10}") int minStrength) {
+        int bcryptStrength = calibrate ? BCryptStrengthCalibrator.calibrate(targetMillis, minStrength) : strength;
+        PasswordEncoder bcrypt = new UpgradingBCryptPasswordEncoder(bcryptStrength);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT_ID, bcrypt);
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(BCRYPT_ID, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        //encode, matches 시간을 auth.password.* 지표로 기록
+        return new TimedPasswordEncoder(passwordEncoder, authMetrics);
+    }
+
+    //PERMIT_ALL_PATTERNS를 antMatchers와 같은 방식(AntPathRequestMatcher)으로 매칭
+    public static RequestMatcher permitAllRequestMatcher() {
+        List<RequestMatcher> matchers = new ArrayList<>(PERMIT_ALL_PATTERNS.length);
+        for (String pattern : PERMIT_ALL_PATTERNS) {
+            matchers.add(new AntPathRequestMatcher(pattern));
+        }
+        return new OrRequestMatcher(matchers);
     }
 
     @Bean
@@ -67,19 +139,22 @@ public class SecurityConfig {
 
                 .and()
                 .authorizeRequests()
-                .antMatchers("/api/hello").permitAll()
-                //토큰을 받기위한 로그인 API인 /api/authenticate와
-                //회원가인 API인 /api/signup는 토큰이 없는 상태에서 요청이 들어오기 때문에
-                //모두 permitAll()해준다
-                .antMatchers("/api/authenticate").permitAll()
-                .antMatchers("/api/signup").permitAll()
+                .antMatchers(PERMIT_ALL_PATTERNS).permitAll()
+                //나머지 actuator(metrics 등)는 ADMIN만 조회 가능
+                .antMatchers("/actuator/**").hasRole("ADMIN")
 
                 .anyRequest().authenticated()
 
                 .and()
                 //JwtFilter를 addFilterBefore로 등록했던
                 //JwtSecurityConfig클래스도 적용
-                .apply(new JwtSecurityConfig(tokenProvider));
+                //permitAll API는 JwtFilter가 토큰을 검증하지 않는다
+                .apply(new JwtSecurityConfig(tokenProvider, tokenRevocationStore, authMetrics,
+                        permitAllRequestMatcher()));
+
+        //로그인 시도 횟수 제한, AuthenticationManager(DB 조회, BCrypt)까지 가기 전에 429로 거절
+        httpSecurity.addFilterBefore(new LoginRateLimitFilter(loginRateLimiter, objectMapper),
+                UsernamePasswordAuthenticationFilter.class);
 
         return httpSecurity.build();
     }
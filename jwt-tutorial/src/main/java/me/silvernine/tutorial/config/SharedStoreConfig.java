@@ -0,0 +1,95 @@
+package me.silvernine.tutorial.config;
+
+import me.silvernine.tutorial.store.LocalSharedStore;
+import me.silvernine.tutorial.store.RemoteSharedStore;
+import me.silvernine.tutorial.store.SharedStore;
+import me.silvernine.tutorial.store.SharedStoreServer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Locale;
+
+//여러 서버가 공유하는 인증 상태 저장소 설정 (store.type)
+//- local    : 프로세스 안에서만 공유 (서버 1대)
+//- remote   : store.remote.host:port의 SharedStoreServer에 접속 (로드밸런서 뒤 여러 서버, sticky session 불필요)
+//- embedded : 앱 안에서 SharedStoreServer를 띄우고 remote와 같은 방식으로 접속 (테스트, 개발용 대역)
+//remote는 store.secret(서버의 STORE_SECRET과 같은 값)이 없으면 시작할때 실패
+//embedded는 store.secret이 없으면 이 프로세스에서만 쓰는 secret을 만든다
+//SharedStore는 알림(폐기, 키 교체, 캐시 무효화)과 카운터만 공유하고, 유저, refresh 토큰, 폐기 목록, 서명 키는 DB에 있다
+//그래서 remote, embedded는 모든 서버가 같은 DB 서버에 접속해야 하며, 서버마다 따로인 DB(메모리, 파일 DB)면 시작할때 실패
+//(파일 DB의 AUTO_SERVER는 같은 호스트의 프로세스끼리만 공유된다)
+@Configuration
+public class SharedStoreConfig {
+
+    private final String embeddedSecret = randomSecret();
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "store.type", havingValue = "embedded")
+    public SharedStoreServer sharedStoreServer(
+            @Value("${store.embedded.port:0}") int port,
+            @Value("${store.secret:}") String secret) throws IOException {
+        return new SharedStoreServer(port, InetAddress.getLoopbackAddress(), secret.isEmpty() ? embeddedSecret : secret);
+    }
+
+    @Bean(destroyMethod = "close")
+    public SharedStore sharedStore(
+            @Value("${store.type:local}") String type,
+            @Value("${store.remote.host:localhost}") String host,
+            @Value("${store.remote.port:7070}") int port,
+            @Value("${store.secret:}") String secret,
+            @Value("${store.remote.timeout-millis:500}") long timeoutMillis,
+            @Value("${store.remote.near-cache-size:10000}") int nearCacheSize,
+            @Value("${spring.datasource.url:}") String datasourceUrl,
+            ObjectProvider<SharedStoreServer> embeddedServer) {
+        if (!"local".equals(type) && !isSharedDatabase(datasourceUrl)) {
+            throw new IllegalStateException("store.type=" + type + "는 모든 서버가 같은 DB 서버를 사용해야 합니다. "
+                    + "spring.datasource.url을 공유 DB 서버(jdbc:h2:tcp://, jdbc:mysql:// 등)로 설정하세요: "
+                    + (datasourceUrl.isEmpty() ? "(내장 DB)" : datasourceUrl));
+        }
+        switch (type) {
+            case "local":
+                return new LocalSharedStore();
+            case "remote":
+                return new RemoteSharedStore(host, port, secret, timeoutMillis, nearCacheSize);
+            case "embedded":
+                return new RemoteSharedStore(InetAddress.getLoopbackAddress().getHostAddress(),
+                        embeddedServer.getObject().getPort(), secret.isEmpty() ? embeddedSecret : secret,
+                        timeoutMillis, nearCacheSize);
+            default:
+                throw new IllegalStateException("지원하지 않는 store.type입니다: " + type);
+        }
+    }
+
+    //다른 호스트의 서버도 접속할 수 있는 DB인지
+    //url이 없으면 Spring Boot가 내장 DB를 만들고, H2, HSQLDB, Derby, SQLite의 메모리/파일 모드는 프로세스(호스트)별 DB
+    static boolean isSharedDatabase(String datasourceUrl) {
+        if (datasourceUrl == null || datasourceUrl.trim().isEmpty()) {
+            return false;
+        }
+        String url = datasourceUrl.trim().toLowerCase(Locale.ROOT);
+        if (url.startsWith("jdbc:h2:")) {
+            return url.startsWith("jdbc:h2:tcp:") || url.startsWith("jdbc:h2:ssl:");
+        }
+        if (url.startsWith("jdbc:hsqldb:")) {
+            return url.startsWith("jdbc:hsqldb:hsql:") || url.startsWith("jdbc:hsqldb:hsqls:")
+                    || url.startsWith("jdbc:hsqldb:http:") || url.startsWith("jdbc:hsqldb:https:");
+        }
+        if (url.startsWith("jdbc:derby:")) {
+            return url.startsWith("jdbc:derby://");
+        }
+        return !url.startsWith("jdbc:sqlite:");
+    }
+
+    private static String randomSecret() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,42 @@
+package me.silvernine.tutorial.config;
+
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+//PasswordEncoder의 encode, matches 시간을 AuthMetrics에 기록하는 데코레이터
+//로그인 시간 중 BCrypt가 차지하는 비중을 DB조회(auth.user.lookup)와 나눠서 보기 위함
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final AuthMetrics authMetrics;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, AuthMetrics authMetrics) {
+        this.delegate = delegate;
+        this.authMetrics = authMetrics;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            authMetrics.recordPasswordEncode(start);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            authMetrics.recordPasswordMatch(start);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
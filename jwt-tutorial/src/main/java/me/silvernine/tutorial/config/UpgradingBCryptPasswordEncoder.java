@@ -0,0 +1,48 @@
+package me.silvernine.tutorial.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+//저장된 해시의 cost가 설정된 cost와 다르면 upgradeEncoding이 true를 리턴하는 BCryptPasswordEncoder
+//기본 BCryptPasswordEncoder는 저장된 cost가 더 낮을때만 true를 리턴하기 때문에 cost를 낮추는 경우는 재해시가 되지 않는다
+//DaoAuthenticationProvider는 로그인에 성공했을때 upgradeEncoding이 true이면
+//UserDetailsPasswordService(CustomUserDetailsService)의 updatePassword로 새 해시를 저장한다
+public class UpgradingBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final String BCRYPT_PREFIX = "{bcrypt}";
+
+    private final int strength;
+
+    public UpgradingBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int storedStrength = strengthOf(encodedPassword);
+        return storedStrength > 0 && storedStrength != strength;
+    }
+
+    //"$2a$08$..." 형태의 해시에서 cost(08)를 읽는다, 형식이 맞지 않으면 -1
+    //DelegatingPasswordEncoder는 접두사를 떼고 넘겨주지만, 직접 호출되는 경우를 위해 "{bcrypt}" 접두사도 허용한다
+    static int strengthOf(String encodedPassword) {
+        if (encodedPassword != null && encodedPassword.startsWith(BCRYPT_PREFIX)) {
+            encodedPassword = encodedPassword.substring(BCRYPT_PREFIX.length());
+        }
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(3) != '$'
+                || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char ones = encodedPassword.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+}
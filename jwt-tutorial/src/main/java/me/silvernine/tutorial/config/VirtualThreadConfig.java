@@ -0,0 +1,72 @@
+package me.silvernine.tutorial.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//server.virtual-threads.enabled가 true이면 Tomcat의 요청 처리 스레드(필터 체인 + 컨트롤러)를 virtual thread로 바꾼다
+//JwtFilter, UserService의 JPA 호출처럼 요청 스레드를 막는 작업이 플랫폼 스레드를 하나씩 점유하지 않게 되어
+//동시 연결 수가 server.tomcat.threads.max가 아니라 server.tomcat.max-connections(기본 8192)까지 늘어난다
+//- 소스는 Java 8로 컴파일하므로 Executors.newVirtualThreadPerTaskExecutor는 리플렉션으로 호출하고,
+//  JDK 21 미만에서 실행하면 경고만 남기고 기존 스레드풀을 그대로 사용한다
+//- BCrypt 같은 CPU 작업은 virtual thread로 빨라지지 않으므로 로그인은 그대로 LoginService의 고정 풀에서 처리하고,
+//  DB 동시 접근도 커넥션 풀 크기로 제한된다
+@Configuration
+@ConditionalOnProperty(name = "server.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (executor == null) {
+                logger.warn("virtual thread를 지원하지 않는 JDK({})입니다. 기존 요청 스레드풀을 사용합니다.",
+                        System.getProperty("java.version"));
+                return;
+            }
+            protocolHandler.setExecutor(executor);
+            logger.info("요청을 virtual thread에서 처리합니다.");
+        };
+    }
+
+    //Tomcat은 밖에서 넣어준 executor를 종료하지 않는다
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    //현재 JVM이 virtual thread를 지원하는지 (JDK 21+)
+    public static boolean isSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            return null;
+        }
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual thread executor를 만들 수 없습니다.", e);
+        }
+    }
+}
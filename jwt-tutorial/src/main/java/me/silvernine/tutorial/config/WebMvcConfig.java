@@ -0,0 +1,22 @@
+package me.silvernine.tutorial.config;
+
+import me.silvernine.tutorial.authorization.CompiledAuthorizationInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//컨트롤러의 @PreAuthorize는 method security 대신 CompiledAuthorizationInterceptor가 검사한다
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final CompiledAuthorizationInterceptor compiledAuthorizationInterceptor;
+
+    public WebMvcConfig(CompiledAuthorizationInterceptor compiledAuthorizationInterceptor) {
+        this.compiledAuthorizationInterceptor = compiledAuthorizationInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(compiledAuthorizationInterceptor);
+    }
+}
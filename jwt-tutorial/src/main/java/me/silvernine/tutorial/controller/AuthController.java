@@ -1,14 +1,17 @@
 package me.silvernine.tutorial.controller;
 
 import me.silvernine.tutorial.dto.LoginDto;
+import me.silvernine.tutorial.dto.RefreshTokenDto;
 import me.silvernine.tutorial.dto.TokenDto;
 import me.silvernine.tutorial.jwt.JwtFilter;
 import me.silvernine.tutorial.jwt.TokenProvider;
+import me.silvernine.tutorial.jwt.TokenRevocationStore;
+import me.silvernine.tutorial.jwt.TokenVerification;
+import me.silvernine.tutorial.service.LoginService;
+import me.silvernine.tutorial.service.RefreshTokenService;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -17,43 +20,77 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
 public class AuthController { //로그인 API를 만들어주기 위함
-    //TokenProvider와 AuthenticationManagerBuilder를 주입받고,
+    //TokenProvider와 LoginService를 주입받고,
 
     private final TokenProvider tokenProvider;
-    private final AuthenticationManagerBuilder authenticationManagerBuilder;
+    private final LoginService loginService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationStore tokenRevocationStore;
 
-    public AuthController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder) {
+    public AuthController(TokenProvider tokenProvider, LoginService loginService,
+                          RefreshTokenService refreshTokenService, TokenRevocationStore tokenRevocationStore) {
         this.tokenProvider = tokenProvider;
-        this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.loginService = loginService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationStore = tokenRevocationStore;
     }
     //로그인 api경로는 /api/authenticate이고, Post요청을 받는다
     @PostMapping("/authenticate")
     //LoginDto를 파라미터로 username,password를 받고,
-    //40번라인 username,password파라미터를 통해서 UsernamePasswordAuthenticationToken생성
-    public ResponseEntity<TokenDto> authorize(@Valid @RequestBody LoginDto loginDto) {
-
-        UsernamePasswordAuthenticationToken authenticationToken =
-                new UsernamePasswordAuthenticationToken(loginDto.getUsername(), loginDto.getPassword());
-
-        //authenticationToken을 이용해서 authenticate메소드가 실행이 될때
+    //BCrypt 비교는 LoginService의 로그인 전용 스레드풀에서 실행되고, 이 메소드는 CompletableFuture를 바로 리턴한다
+    //(Tomcat 스레드는 BCrypt를 기다리지 않고 반환되며, 인증이 끝나면 비동기로 응답이 나간다)
+    public CompletableFuture<ResponseEntity<TokenDto>> authorize(@Valid @RequestBody LoginDto loginDto) {
+        //authenticate메소드가 실행이 될때
         //CustomUserDetailsService파일에서 만들었던 loadByUsername메소드가 실행된다
         //해당 결과값을 가지고 Authentication authentication객체 생성
-        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
-        //authentication객체를 SecurityContextHolder에 저장하고
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+        //(로그인 스레드는 재사용되므로 SecurityContextHolder에는 저장하지 않는다, 토큰 방식이라 필요하지도 않다)
+        return loginService.authenticate(loginDto.getUsername(), loginDto.getPassword())
+                .thenApply(authentication -> {
+                    //해당 인증정보authentication를 기준으로
+                    // tokenProvider에서 만들었던 createToken메소드를 통해서 JWT토큰 생성
+                    String jwt = tokenProvider.createToken(authentication);
+                    //access 토큰의 유효시간이 짧기 때문에 재로그인 없이 재발급 받을 수 있도록 refresh 토큰도 같이 발급
+                    String refreshToken = refreshTokenService.issue(authentication);
+
+                    return tokenResponse(new TokenDto(jwt, refreshToken));
+                });
+    }
 
-        //해당 인증정보authentication를 기준으로
-        // tokenProvider에서 만들었던 createToken메소드를 통해서 JWT토큰 생성
-        String jwt = tokenProvider.createToken(authentication);
+    //refresh 토큰 재발급 api경로는 /api/refresh이고, Post요청을 받는다
+    //AuthenticationManager(BCrypt, DB조회)를 거치지 않고 저장된 refresh 토큰만으로 access 토큰을 다시 만든다
+    //사용된 refresh 토큰은 폐기되고 새 refresh 토큰이 같이 내려간다
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenDto> refresh(@Valid @RequestBody RefreshTokenDto refreshTokenDto) {
+        return tokenResponse(refreshTokenService.refresh(refreshTokenDto.getRefreshToken()));
+    }
+
+    //로그아웃 api경로는 /api/logout이고, Post요청을 받는다
+    //현재 요청에 사용된 access 토큰(jti)을 폐기하고, body로 refresh 토큰이 오면 그 family도 같이 폐기한다
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshTokenDto refreshTokenDto) {
+        //JwtFilter에서 저장한 Authentication의 credentials에는 access 토큰이 담겨있다
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        TokenVerification verification = tokenProvider.verify((String) authentication.getCredentials());
+        if (verification.isValid()) {
+            tokenRevocationStore.revoke(verification.getTokenId(), verification.getExpiration());
+        }
+
+        if (refreshTokenDto != null && refreshTokenDto.getRefreshToken() != null) {
+            refreshTokenService.revoke(refreshTokenDto.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
+    }
 
+    private ResponseEntity<TokenDto> tokenResponse(TokenDto tokenDto) {
         HttpHeaders httpHeaders = new HttpHeaders();
         //jwt토큰을 response헤더에 넣어주고
-        httpHeaders.add(JwtFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
+        httpHeaders.add(JwtFilter.AUTHORIZATION_HEADER, "Bearer " + tokenDto.getToken());
         //기존에 만들었던 TokenDto를 이용해서 ResponseBody에도 넣어서 리턴하게 된다
-        return new ResponseEntity<>(new TokenDto(jwt), httpHeaders, HttpStatus.OK);
+        return new ResponseEntity<>(tokenDto, httpHeaders, HttpStatus.OK);
     }
 }
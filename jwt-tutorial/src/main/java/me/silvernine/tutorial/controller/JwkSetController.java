@@ -0,0 +1,37 @@
+package me.silvernine.tutorial.controller;
+
+import me.silvernine.tutorial.jwt.KeyRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+public class JwkSetController {//토큰 검증용 공개키(JWK Set)를 공개하는 API
+    //다른 서비스는 이 공개키를 캐시해두고 토큰 헤더의 kid로 키를 골라서 직접 검증한다
+    //HS512(대칭키)를 사용할때는 공개할 키가 없으므로 빈 목록을 리턴
+    //키 교체 중에는 서명 전인 새 키와 아직 검증에 필요한 이전 키도 함께 공개된다
+
+    private final KeyRing keyRing;
+    private final CacheControl cacheControl;
+
+    //새 키는 jwt.key-rotation.publish-delay-in-seconds 전에 공개되므로 캐시 시간은 그보다 짧아야 한다
+    //publish-delay의 절반으로 두어서, 서명을 시작하기 전에 캐시가 최소 한번은 갱신되게 한다
+    public JwkSetController(
+            KeyRing keyRing,
+            @Value("${jwt.key-rotation.publish-delay-in-seconds:300}") long publishDelayInSeconds) {
+        this.keyRing = keyRing;
+        this.cacheControl = CacheControl.maxAge(publishDelayInSeconds / 2, TimeUnit.SECONDS).cachePublic();
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+        return ResponseEntity.ok().cacheControl(cacheControl).body(Collections.singletonMap("keys", keyRing.getPublicJwks()));
+    }
+}
@@ -0,0 +1,37 @@
+package me.silvernine.tutorial.controller;
+
+import me.silvernine.tutorial.dto.SigningKeyDto;
+import me.silvernine.tutorial.entity.JwtKey;
+import me.silvernine.tutorial.jwt.KeyRing;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin")
+public class KeyRingController {//서명 키를 즉시 교체하는 관리자 API (주기적인 교체는 KeyRing의 스케줄러가 한다)
+    private final KeyRing keyRing;
+
+    public KeyRingController(KeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    //새 키는 publish-delay가 지난 다음부터 서명에 사용되고, 기존 키로 발급된 토큰은 만료될때까지 계속 검증된다
+    @PostMapping("/keys/rotate")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<SigningKeyDto> rotate() {
+        //키 교체를 끈 상태에서 이 서버만 키를 바꾸면 다른 서버가 검증할 수 없으므로 거절
+        if (!keyRing.isRotationEnabled()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        JwtKey key = keyRing.rotate();
+        return ResponseEntity.ok(SigningKeyDto.builder()
+                .kid(key.getKeyId())
+                .algorithm(key.getAlgorithm())
+                .activatesAt(key.getActivatesAt())
+                .build());
+    }
+}
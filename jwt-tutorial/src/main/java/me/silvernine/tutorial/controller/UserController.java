@@ -1,7 +1,11 @@
 package me.silvernine.tutorial.controller;
 
+import me.silvernine.tutorial.dto.ImportResultDto;
+import me.silvernine.tutorial.dto.ProfileDto;
 import me.silvernine.tutorial.dto.UserDto;
 import me.silvernine.tutorial.entity.User;
+import me.silvernine.tutorial.service.UserImportReader;
+import me.silvernine.tutorial.service.UserImportService;
 import me.silvernine.tutorial.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,9 +20,11 @@ import java.io.IOException;
 @RequestMapping("/api")
 public class UserController {
     private final UserService userService;
+    private final UserImportService userImportService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserImportService userImportService) {
         this.userService = userService;
+        this.userImportService = userImportService;
     }
 
     @PostMapping("/test-redirect")
@@ -34,6 +40,16 @@ public class UserController {
         return ResponseEntity.ok(userService.signup(userDto));
     }
 
+    //일괄 회원가입
+    //request body를 한번에 읽지 않고 스트림으로 읽으면서 batch 단위로 가입시킨다
+    //Content-Type이 text/csv면 CSV, application/x-ndjson이면 한 줄에 UserDto JSON 하나
+    @PostMapping(value = "/users/import", consumes = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<ImportResultDto> importUsers(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(userImportService.importUsers(request.getInputStream(),
+                UserImportReader.Format.fromContentType(request.getContentType())));
+    }
+
     @GetMapping("/user")
     //@PreAuthorize에서는 ROLE_ 접두사를 붙여도 되고 안붙여도 정상 동작한다
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
@@ -43,6 +59,13 @@ public class UserController {
         return ResponseEntity.ok(userService.getMyUserWithAuthorities());
     }
 
+    //자신의 nickname 변경
+    @PutMapping("/user/profile")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<UserDto> updateMyProfile(@Valid @RequestBody ProfileDto profileDto) {
+        return ResponseEntity.ok(userService.updateMyProfile(profileDto));
+    }
+
     @GetMapping("/user/{username}")
     @PreAuthorize("hasAnyRole('ADMIN')")
     //getUserInfo메소드는 'ADMIN'권한만 호출 할 수 있도록 설정
@@ -0,0 +1,18 @@
+package me.silvernine.tutorial.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportErrorDto {//일괄 가입에서 실패한 행의 정보
+
+    //입력 파일의 줄 번호 (1부터 시작)
+    private long line;
+
+    private String username;
+
+    private String message;
+}
@@ -0,0 +1,22 @@
+package me.silvernine.tutorial.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResultDto {//일괄 가입 결과
+
+    private long total;
+
+    private long imported;
+
+    private long failed;
+
+    //실패한 행 (응답이 너무 커지지 않도록 앞에서부터 일정 개수만 담는다)
+    private List<ImportErrorDto> errors;
+}
@@ -0,0 +1,18 @@
+package me.silvernine.tutorial.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProfileDto {//로그인한 유저가 자신의 프로필(nickname)을 바꿀때 사용
+
+    @NotNull
+    @Size(min = 3, max = 50)
+    private String nickname;
+}
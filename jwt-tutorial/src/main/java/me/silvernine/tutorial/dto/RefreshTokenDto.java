@@ -0,0 +1,16 @@
+package me.silvernine.tutorial.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.NotNull;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenDto {//refresh 토큰으로 access 토큰을 재발급 받을때 사용
+
+    @NotNull
+    private String refreshToken;
+}
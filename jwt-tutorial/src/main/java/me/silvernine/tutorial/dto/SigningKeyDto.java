@@ -0,0 +1,18 @@
+package me.silvernine.tutorial.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SigningKeyDto {//키 교체 결과를 Response할때 사용 (키 내용은 포함하지 않는다)
+
+    private String kid;
+
+    private String algorithm;
+
+    //이 시각(epoch millis)부터 새 키로 서명
+    private long activatesAt;
+}
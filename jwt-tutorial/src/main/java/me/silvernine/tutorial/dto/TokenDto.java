@@ -10,4 +10,6 @@ import lombok.*;
 public class TokenDto {//토큰 정보를 Response할때 사용
 
     private String token;
+
+    private String refreshToken;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package me.silvernine.tutorial.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+//UserRepository.findAccountRowsByUsername의 결과 한 행 (로그인, refresh에 필요한 유저 정보 + 권한 하나)
+//users 캐시에 들어가는 값이므로 엔티티가 아닌 불변 projection으로 조회한다
+//(캐시된 객체를 수정해서 저장하는 일이 없고, 비밀번호가 바뀌면 save의 @CacheEvict로 지워진다)
+//권한이 없는 유저는 authorityName이 null인 행 하나
+@Getter
+@AllArgsConstructor
+public class UserAccountRow implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final String password;
+    private final String nickname;
+    private final boolean activated;
+    private final String authorityName;
+}
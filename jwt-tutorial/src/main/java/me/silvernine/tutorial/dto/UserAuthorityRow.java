@@ -0,0 +1,19 @@
+package me.silvernine.tutorial.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+//UserRepository.findAuthorityRowsByUsername의 결과 한 행 (유저 + 권한 하나)
+//엔티티를 만들지 않는 JPQL 생성자 projection이므로 영속성 컨텍스트에 올라가지 않는다
+//권한이 없는 유저는 authorityName이 null인 행 하나
+@Getter
+@AllArgsConstructor
+public class UserAuthorityRow implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final String nickname;
+    private final String authorityName;
+}
@@ -6,6 +6,8 @@ import me.silvernine.tutorial.entity.User;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -42,4 +44,21 @@ public class UserDto { //회원가입시 사용
                         .collect(Collectors.toSet()))
                 .build();
     }
+
+    //유저 한명의 (유저, 권한) 행들을 하나의 UserDto로 합친다, 행이 없으면 null
+    public static UserDto fromRows(List<UserAuthorityRow> rows) {
+        if (rows.isEmpty()) return null;
+
+        Set<AuthorityDto> authorityDtoSet = new HashSet<>();
+        for (UserAuthorityRow row : rows) {
+            if (row.getAuthorityName() != null) {
+                authorityDtoSet.add(AuthorityDto.builder().authorityName(row.getAuthorityName()).build());
+            }
+        }
+        return UserDto.builder()
+                .username(rows.get(0).getUsername())
+                .nickname(rows.get(0).getNickname())
+                .authorityDtoSet(authorityDtoSet)
+                .build();
+    }
 }
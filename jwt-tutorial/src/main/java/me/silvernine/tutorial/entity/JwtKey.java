@@ -0,0 +1,39 @@
+package me.silvernine.tutorial.entity;
+
+
+import lombok.*;
+
+import javax.persistence.*;
+
+//키 교체(jwt.key-rotation.enabled)를 사용할때 서명 키를 저장하는 테이블
+//모든 서버가 같은 테이블을 읽기 때문에 한 서버에서 교체해도 다른 서버가 같은 키로 서명/검증하게 된다
+//activates_at이 지난 키 중 가장 최근 키가 서명 키(active)이고, 나머지는 검증 전용
+@Entity
+@Table(name = "jwt_key")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class JwtKey {
+
+    @Id
+    @Column(name = "key_id", length = 32)
+    private String keyId;
+
+    @Column(name = "algorithm", length = 10, nullable = false)
+    private String algorithm;
+
+    //HMAC은 키 바이트, 비대칭키는 PKCS#8 개인키
+    //평문으로 저장하지 않고 KEK로 암호화한 값 ("v1:" + Base64, KeyEncryptor)
+    @Column(name = "signing_key", length = 4096, nullable = false)
+    private String signingKey;
+
+    //Base64, 비대칭키의 X.509 공개키 (HMAC은 null)
+    @Column(name = "verification_key", length = 2048)
+    private String verificationKey;
+
+    //이 시각(epoch millis)부터 서명에 사용, 그 전에는 JWKS에 공개만 되고 검증 전용
+    @Column(name = "activates_at", nullable = false)
+    private long activatesAt;
+}
@@ -0,0 +1,43 @@
+package me.silvernine.tutorial.entity;
+
+
+import lombok.*;
+
+import javax.persistence.*;
+
+//서버에 저장되는 refresh 토큰
+//토큰 원문은 저장하지 않고 SHA-256 해시만 저장한다
+//한번 로그인해서 발급된 refresh 토큰들은 같은 familyId를 가지며,
+//사용(rotate)된 토큰이 다시 들어오면 familyId 전체를 폐기한다
+@Entity
+//재사용이 감지되거나 로그아웃하면 family_id로 지우므로 인덱스를 만든다
+@Table(name = "refresh_token", indexes = @Index(name = "idx_refresh_token_family_id", columnList = "family_id"))
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @Column(name = "refresh_token_id")
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long refreshTokenId;
+
+    @Column(name = "token_hash", length = 64, unique = true, nullable = false)
+    private String tokenHash;
+
+    @Column(name = "family_id", length = 36, nullable = false)
+    private String familyId;
+
+    //권한, 활성화 여부는 재발급할때 username으로 다시 읽는다
+    @Column(name = "username", length = 50, nullable = false)
+    private String username;
+
+    //epoch millis
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    @Column(name = "used")
+    private boolean used;
+}
@@ -0,0 +1,26 @@
+package me.silvernine.tutorial.entity;
+
+
+import lombok.*;
+
+import javax.persistence.*;
+
+//로그아웃 등으로 폐기된 access 토큰의 jti
+//서버가 재시작되어도 폐기 정보가 유지되도록 저장하고, 토큰의 exp가 지나면 삭제한다
+@Entity
+@Table(name = "revoked_token")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @Column(name = "jti", length = 36)
+    private String jti;
+
+    //epoch millis
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+}
@@ -7,20 +7,30 @@ import javax.persistence.*;
 import java.util.Set;
 
 @Entity
-@Table(name = "`user`")
+//username으로 조회하는 로그인, /api/user 경로를 위한 unique 인덱스
+@Table(name = "`user`", indexes = @Index(name = User.USERNAME_INDEX, columnList = "username", unique = true))
 @Getter
 @Setter
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class User {
+    //user_id를 발급하는 시퀀스
+    //IDENTITY는 INSERT를 해야 id를 알 수 있어서 JDBC batch가 불가능하므로 시퀀스를 사용한다
+    //한번 시퀀스를 호출할때 ID_ALLOCATION_SIZE개의 id를 미리 받아둔다 (pooled: 받은 값이 블록의 마지막 id)
+    //UserImportService도 같은 규칙으로 id를 받기 때문에 JPA와 id가 겹치지 않는다
+    public static final String ID_SEQUENCE = "user_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    //username unique 인덱스, 가입할때 이 인덱스에 걸린 경우만 중복 가입으로 처리한다
+    public static final String USERNAME_INDEX = "idx_user_username";
 
     @Id
     @Column(name = "user_id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq_generator")
+    @SequenceGenerator(name = "user_seq_generator", sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long userId;
 
-    @Column(name = "username", length = 50, unique = true)
+    @Column(name = "username", length = 50)
     private String username;
 
     @Column(name = "password", length = 100)
@@ -36,6 +46,8 @@ public class User {
     @JoinTable(
             name = "user_authority",
             joinColumns = {@JoinColumn(name = "user_id", referencedColumnName = "user_id")},
-            inverseJoinColumns = {@JoinColumn(name = "authority_name", referencedColumnName = "authority_name")})
+            inverseJoinColumns = {@JoinColumn(name = "authority_name", referencedColumnName = "authority_name")},
+            //유저의 권한을 같이 가져오는 join (user_id로 조회)
+            indexes = @Index(name = "idx_user_authority_user_id", columnList = "user_id"))
     private Set<Authority> authorities;
 }
\ No newline at end of file
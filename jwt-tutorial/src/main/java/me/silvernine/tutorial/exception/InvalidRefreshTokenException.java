@@ -0,0 +1,21 @@
+package me.silvernine.tutorial.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//존재하지 않거나, 만료되었거나, 이미 사용된 refresh 토큰으로 요청했을때 401
+@ResponseStatus(HttpStatus.UNAUTHORIZED)
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException() {
+        super();
+    }
+    public InvalidRefreshTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+    public InvalidRefreshTokenException(Throwable cause) {
+        super(cause);
+    }
+}
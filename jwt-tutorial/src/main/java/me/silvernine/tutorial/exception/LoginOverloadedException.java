@@ -0,0 +1,22 @@
+package me.silvernine.tutorial.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//로그인 전용 스레드풀과 대기열이 모두 찼을때 503
+//BCrypt 작업을 더 쌓지 않고 바로 거절해서 다른 요청을 처리하는 Tomcat 스레드를 보호한다
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class LoginOverloadedException extends RuntimeException {
+    public LoginOverloadedException() {
+        super();
+    }
+    public LoginOverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public LoginOverloadedException(String message) {
+        super(message);
+    }
+    public LoginOverloadedException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,21 @@
+package me.silvernine.tutorial.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//공유 저장소(SharedStoreServer)에 접속할 수 없거나 응답이 제한시간 안에 오지 않을때 503
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SharedStoreException extends RuntimeException {
+    public SharedStoreException() {
+        super();
+    }
+    public SharedStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public SharedStoreException(String message) {
+        super(message);
+    }
+    public SharedStoreException(Throwable cause) {
+        super(cause);
+    }
+}
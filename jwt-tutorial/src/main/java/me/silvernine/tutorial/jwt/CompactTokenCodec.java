@@ -0,0 +1,207 @@
+package me.silvernine.tutorial.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component //JWT 대신 사용할 수 있는 압축 토큰 (jwt.compact.enabled)
+//형식: "c2." + base64url(payload) + "." + base64url(MAC 앞 mac-length 바이트)
+//payload (big endian, JSON 없음)
+//- kid          12바이트 (SigningKey의 kid를 디코딩한 값)
+//- 권한 목록     8바이트 (RoleRegistry.fingerprint, 다르면 그 토큰은 거부)
+//- exp           4바이트 (epoch seconds)
+//- jti           8바이트 (랜덤)
+//- 권한 bitmask  varint  (RoleRegistry의 bit 번호)
+//- subject       나머지  (UTF-8)
+//HS512 JWT(헤더 JSON + claims JSON + 64바이트 서명)가 250바이트 이상인데 비해 80바이트 정도이고,
+//검증은 Base64 디코딩 + HMAC 한번 + 고정 위치 읽기뿐이다 (JSON 파싱, Map 생성 없음)
+//KeyRing의 HMAC 키로만 서명할 수 있다 (비대칭 키이거나 RoleRegistry에 없는 권한이면 JWT로 발급)
+//검증은 설정과 관계없이 항상 받으므로 enabled를 바꿔도 이미 발급된 토큰은 만료될때까지 사용할 수 있다
+public class CompactTokenCodec {
+
+    //c1은 권한 목록 fingerprint가 2바이트였던 형식 (더 이상 받지 않는다)
+    public static final String PREFIX = "c2.";
+
+    private static final int KEY_ID_LENGTH = 12;
+    private static final int HEADER_LENGTH = KEY_ID_LENGTH + 8 + 4 + 8;
+    //128bit 미만으로 자른 MAC은 허용하지 않는다
+    private static final int MIN_MAC_LENGTH = 16;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final KeyRing keyRing;
+    private final RoleRegistry roleRegistry;
+    private final boolean enabled;
+    private final String macAlgorithm;
+    private final int macLength;
+    //Mac은 thread-safe하지 않으므로 스레드마다 하나씩, 키가 바뀔때만 init
+    private final ThreadLocal<MacHolder> macs;
+
+    public CompactTokenCodec(
+            KeyRing keyRing,
+            RoleRegistry roleRegistry,
+            @Value("${jwt.compact.enabled:false}") boolean enabled,
+            @Value("${jwt.compact.mac-algorithm:HmacSHA256}") String macAlgorithm,
+            @Value("${jwt.compact.mac-length:16}") int macLength) {
+        this.keyRing = keyRing;
+        this.roleRegistry = roleRegistry;
+        this.enabled = enabled;
+        this.macAlgorithm = macAlgorithm;
+        this.macLength = macLength;
+        this.macs = ThreadLocal.withInitial(() -> new MacHolder(newMac(macAlgorithm)));
+
+        //설정이 잘못되었으면 시작할때 실패
+        int fullLength = newMac(macAlgorithm).getMacLength();
+        if (macLength < MIN_MAC_LENGTH || macLength > fullLength) {
+            throw new IllegalStateException("jwt.compact.mac-length는 " + MIN_MAC_LENGTH + "~" + fullLength
+                    + " 사이여야 합니다: " + macLength);
+        }
+    }
+
+    public static boolean isCompact(String token) {
+        return token.startsWith(PREFIX);
+    }
+
+    //압축 토큰을 만들 수 없으면 null (JWT로 발급)
+    public String encode(SigningKey signingKey, String subject, String authoritiesClaim, long expiration) {
+        if (!enabled || !signingKey.getAlgorithm().isHmac()) {
+            return null;
+        }
+        long mask = roleRegistry.toMask(authoritiesClaim == null ? "" : authoritiesClaim);
+        if (mask < 0) {
+            return null;
+        }
+        byte[] keyId = DECODER.decode(signingKey.getKeyId());
+        if (keyId.length != KEY_ID_LENGTH) {
+            return null;
+        }
+
+        byte[] subjectBytes = subject.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(HEADER_LENGTH + 10 + subjectBytes.length);
+        payload.put(keyId)
+                .putLong(roleRegistry.fingerprint())
+                .putInt((int) (expiration / 1000))
+                .putLong(ThreadLocalRandom.current().nextLong());
+        writeVarLong(payload, mask);
+        payload.put(subjectBytes);
+        byte[] payloadBytes = Arrays.copyOf(payload.array(), payload.position());
+
+        return PREFIX + ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(mac(signingKey, payloadBytes));
+    }
+
+    //서명, 만료, 권한 목록 순서로 확인
+    public TokenVerification decode(String token) {
+        int separator = token.indexOf('.', PREFIX.length());
+        if (!isCompact(token) || separator < 0) {
+            return TokenVerification.failure(TokenFailureReason.MALFORMED);
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(PREFIX.length(), separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return TokenVerification.failure(TokenFailureReason.MALFORMED);
+        }
+        if (payload.length <= HEADER_LENGTH) {
+            return TokenVerification.failure(TokenFailureReason.MALFORMED);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte[] keyId = new byte[KEY_ID_LENGTH];
+        buffer.get(keyId);
+        SigningKey signingKey = keyRing.getKey(ENCODER.encodeToString(keyId));
+        if (signingKey == null || !signingKey.getAlgorithm().isHmac()
+                || !MessageDigest.isEqual(signature, mac(signingKey, payload))) {
+            return TokenVerification.failure(TokenFailureReason.INVALID_SIGNATURE);
+        }
+
+        long fingerprint = buffer.getLong();
+        long expiration = (buffer.getInt() & 0xffffffffL) * 1000;
+        long jti = buffer.getLong();
+        if (expiration <= System.currentTimeMillis()) {
+            return TokenVerification.failure(TokenFailureReason.EXPIRED);
+        }
+        long mask;
+        try {
+            mask = readVarLong(buffer);
+        } catch (IllegalArgumentException e) {
+            return TokenVerification.failure(TokenFailureReason.MALFORMED);
+        }
+        String authoritiesClaim = fingerprint == roleRegistry.fingerprint() ? roleRegistry.toClaim(mask) : null;
+        if (authoritiesClaim == null) {
+            //다른 권한 목록으로 발급된 토큰
+            return TokenVerification.failure(TokenFailureReason.UNSUPPORTED);
+        }
+        String subject = new String(payload, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8);
+
+        return TokenVerification.success(new TokenClaims(subject, authoritiesClaim, token, null, 0),
+                ENCODER.encodeToString(ByteBuffer.allocate(8).putLong(jti).array()), expiration);
+    }
+
+    private byte[] mac(SigningKey signingKey, byte[] payload) {
+        MacHolder holder = macs.get();
+        Key key = signingKey.getSigningKey();
+        try {
+            if (holder.key != key) {
+                holder.mac.init(new SecretKeySpec(key.getEncoded(), macAlgorithm));
+                holder.key = key;
+            }
+            return Arrays.copyOf(holder.mac.doFinal(payload), macLength);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("압축 토큰 MAC을 계산할 수 없습니다: " + macAlgorithm, e);
+        }
+    }
+
+    private static Mac newMac(String macAlgorithm) {
+        try {
+            return Mac.getInstance(macAlgorithm);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("지원하지 않는 jwt.compact.mac-algorithm입니다: " + macAlgorithm, e);
+        }
+    }
+
+    //7bit씩, 마지막 바이트가 아니면 최상위 bit를 1로
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new IllegalArgumentException("varint가 끝나지 않았습니다.");
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint가 너무 깁니다.");
+    }
+
+    private static final class MacHolder {
+        private final Mac mac;
+        private Key key;
+
+        private MacHolder(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
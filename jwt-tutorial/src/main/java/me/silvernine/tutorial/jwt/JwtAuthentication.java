@@ -0,0 +1,108 @@
+package me.silvernine.tutorial.jwt;
+
+import me.silvernine.tutorial.authorization.AuthorityBits;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+//검증된 토큰의 claims(TokenClaims)만 가지고 있는 Authentication
+//대부분의 요청은 username(getName)만 사용하므로 권한 목록과 User principal은 처음 사용할때 만든다 (TokenClaims에서 공유)
+//credentials는 토큰 문자열 (로그아웃에서 jti를 꺼낼때 사용)
+//nick, pst claim이 있으면 /api/user가 DB를 조회하지 않고 응답할 수 있다 (UserService.getMyUserWithAuthorities)
+//VerifiedTokenCache에는 TokenClaims만 들어가고 이 객체는 요청마다 새로 만들어지므로
+//한 요청에서 setAuthenticated(false)를 해도 같은 토큰의 다른 요청에는 영향이 없다
+public final class JwtAuthentication implements Authentication {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TokenClaims claims;
+    private boolean authenticated = true;
+
+    public JwtAuthentication(String subject, String authoritiesClaim, String token) {
+        this(subject, authoritiesClaim, token, null, 0);
+    }
+
+    public JwtAuthentication(String subject, String authoritiesClaim, String token, String nickname, long profileStamp) {
+        this(new TokenClaims(subject, authoritiesClaim, token, nickname, profileStamp));
+    }
+
+    public JwtAuthentication(TokenClaims claims) {
+        this.claims = claims;
+    }
+
+    //토큰의 subject (username), 객체를 만들지 않는다
+    @Override
+    public String getName() {
+        return claims.getSubject();
+    }
+
+    //토큰의 nick claim, 없으면 null
+    public String getNickname() {
+        return claims.getNickname();
+    }
+
+    //토큰의 pst claim (프로필을 읽은 시각, epoch millis), 없으면 0
+    public long getProfileStamp() {
+        return claims.getProfileStamp();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return claims.getAuthorities();
+    }
+
+    //CompiledAuthorizationInterceptor가 사용하는 권한 bitmask, 같은 토큰이면 한번만 계산한다
+    public long getAuthorityMask(AuthorityBits authorityBits) {
+        return claims.getAuthorityMask(authorityBits);
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return claims.getPrincipal();
+    }
+
+    @Override
+    public Object getCredentials() {
+        return claims.getToken();
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    //서명이 검증된 토큰으로만 만들어지므로 인증 취소(false)만 허용
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) {
+        if (isAuthenticated) {
+            throw new IllegalArgumentException("JwtAuthentication은 인증 상태로 바꿀 수 없습니다.");
+        }
+        this.authenticated = false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof JwtAuthentication)) return false;
+        JwtAuthentication that = (JwtAuthentication) o;
+        return claims.getToken().equals(that.claims.getToken()) && authenticated == that.authenticated;
+    }
+
+    @Override
+    public int hashCode() {
+        return claims.getToken().hashCode();
+    }
+
+    //토큰은 로그에 남기지 않는다
+    @Override
+    public String toString() {
+        return "JwtAuthentication [Name=" + claims.getSubject() + ", Authorities=" + claims.getAuthoritiesClaim()
+                + ", Authenticated=" + authenticated + "]";
+    }
+}
@@ -1,9 +1,11 @@
 package me.silvernine.tutorial.jwt;
 
+import me.silvernine.tutorial.metrics.AuthMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
 
@@ -25,8 +27,16 @@ public class JwtFilter extends GenericFilterBean {
     private static final Logger logger = LoggerFactory.getLogger(JwtFilter.class);
     public static final String AUTHORIZATION_HEADER = "Authorization";
     private TokenProvider tokenProvider;
-    public JwtFilter(TokenProvider tokenProvider) {
+    private TokenRevocationStore tokenRevocationStore;
+    private AuthMetrics authMetrics;
+    //인증이 필요없는 API (SecurityConfig.PERMIT_ALL_PATTERNS)
+    private RequestMatcher permitAllRequestMatcher;
+    public JwtFilter(TokenProvider tokenProvider, TokenRevocationStore tokenRevocationStore, AuthMetrics authMetrics,
+                     RequestMatcher permitAllRequestMatcher) {
         this.tokenProvider = tokenProvider;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.authMetrics = authMetrics;
+        this.permitAllRequestMatcher = permitAllRequestMatcher;
     }
 
 
@@ -34,23 +44,42 @@ public class JwtFilter extends GenericFilterBean {
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
         //request의 내용 작성!
         //44번라인 resolveToken을 통해 httpServletRequest에서 토큰을 받아서
-        //jwt토큰을 47번라인 토큰의 유효성을 검증하는 validateToken메소드를 통과하고
-        //48번라인 토큰이 정상적이면 Authentication authentication 객체를 받아와서
+        //jwt토큰을 verify메소드로 한번에 검증하고
+        //토큰이 정상적이면 Authentication authentication 객체를 받아와서
         //49번라인 SecurityContextHolder에 set해준다 setAuthentication
         // 여기까지 한 후 다음 진행 흐름은
         // 여태까지 만든 TokenProvider와 JwtFilter를 SecurityConfig에 적용할때 사용할
         // JwtSecurityConfig 클래스 추가
         HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
+        //permitAll API는 인증정보를 사용하지 않으므로 토큰이 있어도 파싱/검증하지 않는다 (익명 사용자로 처리)
+        if (permitAllRequestMatcher.matches(httpServletRequest)) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        long start = System.nanoTime();
         String jwt = resolveToken(httpServletRequest);
         String requestURI = httpServletRequest.getRequestURI();
 
-        if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-            Authentication authentication = tokenProvider.getAuthentication(jwt);
+        //토큰 파싱과 서명 검증은 verify에서 한번만 수행된다
+        TokenVerification verification = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt) : null;
+
+        //서명이 정상이어도 로그아웃 등으로 폐기된 토큰(jti)이면 인증정보를 저장하지 않는다
+        if (verification != null && verification.isValid()
+                && tokenRevocationStore.isRevoked(verification.getTokenId(), verification.getExpiration())) {
+            logger.debug(TokenFailureReason.REVOKED.getMessage());
+            authMetrics.recordTokenFailure(TokenFailureReason.REVOKED);
+            verification = TokenVerification.failure(TokenFailureReason.REVOKED);
+        }
+
+        if (verification != null && verification.isValid()) {
+            Authentication authentication = verification.getAuthentication();
             SecurityContextHolder.getContext().setAuthentication(authentication);
             logger.debug("Security Context에 '{}' 인증 정보를 저장했습니다, uri: {}", authentication.getName(), requestURI);
         } else {
             logger.debug("유효한 JWT 토큰이 없습니다, uri: {}", requestURI);
         }
+        authMetrics.recordFilter(start);
 
         filterChain.doFilter(servletRequest, servletResponse);
     }
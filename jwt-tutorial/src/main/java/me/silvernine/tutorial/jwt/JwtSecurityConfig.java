@@ -1,23 +1,32 @@
 package me.silvernine.tutorial.jwt;
 
+import me.silvernine.tutorial.metrics.AuthMetrics;
 import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 
 //SecurityConfigurerAdapter를 extends하고 TokenProvider를 주입받아서
 //18번라인 configure메소드를  @Override해서 20번라인 JwtFilter를 시큐리티 로직에 등록하는 과정
 public class JwtSecurityConfig extends SecurityConfigurerAdapter<DefaultSecurityFilterChain, HttpSecurity> {
     private TokenProvider tokenProvider;
-    public JwtSecurityConfig(TokenProvider tokenProvider) {
+    private TokenRevocationStore tokenRevocationStore;
+    private AuthMetrics authMetrics;
+    private RequestMatcher permitAllRequestMatcher;
+    public JwtSecurityConfig(TokenProvider tokenProvider, TokenRevocationStore tokenRevocationStore,
+                             AuthMetrics authMetrics, RequestMatcher permitAllRequestMatcher) {
         this.tokenProvider = tokenProvider;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.authMetrics = authMetrics;
+        this.permitAllRequestMatcher = permitAllRequestMatcher;
     }
 
     @Override
     public void configure(HttpSecurity http) {
         http.addFilterBefore(
-                new JwtFilter(tokenProvider),
+                new JwtFilter(tokenProvider, tokenRevocationStore, authMetrics, permitAllRequestMatcher),
                 UsernamePasswordAuthenticationFilter.class
         );
     }
@@ -0,0 +1,76 @@
+package me.silvernine.tutorial.jwt;
+
+import io.jsonwebtoken.io.Decoders;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+//jwt_key 테이블에 저장하는 서명 키(HMAC 키, PKCS#8 개인키)를 KEK(key-encryption key)로 암호화
+//KEK는 DB 밖(환경변수 JWT_KEK 등)에만 두므로 DB를 읽을 수 있어도 토큰을 위조할 수 없다
+//AES-GCM, 저장 형식은 "v1:" + Base64(IV 12byte + 암호문 + tag), kid를 AAD로 사용해서 다른 행의 값으로 바꿔치기할 수 없다
+public final class KeyEncryptor {
+
+    private static final String PREFIX = "v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec kek;
+    private final SecureRandom random = new SecureRandom();
+
+    private KeyEncryptor(SecretKeySpec kek) {
+        this.kek = kek;
+    }
+
+    //Base64로 인코딩된 16, 24, 32byte AES 키
+    public static KeyEncryptor of(String base64Kek) {
+        if (base64Kek == null || base64Kek.trim().isEmpty()) {
+            throw new IllegalStateException("jwt.key-rotation.kek가 설정되지 않았습니다. 키 교체를 사용하려면 KEK가 필요합니다.");
+        }
+        byte[] keyBytes = Decoders.BASE64.decode(base64Kek.trim());
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalStateException("jwt.key-rotation.kek는 16, 24, 32byte AES 키여야 합니다: " + keyBytes.length);
+        }
+        return new KeyEncryptor(new SecretKeySpec(keyBytes, "AES"));
+    }
+
+    public String encrypt(String keyId, byte[] plaintext) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, kek, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return PREFIX + Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("서명 키를 암호화할 수 없습니다. kid=" + keyId, e);
+        }
+    }
+
+    //KEK가 다르거나 값이 변조되었으면 예외
+    public byte[] decrypt(String keyId, String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            throw new IllegalStateException("암호화되지 않은 서명 키입니다. kid=" + keyId);
+        }
+        byte[] bytes = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+        if (bytes.length <= IV_LENGTH) {
+            throw new IllegalStateException("서명 키 형식이 잘못되었습니다. kid=" + keyId);
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, kek, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("서명 키를 복호화할 수 없습니다 (KEK 확인 필요). kid=" + keyId, e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package me.silvernine.tutorial.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SecurityException;
+import me.silvernine.tutorial.entity.JwtKey;
+import me.silvernine.tutorial.exception.SharedStoreException;
+import me.silvernine.tutorial.repository.JwtKeyRepository;
+import me.silvernine.tutorial.store.LocalSharedStore;
+import me.silvernine.tutorial.store.SharedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//kid로 인덱싱된 서명 키 묶음
+//- 서명 키(active) 1개 + 검증 전용 키 여러개, 토큰 헤더의 kid로 검증할 키를 HashMap에서 바로 찾는다 (키를 하나씩 시도하지 않음)
+//- jwt.key-rotation.enabled가 true이면 키는 jwt_key 테이블에 저장되고, 모든 서버가 주기적으로 다시 읽는다
+//  (여러 서버는 같은 DB 서버를 사용해야 한다, 공유 저장소를 쓰면 SharedStoreConfig가 시작할때 확인)
+//  * 새 키는 publish-delay 동안 검증 전용으로 JWKS에 먼저 공개된 다음에 서명에 사용된다
+//    (그 사이에 다른 서버와 JWKS를 캐시한 서비스가 새 키를 알게 되므로 새 kid의 토큰이 거절되지 않는다)
+//  * 밀려난 키는 그 키로 서명된 토큰이 모두 만료될때까지(token-validity + check-interval) 검증 전용으로 남는다
+//  즉 키를 교체해도 발급된 토큰이 무효화되지 않아서 재로그인이 몰리지 않는다
+//  * 교체한 서버는 SharedStore로 알려서 다른 서버가 check-interval을 기다리지 않고 바로 다시 읽게 한다 (놓쳐도 refresh에서 반영)
+//  * 테이블의 서명 키는 DB 밖에 두는 KEK(jwt.key-rotation.kek)로 암호화해서 저장한다 (KeyEncryptor)
+//- false이면 설정된 키(JwtKeyConfig) 하나만 사용 (교체하려면 재시작)
+//상태는 불변 객체 하나로 두고 통째로 교체하므로 읽는 쪽(토큰 생성/검증)은 락이 없다
+@Component
+public class KeyRing extends SigningKeyResolverAdapter implements InitializingBean {
+
+    private final Logger logger = LoggerFactory.getLogger(KeyRing.class);
+
+    //메세지는 새 키의 kid
+    static final String ROTATED_CHANNEL = "auth.keys.rotated";
+
+    private final SigningKey configuredKey;
+    private final JwtKeyRepository jwtKeyRepository;
+    private final SharedStore sharedStore;
+    private final KeyEncryptor keyEncryptor;
+    private final boolean rotationEnabled;
+    private final long rotationIntervalInMilliseconds;
+    private final long publishDelayInMilliseconds;
+    private final long retentionInMilliseconds;
+
+    private volatile State state;
+
+    @Autowired
+    public KeyRing(
+            SigningKey configuredKey,
+            JwtKeyRepository jwtKeyRepository,
+            SharedStore sharedStore,
+            @Value("${jwt.key-rotation.enabled:false}") boolean rotationEnabled,
+            @Value("${jwt.key-rotation.kek:}") String kek,
+            @Value("${jwt.key-rotation.interval-in-seconds:86400}") long rotationIntervalInSeconds,
+            @Value("${jwt.key-rotation.publish-delay-in-seconds:300}") long publishDelayInSeconds,
+            @Value("${jwt.key-rotation.check-interval-in-millis:60000}") long checkIntervalInMilliseconds,
+            @Value("${jwt.token-validity-in-seconds}") long tokenValidityInSeconds) {
+        this.configuredKey = configuredKey;
+        this.jwtKeyRepository = jwtKeyRepository;
+        this.sharedStore = sharedStore;
+        this.rotationEnabled = rotationEnabled;
+        //키 교체를 켰는데 KEK가 없으면 시작할때 실패
+        this.keyEncryptor = rotationEnabled ? KeyEncryptor.of(kek) : null;
+        this.rotationIntervalInMilliseconds = rotationIntervalInSeconds * 1000;
+        this.publishDelayInMilliseconds = publishDelayInSeconds * 1000;
+        //다른 서버가 교체를 늦게 읽는 동안(최대 check-interval) 서명한 토큰까지 검증할 수 있어야 한다
+        this.retentionInMilliseconds = tokenValidityInSeconds * 1000 + checkIntervalInMilliseconds;
+        this.state = new State(configuredKey, Collections.singletonList(configuredKey), 0);
+    }
+
+    //키 교체 없이 키 하나만 사용하는 KeyRing (테스트, 벤치마크용)
+    public static KeyRing fixed(SigningKey signingKey) {
+        return new KeyRing(signingKey, null, new LocalSharedStore(), false, null, 0, 0, 0, 0);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (rotationEnabled) {
+            sharedStore.subscribe(ROTATED_CHANNEL, keyId -> reload());
+        }
+        reload();
+    }
+
+    public boolean isRotationEnabled() {
+        return rotationEnabled;
+    }
+
+    //토큰 서명에 사용할 키
+    public SigningKey getActiveKey() {
+        return state.active;
+    }
+
+    //JWKS로 공개할 공개키 목록 (대칭키는 제외)
+    public List<Map<String, Object>> getPublicJwks() {
+        return state.publicJwks;
+    }
+
+    //kid에 해당하는 키 (서명 키 + 검증 전용 키), 없으면 null
+    public SigningKey getKey(String keyId) {
+        return state.keysById.get(keyId);
+    }
+
+    //JwtParser가 서명 검증 직전에 호출, 헤더의 kid로 키를 O(1)로 찾는다
+    //kid가 없는 토큰(kid를 넣기 전에 발급된 토큰)은 서명 키로 검증
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        return resolve(header);
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, String plaintext) {
+        return resolve(header);
+    }
+
+    private Key resolve(JwsHeader header) {
+        State current = state;
+        String keyId = header.getKeyId();
+        SigningKey signingKey = keyId == null ? current.active : current.keysById.get(keyId);
+        if (signingKey == null) {
+            //SecurityException이므로 TokenProvider에서 INVALID_SIGNATURE로 처리된다
+            throw new SecurityException("알 수 없는 kid입니다: " + keyId);
+        }
+        return signingKey.getVerificationKey();
+    }
+
+    //새 키를 만들어서 저장, publish-delay가 지나면 서명 키가 된다
+    //여러 서버에서 동시에 교체해도 activates_at이 가장 늦은 키 하나로 모이고, 나머지는 검증 전용으로 남는다
+    public synchronized JwtKey rotate() {
+        if (!rotationEnabled) {
+            throw new IllegalStateException("jwt.key-rotation.enabled가 false입니다.");
+        }
+        SigningKey newKey = SigningKey.generate(configuredKey.getAlgorithm());
+        JwtKey saved = jwtKeyRepository.save(toEntity(newKey, System.currentTimeMillis() + publishDelayInMilliseconds));
+        logger.info("새 서명 키를 추가했습니다. kid={}, activatesAt={}", saved.getKeyId(), saved.getActivatesAt());
+        reload();
+        try {
+            sharedStore.publish(ROTATED_CHANNEL, saved.getKeyId());
+        } catch (SharedStoreException e) {
+            logger.warn("서명 키 교체를 다른 서버에 알리지 못했습니다: {}", e.getMessage());
+        }
+        return saved;
+    }
+
+    //다른 서버의 교체 결과를 반영하고, 교체 주기가 지났으면 교체한다
+    @Scheduled(fixedDelayString = "${jwt.key-rotation.check-interval-in-millis:60000}",
+            initialDelayString = "${jwt.key-rotation.check-interval-in-millis:60000}")
+    public void refresh() {
+        if (!rotationEnabled) {
+            return;
+        }
+        reload();
+        if (state.latestActivatesAt + rotationIntervalInMilliseconds <= System.currentTimeMillis()) {
+            rotate();
+        }
+    }
+
+    private synchronized void reload() {
+        if (!rotationEnabled) {
+            return;
+        }
+        List<JwtKey> rows = jwtKeyRepository.findAllByOrderByActivatesAtDesc();
+        if (rows.isEmpty()) {
+            //처음 기동: 설정된 키를 첫번째 서명 키로 저장
+            //kid가 키 내용으로 정해지므로 여러 서버가 동시에 기동해도 같은 행 하나가 된다
+            jwtKeyRepository.save(toEntity(configuredKey, System.currentTimeMillis()));
+            rows = jwtKeyRepository.findAllByOrderByActivatesAtDesc();
+        }
+
+        long now = System.currentTimeMillis();
+        SigningKey active = null;
+        List<SigningKey> keys = new ArrayList<>(rows.size());
+        //바로 다음(더 최근) 서명 키가 서명을 시작한 시각, 이 시각 + retention이 지나면 이전 키는 필요없다
+        long supersededAt = Long.MAX_VALUE;
+        for (JwtKey row : rows) {
+            if (row.getActivatesAt() > now) {
+                //아직 서명에 사용하지 않는 키, 검증과 JWKS 공개만
+                keys.add(toSigningKey(row));
+                continue;
+            }
+            if (supersededAt != Long.MAX_VALUE && supersededAt + retentionInMilliseconds < now) {
+                jwtKeyRepository.delete(row);
+                logger.info("만료된 서명 키를 삭제했습니다. kid={}", row.getKeyId());
+                continue;
+            }
+            SigningKey signingKey = toSigningKey(row);
+            if (active == null) {
+                active = signingKey;
+            }
+            keys.add(signingKey);
+            supersededAt = row.getActivatesAt();
+        }
+        if (active == null) {
+            active = configuredKey;
+            keys.add(configuredKey);
+        }
+
+        State next = new State(active, keys, rows.get(0).getActivatesAt());
+        if (!next.active.getKeyId().equals(state.active.getKeyId())) {
+            logger.info("서명 키가 교체되었습니다. kid={}", next.active.getKeyId());
+        }
+        this.state = next;
+    }
+
+    private JwtKey toEntity(SigningKey signingKey, long activatesAt) {
+        byte[] verificationKey = signingKey.encodeVerificationKey();
+        return JwtKey.builder()
+                .keyId(signingKey.getKeyId())
+                .algorithm(signingKey.getAlgorithm().getValue())
+                .signingKey(keyEncryptor.encrypt(signingKey.getKeyId(), signingKey.encodeSigningKey()))
+                .verificationKey(verificationKey == null ? null : Base64.getEncoder().encodeToString(verificationKey))
+                .activatesAt(activatesAt)
+                .build();
+    }
+
+    private SigningKey toSigningKey(JwtKey row) {
+        return SigningKey.decode(
+                SignatureAlgorithm.forName(row.getAlgorithm()),
+                keyEncryptor.decrypt(row.getKeyId(), row.getSigningKey()),
+                row.getVerificationKey() == null ? null : Base64.getDecoder().decode(row.getVerificationKey()));
+    }
+
+    private static final class State {
+        private final SigningKey active;
+        private final Map<String, SigningKey> keysById;
+        private final List<Map<String, Object>> publicJwks;
+        private final long latestActivatesAt;
+
+        private State(SigningKey active, List<SigningKey> keys, long latestActivatesAt) {
+            Map<String, SigningKey> keysById = new HashMap<>();
+            List<Map<String, Object>> publicJwks = new ArrayList<>();
+            for (SigningKey key : keys) {
+                keysById.put(key.getKeyId(), key);
+                if (key.isAsymmetric()) {
+                    publicJwks.add(key.toJwk());
+                }
+            }
+            this.active = active;
+            this.keysById = keysById;
+            this.publicJwks = Collections.unmodifiableList(publicJwks);
+            this.latestActivatesAt = latestActivatesAt;
+        }
+    }
+}
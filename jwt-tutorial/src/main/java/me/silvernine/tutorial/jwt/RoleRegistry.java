@@ -0,0 +1,164 @@
+package me.silvernine.tutorial.jwt;
+
+import me.silvernine.tutorial.entity.Authority;
+import me.silvernine.tutorial.repository.AuthorityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component //authority 테이블의 권한 이름 <-> bit 번호
+//압축 토큰(CompactTokenCodec)은 권한 이름 대신 bitmask(long)를 넣는다
+//- bit 번호는 권한 이름 순서 (최대 64개)
+//- 권한 목록이 바뀌면 bit 번호도 바뀌므로 목록의 fingerprint를 토큰에 같이 넣고, 다르면 그 토큰은 읽지 않는다
+//  (권한을 추가하면 모든 서버를 재시작해야 하고, 이전 토큰은 refresh로 다시 발급받는다)
+//data.sql이 JPA 초기화 뒤에 실행되므로 테이블은 처음 사용할때 읽는다
+public class RoleRegistry {
+
+    private static final int MAX_ROLES = 64;
+    //토큰 위조가 불가능하므로 종류가 많아질 일은 없지만 AuthorityRegistry와 같이 개수를 제한한다
+    private static final int MAX_POOLED_CLAIMS = 1024;
+
+    private final AuthorityRepository authorityRepository;
+    private volatile Roles roles;
+
+    @Autowired
+    public RoleRegistry(AuthorityRepository authorityRepository) {
+        this.authorityRepository = authorityRepository;
+    }
+
+    private RoleRegistry(List<String> authorityNames) {
+        this.authorityRepository = null;
+        this.roles = new Roles(authorityNames);
+    }
+
+    //테이블 없이 정해진 권한 목록을 사용하는 RoleRegistry (테스트, 벤치마크용)
+    public static RoleRegistry fixed(List<String> authorityNames) {
+        List<String> sorted = new ArrayList<>(authorityNames);
+        sorted.sort(null);
+        return new RoleRegistry(sorted);
+    }
+
+    //권한 목록의 fingerprint (SHA-256 앞 8바이트)
+    //목록이 다른 서버끼리 우연히 같은 값이 나와서 다른 bit 번호로 권한을 읽는 일이 없도록 충분히 길게 한다
+    public long fingerprint() {
+        return roles().fingerprint;
+    }
+
+    //auth claim("ROLE_USER,ROLE_ADMIN")을 bitmask로, 등록되지 않은 권한이 있으면 -1
+    public long toMask(String authoritiesClaim) {
+        Roles current = roles();
+        long mask = 0;
+        int start = 0;
+        while (start < authoritiesClaim.length()) {
+            int end = authoritiesClaim.indexOf(',', start);
+            if (end < 0) {
+                end = authoritiesClaim.length();
+            }
+            if (end > start) {
+                Integer bit = current.bits.get(authoritiesClaim.substring(start, end));
+                if (bit == null) {
+                    return -1;
+                }
+                mask |= 1L << bit;
+            }
+            start = end + 1;
+        }
+        return mask;
+    }
+
+    //bitmask를 auth claim으로, 같은 mask는 같은 문자열을 돌려준다 (AuthorityRegistry.fromClaim의 캐시를 그대로 탄다)
+    //등록되지 않은 bit가 있으면 null
+    public String toClaim(long mask) {
+        Roles current = roles();
+        String claim = current.claims.get(mask);
+        if (claim != null) {
+            return claim;
+        }
+        if (current.names.length < MAX_ROLES && (mask >>> current.names.length) != 0) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int bit = 0; bit < current.names.length; bit++) {
+            if ((mask & (1L << bit)) != 0) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(current.names[bit]);
+            }
+        }
+        claim = builder.toString();
+        if (current.claims.size() < MAX_POOLED_CLAIMS) {
+            current.claims.putIfAbsent(mask, claim);
+        }
+        return claim;
+    }
+
+    private Roles roles() {
+        Roles current = roles;
+        if (current == null) {
+            synchronized (this) {
+                current = roles;
+                if (current == null) {
+                    current = load();
+                }
+            }
+        }
+        return current;
+    }
+
+    //테이블이 아직 비어있으면(data.sql 실행 전) 저장하지 않고 다음에 다시 읽는다
+    private Roles load() {
+        List<String> names = new ArrayList<>();
+        for (Authority authority : authorityRepository.findAllByOrderByAuthorityNameAsc()) {
+            names.add(authority.getAuthorityName());
+        }
+        Roles loaded = new Roles(names);
+        if (!names.isEmpty()) {
+            roles = loaded;
+        }
+        return loaded;
+    }
+
+    private static final class Roles {
+        private final String[] names;
+        private final Map<String, Integer> bits;
+        private final long fingerprint;
+        private final ConcurrentMap<Long, String> claims = new ConcurrentHashMap<>();
+
+        private Roles(List<String> sortedNames) {
+            if (sortedNames.size() > MAX_ROLES) {
+                //bitmask에 들어가지 않는 권한은 압축 토큰에 넣지 않는다 (그 권한을 가진 유저는 JWT로 발급)
+                sortedNames = sortedNames.subList(0, MAX_ROLES);
+            }
+            this.names = sortedNames.toArray(new String[0]);
+            Map<String, Integer> bits = new HashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                bits.put(names[i], i);
+            }
+            this.bits = bits;
+            this.fingerprint = fingerprintOf(names);
+        }
+
+        private static long fingerprintOf(String[] names) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256")
+                        .digest(String.join(",", Arrays.asList(names)).getBytes(StandardCharsets.UTF_8));
+                return ByteBuffer.wrap(digest).getLong();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
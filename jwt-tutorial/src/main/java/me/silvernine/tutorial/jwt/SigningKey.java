@@ -0,0 +1,217 @@
+package me.silvernine.tutorial.jwt;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//토큰 서명에 사용하는 키 하나
+//- HS256/384/512 : jwt.secret(Base64)로 만든 대칭키, 서명과 검증에 같은 키를 사용
+//- RS256/ES256 등 : 키스토어(PKCS12)의 개인키로 서명하고, 공개키로 검증
+//  공개키는 /.well-known/jwks.json 으로 공개되어 다른 서비스가 이 서버를 호출하지 않고 직접 검증할 수 있다
+//keyId(kid)는 토큰 헤더에 들어가서 검증할 키를 찾는데 사용된다
+public final class SigningKey {
+
+    private final String keyId;
+    private final SignatureAlgorithm algorithm;
+    private final Key signingKey;
+    private final Key verificationKey;
+
+    private SigningKey(String keyId, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {
+        this.keyId = keyId;
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+    }
+
+    //Base64로 인코딩된 secret으로 jwt.signature-algorithm의 HMAC 키를 만든다
+    //secret이 알고리즘의 최소 길이(HS256 256bit, HS384 384bit, HS512 512bit)보다 짧으면 시작할때 실패
+    public static SigningKey hmac(SignatureAlgorithm algorithm, String base64Secret) {
+        if (!algorithm.isHmac()) {
+            throw new IllegalStateException("HMAC 알고리즘이 아닙니다: " + algorithm);
+        }
+        if (base64Secret == null || base64Secret.trim().isEmpty()) {
+            throw new IllegalStateException("jwt.secret이 설정되지 않았습니다.");
+        }
+        byte[] keyBytes = Decoders.BASE64.decode(base64Secret.trim());
+        if (keyBytes.length * 8 < algorithm.getMinKeyLength()) {
+            throw new IllegalStateException("jwt.secret이 " + algorithm + "에 비해 짧습니다: "
+                    + keyBytes.length * 8 + "bit (최소 " + algorithm.getMinKeyLength() + "bit)");
+        }
+        Key key = new SecretKeySpec(keyBytes, algorithm.getJcaName());
+        return new SigningKey(keyIdOf(keyBytes), algorithm, key, key);
+    }
+
+    //알고리즘에 맞는 새 키를 만든다 (키 교체시에 사용)
+    public static SigningKey generate(SignatureAlgorithm algorithm) {
+        if (algorithm.isHmac()) {
+            Key key = Keys.secretKeyFor(algorithm);
+            return new SigningKey(keyIdOf(key.getEncoded()), algorithm, key, key);
+        }
+        KeyPair keyPair = Keys.keyPairFor(algorithm);
+        return new SigningKey(keyIdOf(keyPair.getPublic().getEncoded()), algorithm,
+                keyPair.getPrivate(), keyPair.getPublic());
+    }
+
+    //encodeSigningKey, encodeVerificationKey로 저장해둔 키를 다시 만든다
+    public static SigningKey decode(SignatureAlgorithm algorithm, byte[] encodedSigningKey, byte[] encodedVerificationKey) {
+        if (algorithm.isHmac()) {
+            Key key = Keys.hmacShaKeyFor(encodedSigningKey);
+            return new SigningKey(keyIdOf(encodedSigningKey), algorithm, key, key);
+        }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.isRsa() ? "RSA" : "EC");
+            PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(encodedSigningKey));
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(encodedVerificationKey));
+            return new SigningKey(keyIdOf(encodedVerificationKey), algorithm, privateKey, publicKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("저장된 키를 읽을 수 없습니다: " + algorithm, e);
+        }
+    }
+
+    //키스토어에서 alias의 개인키와 인증서의 공개키를 읽어서 비대칭 키를 만든다
+    public static SigningKey fromKeyStore(String path, String type, String password, String alias,
+                                          SignatureAlgorithm algorithm) {
+        char[] passwordChars = password.toCharArray();
+        try (InputStream inputStream = Files.newInputStream(Paths.get(path))) {
+            KeyStore keyStore = KeyStore.getInstance(type);
+            keyStore.load(inputStream, passwordChars);
+
+            Key privateKey = keyStore.getKey(alias, passwordChars);
+            if (!(privateKey instanceof PrivateKey) || keyStore.getCertificate(alias) == null) {
+                throw new IllegalStateException("키스토어에 '" + alias + "' 개인키와 인증서가 없습니다: " + path);
+            }
+            PublicKey publicKey = keyStore.getCertificate(alias).getPublicKey();
+            //키 종류와 알고리즘이 맞지 않으면 여기서 예외 (예: RSA 키로 ES256)
+            algorithm.assertValidSigningKey(privateKey);
+
+            return new SigningKey(keyIdOf(publicKey.getEncoded()), algorithm, privateKey, publicKey);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("키스토어를 읽을 수 없습니다: " + path, e);
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException("키스토어의 '" + alias + "' 키를 " + algorithm + "에 사용할 수 없습니다: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public Key getSigningKey() {
+        return signingKey;
+    }
+
+    public Key getVerificationKey() {
+        return verificationKey;
+    }
+
+    //HMAC은 키 바이트, 비대칭키는 PKCS#8 개인키
+    public byte[] encodeSigningKey() {
+        return signingKey.getEncoded();
+    }
+
+    //비대칭키의 X.509 공개키, HMAC은 null
+    public byte[] encodeVerificationKey() {
+        return isAsymmetric() ? verificationKey.getEncoded() : null;
+    }
+
+    //공개키로 검증하는 키인지 (JWKS로 공개할 수 있는지)
+    public boolean isAsymmetric() {
+        return verificationKey instanceof PublicKey;
+    }
+
+    //공개키를 JWK(RFC 7517) 형태의 Map으로 리턴, 대칭키는 공개하면 안되므로 예외
+    public Map<String, Object> toJwk() {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (verificationKey instanceof RSAPublicKey) {
+            RSAPublicKey rsa = (RSAPublicKey) verificationKey;
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(unsigned(rsa.getModulus(), 0)));
+            jwk.put("e", base64Url(unsigned(rsa.getPublicExponent(), 0)));
+        } else if (verificationKey instanceof ECPublicKey) {
+            ECPublicKey ec = (ECPublicKey) verificationKey;
+            int fieldBytes = (ec.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", curveOf(algorithm));
+            jwk.put("x", base64Url(unsigned(ec.getW().getAffineX(), fieldBytes)));
+            jwk.put("y", base64Url(unsigned(ec.getW().getAffineY(), fieldBytes)));
+        } else {
+            throw new IllegalStateException("공개할 수 없는 키입니다: " + algorithm);
+        }
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm.getValue());
+        jwk.put("kid", keyId);
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    //키 내용의 SHA-256 앞 12바이트를 base64url로 (키가 바뀌면 kid도 바뀐다)
+    private static String keyIdOf(byte[] encodedKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(encodedKey);
+            return base64Url(Arrays.copyOf(digest, 12));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String curveOf(SignatureAlgorithm algorithm) {
+        switch (algorithm) {
+            case ES256:
+                return "P-256";
+            case ES384:
+                return "P-384";
+            case ES512:
+                return "P-521";
+            default:
+                throw new IllegalStateException("EC 알고리즘이 아닙니다: " + algorithm);
+        }
+    }
+
+    //BigInteger.toByteArray는 부호 바이트가 붙을 수 있으므로 제거하고, length가 있으면 앞을 0으로 채운다
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (length > bytes.length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            return padded;
+        }
+        return bytes;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,98 @@
+package me.silvernine.tutorial.jwt;
+
+import me.silvernine.tutorial.authorization.AuthorityBits;
+import me.silvernine.tutorial.utils.AuthorityRegistry;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+//검증된 토큰의 claims(sub, auth, nick, pst)와 그로부터 만든 권한 목록, User principal, 권한 bitmask
+//VerifiedTokenCache에 들어가서 같은 토큰의 모든 요청이 공유하므로 바뀌는 상태를 두지 않는다
+//파생 값은 처음 사용할때 만들고, 동시에 여러번 만들어져도 결과가 같은 값만 사용한다
+//요청마다의 인증 상태(authenticated)는 JwtAuthentication이 가진다
+public final class TokenClaims implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String subject;
+    private final String authoritiesClaim;
+    private final String token;
+    private final String nickname;
+    private final long profileStamp;
+
+    private transient volatile Collection<? extends GrantedAuthority> authorities;
+    private transient volatile User principal;
+    private transient volatile AuthorityMask authorityMask;
+
+    public TokenClaims(String subject, String authoritiesClaim, String token, String nickname, long profileStamp) {
+        this.subject = subject;
+        this.authoritiesClaim = authoritiesClaim;
+        this.token = token;
+        this.nickname = nickname;
+        this.profileStamp = profileStamp;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getAuthoritiesClaim() {
+        return authoritiesClaim;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    //토큰의 nick claim, 없으면 null
+    public String getNickname() {
+        return nickname;
+    }
+
+    //토큰의 pst claim (프로필을 읽은 시각, epoch millis), 없으면 0
+    public long getProfileStamp() {
+        return profileStamp;
+    }
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        Collection<? extends GrantedAuthority> result = authorities;
+        if (result == null) {
+            //auth claim의 권한 리스트는 AuthorityRegistry에서 공유되는 불변 객체
+            result = AuthorityRegistry.fromClaim(authoritiesClaim);
+            authorities = result;
+        }
+        return result;
+    }
+
+    //같은 AuthorityBits면 한번만 계산한다
+    public long getAuthorityMask(AuthorityBits authorityBits) {
+        AuthorityMask result = authorityMask;
+        if (result == null || result.authorityBits != authorityBits) {
+            result = new AuthorityMask(authorityBits, authorityBits.maskOf(getAuthorities()));
+            authorityMask = result;
+        }
+        return result.mask;
+    }
+
+    //기존과 같이 UserDetails(User)를 principal로 사용하는 코드를 위해 처음 요청될때 만든다
+    public User getPrincipal() {
+        User result = principal;
+        if (result == null) {
+            result = new User(subject, "", getAuthorities());
+            principal = result;
+        }
+        return result;
+    }
+
+    private static final class AuthorityMask {
+        private final AuthorityBits authorityBits;
+        private final long mask;
+
+        private AuthorityMask(AuthorityBits authorityBits, long mask) {
+            this.authorityBits = authorityBits;
+            this.mask = mask;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package me.silvernine.tutorial.jwt;
+
+//토큰 검증에 실패한 이유
+//예전에 validateToken의 catch블록에서 로그로만 남기던 내용을 타입으로 돌려주기 위함
+public enum TokenFailureReason {
+    INVALID_SIGNATURE("잘못된 JWT 서명입니다."),
+    MALFORMED("잘못된 형식의 JWT 토큰입니다."),
+    EXPIRED("만료된 JWT 토큰입니다."),
+    UNSUPPORTED("지원되지 않는 JWT 토큰입니다."),
+    ILLEGAL_ARGUMENT("JWT 토큰이 잘못되었습니다."),
+    REVOKED("폐기된 JWT 토큰입니다.");
+
+    private final String message;
+
+    TokenFailureReason(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
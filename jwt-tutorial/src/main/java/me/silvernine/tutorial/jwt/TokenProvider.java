@@ -1,113 +1,185 @@
 package me.silvernine.tutorial.jwt;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import me.silvernine.tutorial.service.CustomUserDetails;
+import me.silvernine.tutorial.utils.AuthorityRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.Date;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 @Component //토큰의 생성, 토큰의 유효성 검증등을 담당
 public class TokenProvider implements InitializingBean {
     //InitializingBean을 implements 해서 afterPropertiesSet를 @Override한 이유는
-    //@Component로 빈이 생성되고, 35번 라인 TokenProvider로 의존성 주입까지 받은 이후에
-    // 36번라인 주입받은 Secret값을 44번라인 Base64 Decode해서 45번라인 Key 변수에 할당하기 위함
+    //@Component로 빈이 생성되고, TokenProvider로 의존성 주입까지 받은 이후에
+    //주입받은 KeyRing을 키 resolver로 사용하는 JwtParser를 만들어두기 위함
+    //(키가 교체되어도 JwtParser는 그대로, 검증할 키는 토큰 헤더의 kid로 KeyRing에서 찾는다)
 
     private final Logger logger = LoggerFactory.getLogger(TokenProvider.class);
     private static final String AUTHORITIES_KEY = "auth";
-    private final String secret;
+    //프로필 claim, /api/user를 DB 조회 없이 응답하기 위함
+    private static final String NICKNAME_KEY = "nick";
+    private static final String PROFILE_STAMP_KEY = "pst";
+    private final KeyRing keyRing;
     private final long tokenValidityInMilliseconds;
-    private Key key;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AuthMetrics authMetrics;
+    private final CompactTokenCodec compactTokenCodec;
+    private final boolean profileClaimsEnabled;
+    //JwtParser는 불변이고 thread-safe하므로 한번만 만들어서 모든 요청에서 재사용한다
+    private JwtParser jwtParser;
 
     public TokenProvider(
-            @Value("${jwt.secret}") String secret,
-            @Value("${jwt.token-validity-in-seconds}") long tokenValidityInSeconds) {
-        this.secret = secret;
+            KeyRing keyRing,
+            @Value("${jwt.token-validity-in-seconds}") long tokenValidityInSeconds,
+            VerifiedTokenCache verifiedTokenCache,
+            AuthMetrics authMetrics,
+            CompactTokenCodec compactTokenCodec,
+            @Value("${jwt.profile-claims.enabled:true}") boolean profileClaimsEnabled) {
+        this.keyRing = keyRing;
         this.tokenValidityInMilliseconds = tokenValidityInSeconds * 1000;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.authMetrics = authMetrics;
+        this.compactTokenCodec = compactTokenCodec;
+        this.profileClaimsEnabled = profileClaimsEnabled;
     }
 
     @Override
     public void afterPropertiesSet() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parserBuilder().setSigningKeyResolver(keyRing).build();
     }
 
 
     //Authentication객체에 포함되어있는 권한정보를 이용해서 토큰을 생성하는 createToken 메소드 추가
     //Authentication 파라미터를 받아서
     public String createToken(Authentication authentication) {
+        //로그인할때 CustomUserDetailsService가 읽은 nickname과 그 시각
+        String nickname = null;
+        long profileStamp = 0;
+        if (authentication.getPrincipal() instanceof CustomUserDetails) {
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            nickname = userDetails.getNickname();
+            profileStamp = userDetails.getProfileStamp();
+        }
         //권한들...
-        String authorities = authentication.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(","));
+        return createToken(authentication.getName(), AuthorityRegistry.toClaim(authentication.getAuthorities()),
+                nickname, profileStamp);
+    }
+
+    //subject(username)와 auth claim 문자열로 토큰을 생성
+    public String createToken(String subject, String authorities) {
+        return createToken(subject, authorities, null, 0);
+    }
 
+    //refresh 토큰으로 재발급할때는 Authentication객체 없이 저장된 정보만으로 토큰을 만든다
+    //jwt.profile-claims.enabled이고 nickname이 있으면 nick, pst claim을 추가
+    //(압축 토큰은 claims를 최소화하므로 넣지 않는다, 그 토큰의 /api/user는 DB에서 읽는다)
+    public String createToken(String subject, String authorities, String nickname, long profileStamp) {
         long now = (new Date()).getTime();
         //application.yml파일에서 설정했던 만료시간을 설정하고 (tokenValidityInMilliseconds)
         Date validity = new Date(now + this.tokenValidityInMilliseconds);
+        //교체 중이어도 토큰 하나는 같은 키의 kid와 서명을 갖도록 한번만 읽는다
+        SigningKey signingKey = keyRing.getActiveKey();
+
+        //jwt.compact.enabled이면 claims를 최소화한 압축 토큰 (만들 수 없는 경우에만 JWT)
+        String compact = compactTokenCodec.encode(signingKey, subject, authorities, validity.getTime());
+        if (compact != null) {
+            return compact;
+        }
 
         //jwt토큰생성
-        return Jwts.builder()
-                .setSubject(authentication.getName())
+        JwtBuilder builder = Jwts.builder();
+        if (profileClaimsEnabled && nickname != null) {
+            builder.claim(NICKNAME_KEY, nickname).claim(PROFILE_STAMP_KEY, profileStamp);
+        }
+        return builder
+                .setSubject(subject)
+                //jti: 토큰을 폐기(로그아웃)할때 토큰을 구분하기 위한 id
+                .setId(UUID.randomUUID().toString())
                 .claim(AUTHORITIES_KEY, authorities)
-                .signWith(key, SignatureAlgorithm.HS512)
+                //kid: 검증하는 쪽에서 JWKS의 어떤 키로 검증할지 고를 수 있도록 헤더에 키 id를 넣는다
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.getKeyId())
+                .signWith(signingKey.getSigningKey(), signingKey.getAlgorithm())
                 .setExpiration(validity)
                 .compact();
     }
 
+    //토큰을 파라미터로 받아서 한번만 파싱(서명 검증 포함)하고
+    //정상이면 Authentication객체를, 문제가 있으면 실패 이유를 담아서 리턴하는 verify 메소드
+    //JwtFilter는 validateToken + getAuthentication 대신 이 메소드를 사용한다 (HMAC 검증과 JSON 파싱이 요청당 1번)
+    //jwt.cache.enabled가 true이면 이미 검증했던 토큰은 VerifiedTokenCache에서 바로 꺼내서 리턴한다
+    public TokenVerification verify(String token) {
+        TokenVerification cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        long start = System.nanoTime();
+        if (CompactTokenCodec.isCompact(token)) {
+            try {
+                TokenVerification verification = compactTokenCodec.decode(token);
+                if (!verification.isValid()) {
+                    return fail(verification.getFailureReason());
+                }
+                verifiedTokenCache.put(token, verification);
+                return verification;
+            } finally {
+                authMetrics.recordTokenParse(start);
+            }
+        }
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            TokenVerification verification = TokenVerification.success(
+                    toTokenClaims(claims, token), claims.getId(), claims.getExpiration().getTime());
+            verifiedTokenCache.put(token, verification);
+            return verification;
+        } catch (io.jsonwebtoken.security.SecurityException e) {
+            return fail(TokenFailureReason.INVALID_SIGNATURE);
+        } catch (MalformedJwtException e) {
+            return fail(TokenFailureReason.MALFORMED);
+        } catch (ExpiredJwtException e) {
+            return fail(TokenFailureReason.EXPIRED);
+        } catch (UnsupportedJwtException e) {
+            return fail(TokenFailureReason.UNSUPPORTED);
+        } catch (IllegalArgumentException e) {
+            return fail(TokenFailureReason.ILLEGAL_ARGUMENT);
+        } finally {
+            authMetrics.recordTokenParse(start);
+        }
+    }
+
     //토큰을 파라미터로 받아서 토큰에 담겨있는 권한 정보들을 이용해서
     //authentication객체를 리턴하는 Authentication 메소드
     public Authentication getAuthentication(String token) {
-        //72번라인 토큰을 파라미터로 받아서 82번라인 토큰을 이용해서 78번라인 claims을 만들고
-        //86번라인 claims에서 85번라인 authorities 권한정보들을 빼내서
-        //90번 라인 authorities 권한정보들을 이용해서 User principal 유저객체를 만들어서
-        //92번 라인 유저객체와 토큰, 권한정보들을 이용해서 최종적으로 Authentication객체를 리턴(UsernamePasswordAuthenticationToken)
-
-        Claims claims = Jwts
-                .parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        Collection<? extends GrantedAuthority> authorities =
-                Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
-
-        User principal = new User(claims.getSubject(), "", authorities);
-
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        if (CompactTokenCodec.isCompact(token)) {
+            return verify(token).getAuthentication();
+        }
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return new JwtAuthentication(toTokenClaims(claims, token));
     }
 
     //토큰을 파라미터로 받아서 유효성 검증을 수행하는 validateToken 메소드
     public boolean validateToken(String token) {
-        try {
-            //96번라인 토큰을 파라미터로 받아서 100번라인 파싱을 해보고
-            //나오는 익셉션들을 캐치 (102~109라인), 111번라인 문제가 있으면 false, 101번 라인 정상이면 true
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
-        } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException e) {
-            logger.info("잘못된 JWT 서명입니다.");
-        } catch (ExpiredJwtException e) {
-            logger.info("만료된 JWT 토큰입니다.");
-        } catch (UnsupportedJwtException e) {
-            logger.info("지원되지 않는 JWT 토큰입니다.");
-        } catch (IllegalArgumentException e) {
-            logger.info("JWT 토큰이 잘못되었습니다.");
-        }
-        return false;
+        return verify(token).isValid();
+    }
+
+    //claims의 subject와 auth claim, 토큰으로 TokenClaims를 만든다 (요청마다 JwtAuthentication으로 감싸서 사용)
+    //권한정보 목록과 User principal 유저객체는 처음 사용될때 만들어진다
+    private TokenClaims toTokenClaims(Claims claims, String token) {
+        Number profileStamp = claims.get(PROFILE_STAMP_KEY, Number.class);
+        return new TokenClaims(claims.getSubject(), claims.get(AUTHORITIES_KEY, String.class), token,
+                claims.get(NICKNAME_KEY, String.class), profileStamp == null ? 0 : profileStamp.longValue());
+    }
+
+    private TokenVerification fail(TokenFailureReason reason) {
+        logger.info(reason.getMessage());
+        authMetrics.recordTokenFailure(reason);
+        return TokenVerification.failure(reason);
     }
 }
@@ -0,0 +1,176 @@
+package me.silvernine.tutorial.jwt;
+
+import me.silvernine.tutorial.entity.RevokedToken;
+import me.silvernine.tutorial.exception.SharedStoreException;
+import me.silvernine.tutorial.repository.RevokedTokenRepository;
+import me.silvernine.tutorial.store.SharedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+@Component //폐기된 토큰(jti)을 관리
+//폐기 정보는 revoked_token 테이블에 저장하고, 메모리에는 토큰의 만료시간(exp) 기준으로 나눈 bucket에 보관한다
+//- bucket은 bucket-seconds 단위로 나뉘고, 토큰 유효시간 만큼을 덮는 링 배열로 관리한다
+//- isRevoked는 exp로 bucket 하나를 바로 찾아서 그 안의 Set만 확인한다 (O(1), 객체 생성 없음)
+//- exp가 지난 bucket은 항목별로 지우지 않고 bucket을 통째로 버린다
+//여러 서버로 운영하면 폐기 요청을 받은 서버가 SharedStore로 알리고 다른 서버도 자기 bucket에 추가한다
+//알림은 최대 한번 전달(at-most-once)이므로 공유 저장소를 쓰는 경우 purgeExpired 때마다 DB와 다시 맞춘다
+//(공유 저장소를 쓰면 모든 서버가 같은 DB 서버를 사용하므로 다른 서버의 폐기도 revoked_token에 있다, SharedStoreConfig 참고)
+public class TokenRevocationStore implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    //메세지는 "jti exp"
+    static final String REVOKED_CHANNEL = "auth.token.revoked";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final SharedStore sharedStore;
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final LongSupplier clock;
+
+    @Autowired
+    public TokenRevocationStore(
+            RevokedTokenRepository revokedTokenRepository,
+            SharedStore sharedStore,
+            @Value("${jwt.token-validity-in-seconds}") long tokenValidityInSeconds,
+            @Value("${jwt.revocation.bucket-seconds:60}") long bucketSeconds) {
+        this(revokedTokenRepository, sharedStore, tokenValidityInSeconds, bucketSeconds, System::currentTimeMillis);
+    }
+
+    //clock: epoch millis (테스트에서 시간을 바꿔서 bucket 교체, 만료를 확인하기 위함)
+    TokenRevocationStore(RevokedTokenRepository revokedTokenRepository, SharedStore sharedStore,
+                         long tokenValidityInSeconds, long bucketSeconds, LongSupplier clock) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.sharedStore = sharedStore;
+        this.clock = clock;
+        this.bucketMillis = bucketSeconds * 1000;
+        //현재 bucket부터 가장 늦게 만료되는 토큰의 bucket까지 겹치지 않도록 2칸의 여유를 둔다
+        this.buckets = new AtomicReferenceArray<>((int) (tokenValidityInSeconds / bucketSeconds) + 2);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        //구독을 먼저 해서 DB를 읽는 동안 들어온 폐기도 놓치지 않는다
+        sharedStore.subscribe(REVOKED_CHANNEL, this::onRevoked);
+        loadFromDatabase();
+    }
+
+    //jti와 exp(epoch millis)로 폐기 여부를 확인
+    public boolean isRevoked(String jti, long expiration) {
+        if (jti == null) {
+            return false;
+        }
+        long epoch = expiration / bucketMillis;
+        Bucket bucket = buckets.get(slot(epoch));
+        return bucket != null && bucket.epoch == epoch && bucket.jtis.contains(jti);
+    }
+
+    //토큰을 폐기하고 DB에도 저장
+    public void revoke(String jti, long expiration) {
+        long now = clock.getAsLong();
+        if (jti == null || expiration <= now) {
+            return;
+        }
+        revokedTokenRepository.save(RevokedToken.builder().jti(jti).expiresAt(expiration).build());
+        index(jti, expiration, now);
+        try {
+            sharedStore.publish(REVOKED_CHANNEL, jti + " " + expiration);
+        } catch (SharedStoreException e) {
+            //DB에는 저장됐으므로 다른 서버도 다음 purgeExpired때 반영한다
+            logger.warn("토큰 폐기를 다른 서버에 알리지 못했습니다. jti: {}, {}", jti, e.getMessage());
+        }
+    }
+
+    //exp가 지난 bucket을 통째로 버리고, DB에서도 만료된 행을 지운다
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval-in-millis:60000}")
+    public void purgeExpired() {
+        long currentEpoch = clock.getAsLong() / bucketMillis;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.epoch < currentEpoch) {
+                buckets.compareAndSet(i, bucket, null);
+            }
+        }
+        int deleted = revokedTokenRepository.deleteExpired(clock.getAsLong());
+        if (deleted > 0) {
+            logger.debug("만료된 폐기 토큰 {}개를 삭제했습니다.", deleted);
+        }
+        if (sharedStore.isShared()) {
+            //놓친 알림이 있어도 purge 주기 안에는 반영된다
+            loadFromDatabase();
+        }
+    }
+
+    private void loadFromDatabase() {
+        long now = clock.getAsLong();
+        for (RevokedToken revokedToken : revokedTokenRepository.findByExpiresAtGreaterThan(now)) {
+            index(revokedToken.getJti(), revokedToken.getExpiresAt(), now);
+        }
+    }
+
+    //다른 서버(또는 이 서버)가 보낸 폐기 알림, 이미 있는 jti면 Set에 다시 추가해도 변화 없음
+    private void onRevoked(String message) {
+        int separator = message.indexOf(' ');
+        if (separator <= 0) {
+            logger.warn("잘못된 토큰 폐기 알림입니다: {}", message);
+            return;
+        }
+        try {
+            index(message.substring(0, separator), Long.parseLong(message.substring(separator + 1)),
+                    clock.getAsLong());
+        } catch (NumberFormatException e) {
+            logger.warn("잘못된 토큰 폐기 알림입니다: {}", message);
+        }
+    }
+
+    private void index(String jti, long expiration, long now) {
+        long epoch = expiration / bucketMillis;
+        if (epoch - now / bucketMillis >= buckets.length()) {
+            //설정된 토큰 유효시간보다 늦게 만료되는 토큰 (유효시간 설정을 줄이고 재시작한 경우 등)
+            logger.warn("토큰 유효시간을 넘어서는 폐기 요청입니다. jti: {}", jti);
+            return;
+        }
+
+        int slot = slot(epoch);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.epoch == epoch) {
+                bucket.jtis.add(jti);
+                return;
+            }
+            if (bucket != null && bucket.epoch > epoch) {
+                //같은 칸에 더 늦은 bucket이 있다면 이 토큰은 이미 만료된 것
+                return;
+            }
+            //비어있거나 만료된 bucket이면 새 bucket으로 교체 (만료된 항목들은 한번에 버려짐)
+            Bucket replacement = new Bucket(epoch);
+            replacement.jtis.add(jti);
+            if (buckets.compareAndSet(slot, bucket, replacement)) {
+                return;
+            }
+        }
+    }
+
+    private int slot(long epoch) {
+        return (int) (epoch % buckets.length());
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final Set<String> jtis = ConcurrentHashMap.newKeySet();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
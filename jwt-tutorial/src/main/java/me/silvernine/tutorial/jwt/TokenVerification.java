@@ -0,0 +1,70 @@
+package me.silvernine.tutorial.jwt;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+//TokenProvider.verify의 결과
+//검증에 성공하면 토큰의 claims(TokenClaims)를, 실패하면 실패 이유(TokenFailureReason)를 담는다
+//VerifiedTokenCache에 들어가서 여러 요청이 공유하므로 불변 값만 가진다
+public final class TokenVerification {
+
+    //실패 결과는 이유별로 하나씩만 만들어두고 재사용 (요청마다 객체를 만들지 않기 위함)
+    private static final Map<TokenFailureReason, TokenVerification> FAILURES = new EnumMap<>(TokenFailureReason.class);
+
+    static {
+        for (TokenFailureReason reason : TokenFailureReason.values()) {
+            FAILURES.put(reason, new TokenVerification(null, null, 0L, reason));
+        }
+    }
+
+    private final TokenClaims claims;
+    //토큰의 jti, TokenRevocationStore에서 폐기 여부를 확인할때 사용
+    private final String tokenId;
+    //토큰의 exp (epoch millis), VerifiedTokenCache에서 항목의 유효기간으로 사용
+    private final long expiration;
+    private final TokenFailureReason failureReason;
+
+    private TokenVerification(TokenClaims claims, String tokenId, long expiration,
+                              TokenFailureReason failureReason) {
+        this.claims = claims;
+        this.tokenId = tokenId;
+        this.expiration = expiration;
+        this.failureReason = failureReason;
+    }
+
+    public static TokenVerification success(TokenClaims claims, String tokenId, long expiration) {
+        return new TokenVerification(claims, tokenId, expiration, null);
+    }
+
+    public static TokenVerification failure(TokenFailureReason failureReason) {
+        return FAILURES.get(failureReason);
+    }
+
+    public boolean isValid() {
+        return claims != null;
+    }
+
+    public TokenClaims getClaims() {
+        return claims;
+    }
+
+    //요청마다 새 JwtAuthentication을 만든다 (인증 상태는 요청별, 권한 목록 등은 claims에서 공유)
+    //실패한 결과면 null
+    public Authentication getAuthentication() {
+        return claims == null ? null : new JwtAuthentication(claims);
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public long getExpiration() {
+        return expiration;
+    }
+
+    public TokenFailureReason getFailureReason() {
+        return failureReason;
+    }
+}
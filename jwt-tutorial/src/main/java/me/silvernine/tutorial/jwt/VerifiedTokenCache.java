@@ -0,0 +1,136 @@
+package me.silvernine.tutorial.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+//이미 검증이 끝난 토큰의 결과(TokenVerification)를 보관하는 캐시
+//같은 토큰이 만료될때까지 계속 들어오기 때문에 두번째 요청부터는 HMAC 검증과 claims 파싱을 생략할 수 있다
+//- 키는 토큰 원문이 아니라 SHA-256 digest (토큰 원문을 메모리에 들고 있지 않기 위함)
+//- Caffeine 캐시라서 조회에 전역 락이 없다 (모든 인증 요청이 지나가는 경로)
+//- maximum-size를 넘으면 Caffeine의 정책(W-TinyLFU)으로 제거
+//- 각 항목은 토큰의 exp에 만료된다 (expireAfter)
+//jwt.cache.enabled가 true일때만 동작한다
+//hit, miss 횟수와 크기는 auth.token.cache.* 지표로 노출된다 (MeterBinder)
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final boolean enabled;
+    private final LongSupplier clock;
+    private final Cache<ByteBuffer, TokenVerification> entries;
+
+    @Autowired
+    public VerifiedTokenCache(
+            @Value("${jwt.cache.enabled:false}") boolean enabled,
+            @Value("${jwt.cache.maximum-size:10000}") int maximumSize) {
+        this(enabled, maximumSize, System::currentTimeMillis);
+    }
+
+    //clock: epoch millis (테스트에서 시간을 바꾸기 위함), Caffeine의 만료 시간도 이 clock으로 계산한다
+    VerifiedTokenCache(boolean enabled, int maximumSize, LongSupplier clock) {
+        this.enabled = enabled;
+        this.clock = clock;
+        this.entries = !enabled ? null : Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()))
+                .recordStats()
+                .build();
+    }
+
+    //캐시에 있고 아직 만료되지 않은 검증 결과를 리턴, 없으면 null
+    public TokenVerification get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        return entries.getIfPresent(digest(token));
+    }
+
+    //검증에 성공했고 아직 만료되지 않은 결과만 저장한다
+    public void put(String token, TokenVerification verification) {
+        if (!enabled || !verification.isValid() || verification.getExpiration() <= clock.getAsLong()) {
+            return;
+        }
+        entries.put(digest(token), verification);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHitCount() {
+        return enabled ? entries.stats().hitCount() : 0;
+    }
+
+    public long getMissCount() {
+        return enabled ? entries.stats().missCount() : 0;
+    }
+
+    public long size() {
+        return enabled ? entries.estimatedSize() : 0;
+    }
+
+    //만료 대기중인 항목과 크기를 넘은 항목을 바로 정리 (테스트용, 평소에는 Caffeine이 알아서 한다)
+    void cleanUp() {
+        if (enabled) {
+            entries.cleanUp();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.token.cache.requests", this, VerifiedTokenCache::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("auth.token.cache.requests", this, VerifiedTokenCache::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("auth.token.cache.size", this, VerifiedTokenCache::size)
+                .register(registry);
+    }
+
+    //저장할때 토큰의 exp까지 남은 시간을 만료 시간으로, 읽어도 연장되지 않는다
+    private final class ExpireAtTokenExpiration implements Expiry<ByteBuffer, TokenVerification> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, TokenVerification value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(value.getExpiration() - clock.getAsLong(), 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, TokenVerification value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, TokenVerification value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    //ByteBuffer는 내용 기준으로 equals/hashCode를 구현하므로 digest 바이트 배열을 그대로 키로 쓸 수 있다
+    private ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,113 @@
+package me.silvernine.tutorial.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import me.silvernine.tutorial.jwt.TokenFailureReason;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component //인증 파이프라인의 Micrometer 지표를 한곳에서 관리
+//요청마다 태그로 Meter를 찾지 않도록 모든 Meter는 생성자에서 미리 등록해둔다
+//지표는 /actuator/metrics/{name} 으로 확인할 수 있다
+//- auth.filter            : JwtFilter가 요청 하나에 추가하는 시간
+//- auth.token.parse       : 토큰 파싱 + 서명 검증 시간 (jjwt가 한번에 수행하므로 분리되지 않는다, 캐시 hit은 제외)
+//- auth.token.failures    : 검증 실패 횟수 (reason 태그: expired, malformed, invalid_signature, unsupported ...)
+//- auth.user.lookup       : 로그인시 DB에서 유저와 권한을 조회하는 시간
+//- auth.password.match    : 로그인시 BCrypt 비교 시간
+//- auth.password.encode   : 회원가입, 재해시때 BCrypt 해시 시간
+//- auth.login             : 로그인 전체 시간 (로그인 스레드풀 대기 포함)
+//- auth.login.rejected    : 로그인 대기열이 가득 차서 거절된 횟수
+//- auth.login.throttled   : 로그인 시도/실패 횟수 초과로 429 거절된 횟수 (by 태그: ip, username)
+public class AuthMetrics {
+
+    public static final String THROTTLED_BY_IP = "ip";
+    public static final String THROTTLED_BY_USERNAME = "username";
+
+    private final Timer filterTimer;
+    private final Timer tokenParseTimer;
+    private final Map<TokenFailureReason, Counter> tokenFailureCounters = new EnumMap<>(TokenFailureReason.class);
+    private final Timer userLookupTimer;
+    private final Timer passwordMatchTimer;
+    private final Timer passwordEncodeTimer;
+    private final Timer loginTimer;
+    private final Counter loginRejectedCounter;
+    private final Map<String, Counter> loginThrottledCounters = new HashMap<>();
+
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        this.filterTimer = Timer.builder("auth.filter")
+                .description("JwtFilter에서 토큰을 확인하는데 걸린 시간")
+                .register(meterRegistry);
+        this.tokenParseTimer = Timer.builder("auth.token.parse")
+                .description("토큰 파싱과 서명 검증 시간")
+                .register(meterRegistry);
+        for (TokenFailureReason reason : TokenFailureReason.values()) {
+            tokenFailureCounters.put(reason, Counter.builder("auth.token.failures")
+                    .description("토큰 검증 실패 횟수")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.userLookupTimer = Timer.builder("auth.user.lookup")
+                .description("로그인시 유저와 권한정보 조회 시간")
+                .register(meterRegistry);
+        this.passwordMatchTimer = Timer.builder("auth.password.match")
+                .description("비밀번호 비교 시간")
+                .register(meterRegistry);
+        this.passwordEncodeTimer = Timer.builder("auth.password.encode")
+                .description("비밀번호 해시 시간")
+                .register(meterRegistry);
+        this.loginTimer = Timer.builder("auth.login")
+                .description("로그인 전체 처리 시간")
+                .register(meterRegistry);
+        this.loginRejectedCounter = Counter.builder("auth.login.rejected")
+                .description("로그인 대기열이 가득 차서 거절된 횟수")
+                .register(meterRegistry);
+        for (String by : new String[]{THROTTLED_BY_IP, THROTTLED_BY_USERNAME}) {
+            loginThrottledCounters.put(by, Counter.builder("auth.login.throttled")
+                    .description("로그인 시도 횟수 초과로 거절된 횟수")
+                    .tag("by", by)
+                    .register(meterRegistry));
+        }
+    }
+
+    public void recordFilter(long startNanos) {
+        filterTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokenParse(long startNanos) {
+        tokenParseTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokenFailure(TokenFailureReason reason) {
+        tokenFailureCounters.get(reason).increment();
+    }
+
+    public void recordUserLookup(long startNanos) {
+        userLookupTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPasswordMatch(long startNanos) {
+        passwordMatchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPasswordEncode(long startNanos) {
+        passwordEncodeTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLogin(long startNanos) {
+        loginTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLoginRejected() {
+        loginRejectedCounter.increment();
+    }
+
+    //by: THROTTLED_BY_IP, THROTTLED_BY_USERNAME
+    public void recordLoginThrottled(String by) {
+        loginThrottledCounters.get(by).increment();
+    }
+}
@@ -0,0 +1,130 @@
+package me.silvernine.tutorial.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+
+//POST /api/authenticate 요청을 AuthenticationManager 전에 LoginRateLimiter로 검사하는 필터
+//거절할때는 예외 처리나 /error 포워드 없이 429 상태와 Retry-After 헤더만 내려서 거절 비용을 최소화한다
+//빈으로 등록하면 서블릿 필터로도 한번 더 등록되므로 SecurityConfig에서 직접 생성해서 시큐리티 필터 체인에만 추가한다
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginRateLimitFilter.class);
+    //로그인 body(LoginDto)는 작으므로 이보다 크면 읽지 않고 거절
+    private static final int MAX_BODY_BYTES = 4096;
+    private static final RequestMatcher LOGIN_REQUEST = new AntPathRequestMatcher("/api/authenticate", "POST");
+
+    private final LoginRateLimiter loginRateLimiter;
+    private final ObjectMapper objectMapper;
+
+    public LoginRateLimitFilter(LoginRateLimiter loginRateLimiter, ObjectMapper objectMapper) {
+        this.loginRateLimiter = loginRateLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginRateLimiter.isEnabled() || !LOGIN_REQUEST.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        //IP 검사는 body를 읽기 전에
+        String ip = request.getRemoteAddr();
+        if (!loginRateLimiter.tryAcquireIp(ip)) {
+            logger.debug("로그인 시도가 너무 많아 거절했습니다. ip: {}", ip);
+            reject(response, loginRateLimiter.retryAfterSecondsForIp(ip));
+            return;
+        }
+
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        byte[] body = readBody(request.getInputStream());
+        if (body == null) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+
+        String username = readUsername(body);
+        if (username != null && loginRateLimiter.isUsernameBlocked(username)) {
+            logger.debug("로그인 실패가 너무 많아 거절했습니다. username: {}", username);
+            reject(response, loginRateLimiter.retryAfterSecondsForUsername(username));
+            return;
+        }
+
+        filterChain.doFilter(new CachedBodyHttpServletRequest(request, body), response);
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    //Content-Length가 없는(chunked) 요청도 MAX_BODY_BYTES까지만 읽는다, 넘으면 null
+    private static byte[] readBody(InputStream inputStream) throws IOException {
+        byte[] body = StreamUtils.copyToByteArray(new LimitedInputStream(inputStream, MAX_BODY_BYTES + 1));
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    //JSON이 아니거나 username이 없으면 null (컨트롤러의 @Valid에서 400으로 처리된다)
+    private String readUsername(byte[] body) {
+        try {
+            JsonNode tree = objectMapper.readTree(body);
+            JsonNode username = tree == null ? null : tree.get("username");
+            return username != null && username.isTextual() ? username.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static final class LimitedInputStream extends InputStream {
+        private final InputStream delegate;
+        private int remaining;
+
+        private LimitedInputStream(InputStream delegate, int limit) {
+            this.delegate = delegate;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int value = delegate.read();
+            if (value >= 0) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = delegate.read(b, off, Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
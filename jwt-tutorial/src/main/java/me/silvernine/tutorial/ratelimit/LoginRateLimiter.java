@@ -0,0 +1,128 @@
+package me.silvernine.tutorial.ratelimit;
+
+import me.silvernine.tutorial.exception.SharedStoreException;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import me.silvernine.tutorial.store.SharedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+@Component //로그인 무차별 대입(credential stuffing) 방어
+//- IP별 로그인 시도 횟수 (성공/실패 모두)
+//- username별 로그인 실패 횟수 (성공하면 초기화)
+//둘 중 하나라도 넘으면 LoginRateLimitFilter가 AuthenticationManager(DB 조회, BCrypt) 전에 429로 거절한다
+//store.type이 remote/embedded이면 횟수를 SharedStore에 저장해서 여러 서버가 같은 횟수를 본다
+//(서버를 바꿔가며 시도해도 제한이 서버 수만큼 늘어나지 않는다)
+//공유 저장소에 접근할 수 없으면 로그인을 막지 않는다 (fail-open, BCrypt 스레드풀과 대기열 제한은 그대로 적용됨)
+//프록시 뒤에 있으면 server.forward-headers-strategy=native로 getRemoteAddr가 실제 클라이언트 IP가 되도록 설정해야 한다
+public class LoginRateLimiter {
+
+    //username은 body에서 오므로 키가 길어지지 않도록 자른다
+    private static final int MAX_USERNAME_KEY_LENGTH = 64;
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+    private final boolean enabled;
+    private final RateLimiter ipLimiter;
+    private final RateLimiter usernameLimiter;
+    private final AuthMetrics authMetrics;
+
+    public LoginRateLimiter(
+            AuthMetrics authMetrics,
+            SharedStore sharedStore,
+            @Value("${login.rate-limit.enabled:true}") boolean enabled,
+            @Value("${login.rate-limit.window-seconds:60}") long windowSeconds,
+            @Value("${login.rate-limit.max-attempts-per-ip:30}") int maxAttemptsPerIp,
+            @Value("${login.rate-limit.max-failures-per-username:5}") int maxFailuresPerUsername,
+            @Value("${login.rate-limit.lockout-seconds:300}") long lockoutSeconds,
+            @Value("${login.rate-limit.max-keys:100000}") int maxKeys) {
+        this.authMetrics = authMetrics;
+        this.enabled = enabled;
+        if (sharedStore.isShared()) {
+            this.ipLimiter = new SharedStoreRateLimiter(sharedStore, "login.ip",
+                    maxAttemptsPerIp, windowSeconds * 1000, lockoutSeconds * 1000);
+            this.usernameLimiter = new SharedStoreRateLimiter(sharedStore, "login.username",
+                    maxFailuresPerUsername, windowSeconds * 1000, lockoutSeconds * 1000);
+        } else {
+            this.ipLimiter = new SlidingWindowRateLimiter(
+                    maxAttemptsPerIp, windowSeconds * 1000, lockoutSeconds * 1000, maxKeys);
+            this.usernameLimiter = new SlidingWindowRateLimiter(
+                    maxFailuresPerUsername, windowSeconds * 1000, lockoutSeconds * 1000, maxKeys);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //IP의 로그인 시도를 한번 세고 허용되면 true
+    public boolean tryAcquireIp(String ip) {
+        if (!enabled || failOpen(() -> ipLimiter.tryAcquire(ip), true)) {
+            return true;
+        }
+        authMetrics.recordLoginThrottled(AuthMetrics.THROTTLED_BY_IP);
+        return false;
+    }
+
+    //username이 실패 횟수 초과로 잠겨있는지
+    public boolean isUsernameBlocked(String username) {
+        if (!enabled || !failOpen(() -> usernameLimiter.isBlocked(usernameKey(username)), false)) {
+            return false;
+        }
+        authMetrics.recordLoginThrottled(AuthMetrics.THROTTLED_BY_USERNAME);
+        return true;
+    }
+
+    public void recordFailure(String username) {
+        if (enabled) {
+            failOpen(() -> {
+                usernameLimiter.record(usernameKey(username));
+                return null;
+            }, null);
+        }
+    }
+
+    public void recordSuccess(String username) {
+        if (enabled) {
+            failOpen(() -> {
+                usernameLimiter.reset(usernameKey(username));
+                return null;
+            }, null);
+        }
+    }
+
+    public long retryAfterSecondsForIp(String ip) {
+        return toSeconds(failOpen(() -> ipLimiter.retryAfterMillis(ip), 1000L));
+    }
+
+    public long retryAfterSecondsForUsername(String username) {
+        return toSeconds(failOpen(() -> usernameLimiter.retryAfterMillis(usernameKey(username)), 1000L));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        ipLimiter.evictIdle();
+        usernameLimiter.evictIdle();
+    }
+
+    private static <T> T failOpen(Supplier<T> action, T fallback) {
+        try {
+            return action.get();
+        } catch (SharedStoreException e) {
+            logger.warn("로그인 시도 횟수를 확인할 수 없습니다: {}", e.getMessage());
+            return fallback;
+        }
+    }
+
+    private static String usernameKey(String username) {
+        return username.length() > MAX_USERNAME_KEY_LENGTH ? username.substring(0, MAX_USERNAME_KEY_LENGTH) : username;
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+}
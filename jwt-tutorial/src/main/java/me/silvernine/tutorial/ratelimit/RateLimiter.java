@@ -0,0 +1,24 @@
+package me.silvernine.tutorial.ratelimit;
+
+//키별 횟수 제한
+//- SlidingWindowRateLimiter : 이 프로세스 안에서만 (store.type=local)
+//- SharedStoreRateLimiter   : SharedStore로 모든 서버가 같은 횟수를 본다
+public interface RateLimiter {
+
+    //한번 시도한 것으로 세고 허용되면 true, limit을 넘거나 잠겨있으면 false
+    boolean tryAcquire(String key);
+
+    //세지 않고 지금 거절될 상태인지만 확인
+    boolean isBlocked(String key);
+
+    //허용 여부와 관계없이 한번 센다, limit에 도달하면 잠근다
+    void record(String key);
+
+    void reset(String key);
+
+    //다시 시도할 수 있을때까지 남은 시간
+    long retryAfterMillis(String key);
+
+    //오래 사용되지 않은 키 정리
+    void evictIdle();
+}
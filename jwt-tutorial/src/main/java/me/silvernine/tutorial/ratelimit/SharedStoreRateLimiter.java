@@ -0,0 +1,132 @@
+package me.silvernine.tutorial.ratelimit;
+
+import me.silvernine.tutorial.store.SharedStore;
+
+import java.util.Arrays;
+import java.util.Map;
+
+//SharedStore에 횟수를 저장하는 sliding window 제한 (여러 서버가 같은 횟수를 본다)
+//SlidingWindowRateLimiter와 같은 방식으로 window별 횟수 키 2개(현재, 이전)와 잠금 키를 사용한다
+//- tryAcquire는 먼저 increment(서버에서 원자적으로 증가)하고, 증가된 값으로 허용 여부를 정한다
+//  getAll로 읽은 값(near-cache에서 올 수 있음)으로 확인한 다음 증가시키면 여러 서버가 동시에 확인을 통과해서
+//  limit보다 많이 허용되므로, 읽은 값은 잠금 확인과 이전 window 횟수에만 사용한다
+//  limit을 넘어서 거절된 시도도 세지만, lockout 동안은 잠금 확인에서 먼저 거절되므로 더 세지 않는다
+//- 키는 ttl로 만료되므로 따로 정리하지 않는다
+public class SharedStoreRateLimiter implements RateLimiter {
+
+    private final SharedStore sharedStore;
+    private final String prefix;
+    private final int limit;
+    private final long windowMillis;
+    private final long lockoutMillis;
+
+    public SharedStoreRateLimiter(SharedStore sharedStore, String prefix, int limit, long windowMillis, long lockoutMillis) {
+        this.sharedStore = sharedStore;
+        this.prefix = prefix;
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        this.lockoutMillis = lockoutMillis;
+    }
+
+    @Override
+    public boolean tryAcquire(String key) {
+        long now = System.currentTimeMillis();
+        long epoch = now / windowMillis;
+        String lockKey = lockKey(key);
+        String previousKey = countKey(key, epoch - 1);
+        Map<String, String> values = sharedStore.getAll(Arrays.asList(lockKey, previousKey));
+        if (parse(values.get(lockKey)) > now) {
+            return false;
+        }
+        //이전 window 횟수를 읽을 수 있도록 window 2개 동안 유지
+        long current = sharedStore.increment(countKey(key, epoch), 2 * windowMillis);
+        //이번 시도를 포함한 횟수가 limit 이하면 허용
+        if (new Window(0, parse(values.get(previousKey)), current).estimate(now) > limit) {
+            lock(key, now);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isBlocked(String key) {
+        long now = System.currentTimeMillis();
+        Window window = read(key, now);
+        return window.lockedUntil > now || window.estimate(now) >= limit;
+    }
+
+    @Override
+    public void record(String key) {
+        long now = System.currentTimeMillis();
+        long epoch = now / windowMillis;
+        long current = sharedStore.increment(countKey(key, epoch), 2 * windowMillis);
+        String previous = sharedStore.get(countKey(key, epoch - 1));
+        if (new Window(0, parse(previous), current).estimate(now) >= limit) {
+            lock(key, now);
+        }
+    }
+
+    @Override
+    public void reset(String key) {
+        long epoch = System.currentTimeMillis() / windowMillis;
+        sharedStore.delete(countKey(key, epoch));
+        sharedStore.delete(countKey(key, epoch - 1));
+    }
+
+    @Override
+    public long retryAfterMillis(String key) {
+        long now = System.currentTimeMillis();
+        long lockedUntil = parse(sharedStore.get(lockKey(key)));
+        return lockedUntil > now ? lockedUntil - now : windowMillis - now % windowMillis;
+    }
+
+    @Override
+    public void evictIdle() {
+        //ttl로 만료된다
+    }
+
+    private Window read(String key, long now) {
+        long epoch = now / windowMillis;
+        String lockKey = lockKey(key);
+        String currentKey = countKey(key, epoch);
+        String previousKey = countKey(key, epoch - 1);
+        Map<String, String> values = sharedStore.getAll(Arrays.asList(lockKey, currentKey, previousKey));
+        return new Window(parse(values.get(lockKey)), parse(values.get(previousKey)), parse(values.get(currentKey)));
+    }
+
+    //잠금 값은 잠금이 풀리는 시각 (retryAfterMillis 계산용)
+    private void lock(String key, long now) {
+        if (lockoutMillis > 0) {
+            sharedStore.putIfAbsent(lockKey(key), Long.toString(now + lockoutMillis), lockoutMillis);
+        }
+    }
+
+    private String countKey(String key, long epoch) {
+        return prefix + ":" + key + ":" + epoch;
+    }
+
+    private String lockKey(String key) {
+        return prefix + ":lock:" + key;
+    }
+
+    private static long parse(String value) {
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    private final class Window {
+        private final long lockedUntil;
+        private final long previous;
+        private final long current;
+
+        private Window(long lockedUntil, long previous, long current) {
+            this.lockedUntil = lockedUntil;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        private double estimate(long now) {
+            double previousWeight = (double) (windowMillis - now % windowMillis) / windowMillis;
+            return previous * previousWeight + current;
+        }
+    }
+}
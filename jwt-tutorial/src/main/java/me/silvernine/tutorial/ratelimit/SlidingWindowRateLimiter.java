@@ -0,0 +1,228 @@
+package me.silvernine.tutorial.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+//키(IP, username 등)별 sliding window 카운터
+//- 이전 window의 횟수를 현재 window와 겹치는 비율만큼 더해서 추정한다 (sliding window counter)
+//  예: window 60초, 현재 window가 15초 지났으면 추정값 = 이전 window 횟수 * 0.75 + 현재 window 횟수
+//- 키 하나의 상태(window 번호 32bit + 이전 횟수 16bit + 현재 횟수 16bit)를 AtomicLong 하나에 넣고 CAS로 갱신하므로 락이 없다
+//- 추정값이 limit에 도달하면 lockout 동안 무조건 거절한다
+//- 키 개수는 maxKeys를 넘지 않는다, 가득 차면 몇개를 골라 가장 오래 사용되지 않은 키를 지우고(근사 LRU),
+//  evictIdle로 주기적으로 window가 지난 키를 지운다
+//- 잠긴 키는 lockedWindows에 따로 두고 lockout이 끝나면 다시 windows로 옮긴다
+//  잠긴 키를 많이 만들어도 windows의 샘플에는 잠기지 않은 키만 있으므로 새 키를 추가하는 비용은 항상 샘플 수만큼이다
+public class SlidingWindowRateLimiter implements RateLimiter {
+
+    private static final long COUNT_MASK = 0xFFFFL;
+    private static final long EPOCH_MASK = 0xFFFFFFFFL;
+    private static final int EVICTION_SAMPLES = 16;
+
+    private final int limit;
+    private final long windowMillis;
+    private final long lockoutMillis;
+    private final int maxKeys;
+    private final LongSupplier clock;
+    //잠기지 않은 키
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    //lockout중인 키
+    private final ConcurrentHashMap<String, Window> lockedWindows = new ConcurrentHashMap<>();
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis, long lockoutMillis, int maxKeys) {
+        this(limit, windowMillis, lockoutMillis, maxKeys, System::currentTimeMillis);
+    }
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis, long lockoutMillis, int maxKeys, LongSupplier clock) {
+        if (limit <= 0 || limit > COUNT_MASK) {
+            throw new IllegalArgumentException("limit은 1 ~ " + COUNT_MASK + " 사이여야 합니다: " + limit);
+        }
+        if (windowMillis < 1000) {
+            throw new IllegalArgumentException("window는 1초 이상이어야 합니다: " + windowMillis);
+        }
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        this.lockoutMillis = lockoutMillis;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    //한번 시도한 것으로 세고 허용되면 true, limit을 넘거나 잠겨있으면 세지 않고 false
+    @Override
+    public boolean tryAcquire(String key) {
+        long now = clock.getAsLong();
+        Window window = window(key, now);
+        if (window.lockedUntil > now) {
+            return false;
+        }
+        long epoch = epochOf(now);
+        while (true) {
+            long current = window.state.get();
+            long rolled = roll(current, epoch);
+            if (estimate(rolled, now) >= limit) {
+                lock(key, window, now);
+                return false;
+            }
+            if (window.state.compareAndSet(current, increment(rolled))) {
+                return true;
+            }
+        }
+    }
+
+    //세지 않고 지금 거절될 상태인지만 확인
+    @Override
+    public boolean isBlocked(String key) {
+        Window window = find(key);
+        if (window == null) {
+            return false;
+        }
+        long now = clock.getAsLong();
+        return window.lockedUntil > now || estimate(roll(window.state.get(), epochOf(now)), now) >= limit;
+    }
+
+    //허용 여부와 관계없이 한번 센다 (예: 로그인 실패), limit에 도달하면 잠근다
+    @Override
+    public void record(String key) {
+        long now = clock.getAsLong();
+        Window window = window(key, now);
+        long epoch = epochOf(now);
+        long next;
+        while (true) {
+            long current = window.state.get();
+            next = increment(roll(current, epoch));
+            if (window.state.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        if (estimate(next, now) >= limit) {
+            lock(key, window, now);
+        }
+    }
+
+    //예: 로그인 성공시 실패 횟수 초기화
+    @Override
+    public void reset(String key) {
+        windows.remove(key);
+        lockedWindows.remove(key);
+    }
+
+    //다시 시도할 수 있을때까지 남은 시간 (잠겨있으면 lockout 종료까지, 아니면 현재 window 종료까지)
+    @Override
+    public long retryAfterMillis(String key) {
+        long now = clock.getAsLong();
+        Window window = find(key);
+        if (window != null && window.lockedUntil > now) {
+            return window.lockedUntil - now;
+        }
+        return windowMillis - now % windowMillis;
+    }
+
+    //이전 window까지 지나서 추정값이 0이고 잠겨있지도 않은 키를 지운다
+    @Override
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        long idleBefore = now - 2 * windowMillis;
+        windows.entrySet().removeIf(entry ->
+                entry.getValue().lastAccess < idleBefore && entry.getValue().lockedUntil <= now);
+        lockedWindows.entrySet().removeIf(entry ->
+                entry.getValue().lastAccess < idleBefore && entry.getValue().lockedUntil <= now);
+    }
+
+    public int size() {
+        return windows.size() + lockedWindows.size();
+    }
+
+    private Window find(String key) {
+        Window window = windows.get(key);
+        return window != null ? window : lockedWindows.get(key);
+    }
+
+    private Window window(String key, long now) {
+        Window window = windows.get(key);
+        if (window == null) {
+            window = lockedWindows.get(key);
+            if (window != null && window.lockedUntil <= now) {
+                //lockout이 끝난 키는 횟수를 유지한 채로 windows로 되돌린다
+                Window unlocked = window;
+                lockedWindows.remove(key, unlocked);
+                window = windows.computeIfAbsent(key, k -> unlocked);
+            }
+        }
+        if (window == null) {
+            if (size() >= maxKeys) {
+                evictOne();
+            }
+            window = windows.computeIfAbsent(key, k -> new Window());
+        }
+        window.lastAccess = now;
+        return window;
+    }
+
+    //잠기지 않은 키 중 가장 오래 사용되지 않은 키를 몇개만 보고 골라서 지운다 (전체를 훑지 않는다)
+    //잠기지 않은 키가 없으면 잠긴 키 중 가장 오래된 키를 지운다 (잠긴 키로 가득 채워서 maxKeys를 넘기지 못하도록)
+    private void evictOne() {
+        if (!evictOldest(windows)) {
+            evictOldest(lockedWindows);
+        }
+    }
+
+    private static boolean evictOldest(ConcurrentHashMap<String, Window> map) {
+        Map.Entry<String, Window> oldest = null;
+        Iterator<Map.Entry<String, Window>> iterator = map.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLES && iterator.hasNext(); i++) {
+            Map.Entry<String, Window> entry = iterator.next();
+            if (oldest == null || entry.getValue().lastAccess < oldest.getValue().lastAccess) {
+                oldest = entry;
+            }
+        }
+        if (oldest == null) {
+            return false;
+        }
+        //다른 스레드가 먼저 지웠어도 키는 하나 줄었다
+        map.remove(oldest.getKey(), oldest.getValue());
+        return true;
+    }
+
+    //lockout을 걸고 lockedWindows로 옮긴다
+    private void lock(String key, Window window, long now) {
+        if (lockoutMillis > 0 && window.lockedUntil <= now) {
+            window.lockedUntil = now + lockoutMillis;
+            if (windows.remove(key, window)) {
+                lockedWindows.put(key, window);
+            }
+        }
+    }
+
+    private long epochOf(long now) {
+        return (now / windowMillis) & EPOCH_MASK;
+    }
+
+    //state를 현재 window 기준으로 옮긴다 (바로 이전 window였으면 현재 횟수가 이전 횟수가 되고, 더 오래됐으면 0)
+    private static long roll(long state, long epoch) {
+        long stateEpoch = state >>> 32;
+        if (stateEpoch == epoch) {
+            return state;
+        }
+        long previous = stateEpoch == ((epoch - 1) & EPOCH_MASK) ? state & COUNT_MASK : 0;
+        return (epoch << 32) | (previous << 16);
+    }
+
+    private static long increment(long state) {
+        return (state & COUNT_MASK) == COUNT_MASK ? state : state + 1;
+    }
+
+    private double estimate(long state, long now) {
+        long previous = (state >>> 16) & COUNT_MASK;
+        long current = state & COUNT_MASK;
+        double previousWeight = (double) (windowMillis - now % windowMillis) / windowMillis;
+        return previous * previousWeight + current;
+    }
+
+    private static final class Window {
+        private final AtomicLong state = new AtomicLong();
+        private volatile long lockedUntil;
+        private volatile long lastAccess;
+    }
+}
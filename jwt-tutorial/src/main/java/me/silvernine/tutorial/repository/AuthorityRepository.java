@@ -0,0 +1,12 @@
+package me.silvernine.tutorial.repository;
+
+import me.silvernine.tutorial.entity.Authority;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface AuthorityRepository extends JpaRepository<Authority, String> {
+
+    //RoleRegistry가 권한 이름 순서로 bit를 정한다
+    List<Authority> findAllByOrderByAuthorityNameAsc();
+}
@@ -0,0 +1,12 @@
+package me.silvernine.tutorial.repository;
+
+import me.silvernine.tutorial.entity.JwtKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface JwtKeyRepository extends JpaRepository<JwtKey, String> {
+
+    //activates_at이 늦은 키가 먼저
+    List<JwtKey> findAllByOrderByActivatesAtDesc();
+}
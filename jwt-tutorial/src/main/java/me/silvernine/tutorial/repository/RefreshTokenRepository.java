@@ -0,0 +1,28 @@
+package me.silvernine.tutorial.repository;
+
+import me.silvernine.tutorial.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    //아직 사용되지 않은 토큰만 사용처리한다
+    //동시에 같은 토큰으로 두번 요청이 들어와도 한쪽만 1을 리턴받기 때문에 재사용을 감지할 수 있다
+    @Modifying
+    @Query("update RefreshToken r set r.used = true where r.refreshTokenId = :id and r.used = false")
+    int markUsed(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") long now);
+}
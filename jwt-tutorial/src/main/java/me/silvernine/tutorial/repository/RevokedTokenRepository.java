@@ -0,0 +1,21 @@
+package me.silvernine.tutorial.repository;
+
+import me.silvernine.tutorial.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    //서버 시작시에 아직 만료되지 않은 폐기 정보만 메모리로 올린다
+    List<RevokedToken> findByExpiresAtGreaterThan(long now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") long now);
+}
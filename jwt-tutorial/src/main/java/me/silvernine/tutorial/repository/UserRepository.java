@@ -1,9 +1,17 @@
 package me.silvernine.tutorial.repository;
 
+import me.silvernine.tutorial.config.CacheConfig;
+import me.silvernine.tutorial.dto.UserAccountRow;
+import me.silvernine.tutorial.dto.UserAuthorityRow;
 import me.silvernine.tutorial.entity.User;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 //User엔티티에 매핑되는 UserRepository인터페이스를 만듬
@@ -13,5 +21,35 @@ public interface UserRepository extends JpaRepository<User, Long> {
     //@EntityGraph는 쿼리가 수행될때 Lazy조회가 아니고,Eager조회로 authorities정보를 같이 가져옴
     @EntityGraph(attributePaths = "authorities")
     //username을 기준으로 User정보를 가져올때 권한 정보도 같이 가져옴
+    //수정해서 저장하는 경로에서 사용하므로 캐시하지 않는다 (읽기 전용 조회는 findAccountRowsByUsername)
     Optional<User> findOneWithAuthoritiesByUsername(String username);
+
+    //로그인, refresh에서 계속 호출되므로 username을 키로 캐시한다
+    //엔티티 대신 불변 projection을 캐시해서 캐시된 객체가 트랜잭션 밖에서 수정되는 일이 없다
+    //(리포지토리 프록시에서는 파라미터 이름을 알 수 없어서 #p0로 지정, 없는 유저는 캐시하지 않는다)
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#p0", unless = "#result.isEmpty()")
+    @Query("select new me.silvernine.tutorial.dto.UserAccountRow(u.username, u.password, u.nickname, u.activated, a.authorityName)"
+            + " from User u left join u.authorities a where u.username = :username")
+    List<UserAccountRow> findAccountRowsByUsername(@Param("username") String username);
+
+    //username, nickname, 권한 이름만 한번의 쿼리로 조회 (/api/user, /api/user/{username})
+    //엔티티(password 컬럼, 영속성 컨텍스트 스냅샷)를 만들지 않고 UserDto.fromRows로 합친다
+    //없는 유저(빈 결과)는 캐시하지 않는다
+    @Cacheable(cacheNames = CacheConfig.USER_INFO, key = "#p0", unless = "#result.isEmpty()")
+    @Query("select new me.silvernine.tutorial.dto.UserAuthorityRow(u.username, u.nickname, a.authorityName)"
+            + " from User u left join u.authorities a where u.username = :username")
+    List<UserAuthorityRow> findAuthorityRowsByUsername(@Param("username") String username);
+
+    //회원가입, 비밀번호 재해시, 권한 변경 등으로 저장될때 캐시를 지운다
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.USERS, CacheConfig.USER_INFO}, key = "#p0.username")
+    <S extends User> S save(S user);
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.USERS, CacheConfig.USER_INFO}, key = "#p0.username")
+    <S extends User> S saveAndFlush(S user);
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.USERS, CacheConfig.USER_INFO}, key = "#p0.username")
+    void delete(User user);
 }
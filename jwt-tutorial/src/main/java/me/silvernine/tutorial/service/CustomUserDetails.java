@@ -0,0 +1,38 @@
+package me.silvernine.tutorial.service;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+//CustomUserDetailsService가 리턴하는 UserDetails
+//로그인할때 읽은 프로필(nickname)과 그 시각(profileStamp)을 같이 가지고 있어서
+//TokenProvider가 DB를 다시 조회하지 않고 토큰의 nick, pst claim으로 넣는다
+public class CustomUserDetails extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String nickname;
+    //유저 정보를 조회하기 직전 시각 (epoch millis), 이 뒤에 바뀐 프로필은 토큰에 반영되지 않은 것
+    private final long profileStamp;
+
+    public CustomUserDetails(String username, String password, Collection<? extends GrantedAuthority> authorities,
+                             String nickname, long profileStamp) {
+        super(username, password, authorities);
+        this.nickname = nickname;
+        this.profileStamp = profileStamp;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public long getProfileStamp() {
+        return profileStamp;
+    }
+
+    //비밀번호 재해시(updatePassword) 후에도 프로필 정보를 유지
+    public CustomUserDetails withPassword(String password) {
+        return new CustomUserDetails(getUsername(), password, getAuthorities(), nickname, profileStamp);
+    }
+}
@@ -1,39 +1,72 @@
 package me.silvernine.tutorial.service;
 
-import me.silvernine.tutorial.entity.User;
+import me.silvernine.tutorial.dto.UserAccountRow;
+import me.silvernine.tutorial.metrics.AuthMetrics;
 import me.silvernine.tutorial.repository.UserRepository;
+import me.silvernine.tutorial.utils.AuthorityRegistry;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Component("userDetailsService")
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     //UserDetailsService를 implements하고 23번라인 userRepository를 주입받는다
     //29번 라인 UserDetailsService의 loadUserByUsername메소드를 오버라이드해서
-    //로그인 시에 30번라인 findOneWithAuthoritiesByUsername(username) DB에서 유저정보와 권한정보를 가져오게 된다
+    //로그인 시에 30번라인 findAccountRowsByUsername(username) DB(또는 users 캐시)에서 유저정보와 권한정보를 가져오게 된다
     private final UserRepository userRepository;
+    private final AuthMetrics authMetrics;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, AuthMetrics authMetrics) {
         this.userRepository = userRepository;
+        this.authMetrics = authMetrics;
     }
 
     @Override
     @Transactional
     public UserDetails loadUserByUsername(final String username) {
-        return userRepository.findOneWithAuthoritiesByUsername(username)
-                //36번라인 createUser 데이터베이스에서 가져온 정보를 기준으로
-                .map(user -> createUser(username, user))
-                .orElseThrow(() -> new UsernameNotFoundException(username + " -> 데이터베이스에서 찾을 수 없습니다."));
+        //조회 직전 시각을 프로필 시각으로 사용 (조회와 프로필 변경이 겹쳐도 변경된 쪽으로 판단된다)
+        long profileStamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        List<UserAccountRow> rows = userRepository.findAccountRowsByUsername(username);
+        authMetrics.recordUserLookup(start);
+
+        if (rows.isEmpty()) {
+            throw new UsernameNotFoundException(username + " -> 데이터베이스에서 찾을 수 없습니다.");
+        }
+        //36번라인 createUser 데이터베이스에서 가져온 정보를 기준으로
+        return createUser(username, rows, profileStamp);
+    }
+
+    //로그인에 성공했는데 저장된 해시의 알고리즘/cost가 현재 설정과 다르면 DaoAuthenticationProvider가 호출한다
+    //newPassword는 이미 현재 설정으로 해시된 값이다
+    //캐시되지 않는 엔티티 조회로 이 트랜잭션 안에서 수정하고, save의 @CacheEvict로 users 캐시의 이전 해시를 지운다
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.findOneWithAuthoritiesByUsername(userDetails.getUsername())
+                .ifPresent(user -> {
+                    user.setPassword(newPassword);
+                    userRepository.save(user);
+                });
+
+        if (userDetails instanceof CustomUserDetails) {
+            return ((CustomUserDetails) userDetails).withPassword(newPassword);
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
     }
 
-    private org.springframework.security.core.userdetails.User createUser(String username, User user) {
+    private CustomUserDetails createUser(String username, List<UserAccountRow> rows, long profileStamp) {
+        UserAccountRow user = rows.get(0);
         if (!user.isActivated()) {
             //36~37번라인 그 유저가 활성화 상태라면
             // 53번라인 권한정보들과, 48번라인 유저네임, 패스워드를 가지고
@@ -44,12 +77,18 @@ public class CustomUserDetailsService implements UserDetailsService {
             throw new RuntimeException(username + " -> 활성화되어 있지 않습니다.");
         }
 
-        List<GrantedAuthority> grantedAuthorities = user.getAuthorities().stream()
-                .map(authority -> new SimpleGrantedAuthority(authority.getAuthorityName()))
+        //행마다 권한 하나, 권한이 없는 유저는 authorityName이 null인 행 하나
+        List<GrantedAuthority> grantedAuthorities = rows.stream()
+                .map(UserAccountRow::getAuthorityName)
+                .filter(Objects::nonNull)
+                .map(AuthorityRegistry::of)
                 .collect(Collectors.toList());
 
-        return new org.springframework.security.core.userdetails.User(user.getUsername(),
+        //토큰에 nickname을 넣을 수 있도록 프로필 정보도 같이 담는다
+        return new CustomUserDetails(user.getUsername(),
                 user.getPassword(),
-                grantedAuthorities);
+                grantedAuthorities,
+                user.getNickname(),
+                profileStamp);
     }
 }
@@ -0,0 +1,97 @@
+package me.silvernine.tutorial.service;
+
+import me.silvernine.tutorial.exception.LoginOverloadedException;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import me.silvernine.tutorial.ratelimit.LoginRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class LoginService implements DisposableBean {//로그인(BCrypt 비교)을 전용 스레드풀에서 수행하기 위한 클래스
+    //BCrypt는 CPU를 많이 쓰기 때문에 로그인이 몰리면 Tomcat 스레드가 모두 BCrypt에 묶여서
+    ///api/hello 같은 가벼운 요청도 처리하지 못하게 된다
+    //그래서 로그인은 크기가 정해진 스레드풀(login.executor.pool-size)과 대기열(login.executor.queue-capacity)에서만 처리하고
+    //대기열이 가득차면 기다리지 않고 바로 LoginOverloadedException(503)으로 거절한다
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginService.class);
+
+    private final AuthenticationManagerBuilder authenticationManagerBuilder;
+    private final ThreadPoolExecutor loginExecutor;
+    private final AuthMetrics authMetrics;
+    private final LoginRateLimiter loginRateLimiter;
+
+    public LoginService(
+            AuthenticationManagerBuilder authenticationManagerBuilder,
+            AuthMetrics authMetrics,
+            LoginRateLimiter loginRateLimiter,
+            @Value("${login.executor.pool-size:0}") int poolSize,
+            @Value("${login.executor.queue-capacity:64}") int queueCapacity) {
+        this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.authMetrics = authMetrics;
+        this.loginRateLimiter = loginRateLimiter;
+
+        //pool-size를 지정하지 않으면 CPU 코어 수만큼 (BCrypt는 CPU 작업이라 코어 수보다 많아도 빨라지지 않는다)
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.loginExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    //username, password로 인증을 수행하는 작업을 로그인 스레드풀에 넣고 바로 리턴
+    //authenticate메소드가 실행될때 CustomUserDetailsService의 loadUserByUsername과 BCrypt 비교가 로그인 스레드에서 실행된다
+    public CompletableFuture<Authentication> authenticate(String username, String password) {
+        UsernamePasswordAuthenticationToken authenticationToken =
+                new UsernamePasswordAuthenticationToken(username, password);
+
+        long start = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> authenticationManagerBuilder.getObject().authenticate(authenticationToken),
+                    loginExecutor)
+                    .whenComplete((authentication, e) -> {
+                        authMetrics.recordLogin(start);
+                        //username별 실패 횟수는 LoginRateLimitFilter에서 다음 로그인 시도를 막는데 사용된다
+                        if (authentication != null) {
+                            loginRateLimiter.recordSuccess(username);
+                        } else if (unwrap(e) instanceof AuthenticationException) {
+                            loginRateLimiter.recordFailure(username);
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            authMetrics.recordLoginRejected();
+            logger.warn("로그인 대기열이 가득 차서 요청을 거절했습니다. username: {}", username);
+            throw new LoginOverloadedException("로그인 요청이 많아 잠시 후 다시 시도해주세요.", e);
+        }
+    }
+
+    //supplyAsync에서 던진 예외는 CompletionException으로 감싸져서 온다
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    @Override
+    public void destroy() {
+        loginExecutor.shutdown();
+    }
+}
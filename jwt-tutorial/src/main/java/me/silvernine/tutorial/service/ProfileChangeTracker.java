@@ -0,0 +1,50 @@
+package me.silvernine.tutorial.service;
+
+import me.silvernine.tutorial.exception.SharedStoreException;
+import me.silvernine.tutorial.store.SharedStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component //유저별 프로필(nickname, 권한)이 마지막으로 바뀐 시각
+//토큰의 pst claim(프로필을 읽은 시각)보다 늦게 바뀌었으면 토큰의 프로필은 오래된 것이므로 DB에서 다시 읽는다
+//- 바뀐 유저만 SharedStore에 저장하고, access 토큰 유효시간이 지나면 지운다
+//  (pst는 access 토큰을 만들때마다(로그인, refresh) 새로 찍으므로 그보다 오래된 pst를 가진 토큰은 남아있지 않다)
+//- 서버마다 시계가 조금씩 다를 수 있으므로 CLOCK_SKEW 안에 바뀐 경우도 오래된 것으로 본다
+//- store.type=local이면 재시작할때 기록이 사라진다 (그 전에 발급된 토큰은 바뀌기 전 프로필을 보여줄 수 있다)
+//프로필을 바꾸는 곳(UserService.updateMyProfile)에서는 커밋 후에 markChanged를 호출해야 한다
+public class ProfileChangeTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileChangeTracker.class);
+    private static final long CLOCK_SKEW_MILLIS = 1000;
+    private static final String KEY_PREFIX = "profile.changed:";
+
+    private final SharedStore sharedStore;
+    private final long retentionInMilliseconds;
+
+    public ProfileChangeTracker(
+            SharedStore sharedStore,
+            @Value("${jwt.token-validity-in-seconds}") long tokenValidityInSeconds) {
+        this.sharedStore = sharedStore;
+        this.retentionInMilliseconds = tokenValidityInSeconds * 1000 + CLOCK_SKEW_MILLIS;
+    }
+
+    public void markChanged(String username) {
+        try {
+            sharedStore.put(KEY_PREFIX + username, Long.toString(System.currentTimeMillis()), retentionInMilliseconds);
+        } catch (SharedStoreException e) {
+            logger.warn("'{}'의 프로필 변경을 기록하지 못했습니다: {}", username, e.getMessage());
+        }
+    }
+
+    //profileStamp(토큰의 pst) 뒤에 프로필이 바뀌지 않았으면 true, 확인할 수 없으면 false (DB에서 읽는다)
+    public boolean isCurrent(String username, long profileStamp) {
+        try {
+            String changedAt = sharedStore.get(KEY_PREFIX + username);
+            return changedAt == null || Long.parseLong(changedAt) < profileStamp - CLOCK_SKEW_MILLIS;
+        } catch (SharedStoreException e) {
+            return false;
+        }
+    }
+}
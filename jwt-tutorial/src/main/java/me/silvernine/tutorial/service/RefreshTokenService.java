@@ -0,0 +1,150 @@
+package me.silvernine.tutorial.service;
+
+import me.silvernine.tutorial.dto.TokenDto;
+import me.silvernine.tutorial.dto.UserAccountRow;
+import me.silvernine.tutorial.entity.RefreshToken;
+import me.silvernine.tutorial.exception.InvalidRefreshTokenException;
+import me.silvernine.tutorial.jwt.TokenProvider;
+import me.silvernine.tutorial.repository.RefreshTokenRepository;
+import me.silvernine.tutorial.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+public class RefreshTokenService {//refresh 토큰의 발급, 재발급(rotate), 재사용 감지를 담당
+    //로그인(/api/authenticate)시에 access 토큰과 함께 refresh 토큰을 발급하고
+    ///api/refresh 요청이 들어오면 refresh 토큰을 새것으로 바꾸면서(rotate) access 토큰을 다시 만들어준다
+    //이 과정에서 BCrypt 비교나 User 엔티티 조회는 일어나지 않는다
+    //활성화 여부, 권한, 프로필은 재발급할때마다 users 캐시의 projection에서 다시 읽는다 (비활성화, 권한 회수가 바로 반영된다)
+    //refresh_token 테이블은 모든 서버가 같은 DB 서버에서 공유하므로 다른 서버에서 발급된 토큰도 재발급할 수 있다
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final TokenProvider tokenProvider;
+    private final long refreshTokenValidityInMilliseconds;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            UserRepository userRepository,
+            TokenProvider tokenProvider,
+            @Value("${jwt.refresh-token-validity-in-seconds}") long refreshTokenValidityInSeconds) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenProvider = tokenProvider;
+        this.refreshTokenValidityInMilliseconds = refreshTokenValidityInSeconds * 1000;
+    }
+
+    @Transactional
+    //로그인에 성공한 authentication으로 새로운 family의 refresh 토큰을 발급
+    public String issue(Authentication authentication) {
+        return save(authentication.getName(),
+                UUID.randomUUID().toString(),
+                System.currentTimeMillis() + refreshTokenValidityInMilliseconds);
+    }
+
+    //재사용이 감지되어 family를 지우는 경우에도 커밋이 되어야 하므로 noRollbackFor를 지정
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public TokenDto refresh(String refreshToken) {
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("유효하지 않은 refresh 토큰입니다."));
+
+        if (stored.getExpiresAt() <= System.currentTimeMillis()) {
+            throw new InvalidRefreshTokenException("만료된 refresh 토큰입니다.");
+        }
+
+        //이미 사용된 refresh 토큰이 다시 들어왔다면 탈취된 것으로 보고 같은 family의 토큰을 모두 폐기
+        if (stored.isUsed() || refreshTokenRepository.markUsed(stored.getRefreshTokenId()) == 0) {
+            refreshTokenRepository.deleteByFamilyId(stored.getFamilyId());
+            logger.warn("재사용된 refresh 토큰이 감지되어 '{}'의 refresh 토큰을 폐기했습니다.", stored.getUsername());
+            throw new InvalidRefreshTokenException("이미 사용된 refresh 토큰입니다.");
+        }
+
+        //권한, 프로필(nick claim)은 로그인할때 값을 복사하지 않고 지금 다시 읽어서, 읽기 직전 시각을 pst로 넣는다
+        //(로그인할때의 pst를 그대로 넣으면 그 뒤에 바뀐 프로필이 refresh 토큰의 유효기간 내내 오래된 것으로 판단된다)
+        long profileStamp = System.currentTimeMillis();
+        List<UserAccountRow> rows = userRepository.findAccountRowsByUsername(stored.getUsername());
+        //삭제되었거나 비활성화된 유저는 더 이상 재발급하지 않는다
+        if (rows.isEmpty() || !rows.get(0).isActivated()) {
+            refreshTokenRepository.deleteByFamilyId(stored.getFamilyId());
+            throw new InvalidRefreshTokenException("활성화되어 있지 않은 유저의 refresh 토큰입니다.");
+        }
+        String authorities = rows.stream()
+                .map(UserAccountRow::getAuthorityName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(","));
+
+        //다시 읽은 권한정보로 access 토큰을 만들고, 같은 family로 새 refresh 토큰을 발급
+        //family의 만료시간은 처음 로그인할때 정해진 값을 그대로 유지한다
+        String accessToken = tokenProvider.createToken(stored.getUsername(), authorities,
+                rows.get(0).getNickname(), profileStamp);
+        String newRefreshToken = save(stored.getUsername(), stored.getFamilyId(), stored.getExpiresAt());
+
+        return new TokenDto(accessToken, newRefreshToken);
+    }
+
+    @Transactional
+    //로그아웃시에 refresh 토큰이 속한 family 전체를 폐기
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .ifPresent(stored -> refreshTokenRepository.deleteByFamilyId(stored.getFamilyId()));
+    }
+
+    @Transactional
+    //만료된 refresh 토큰은 재사용 감지에도 필요없으므로 주기적으로 삭제
+    @Scheduled(fixedDelayString = "${jwt.refresh-token-purge-interval-in-millis:3600000}")
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(System.currentTimeMillis());
+        if (deleted > 0) {
+            logger.debug("만료된 refresh 토큰 {}개를 삭제했습니다.", deleted);
+        }
+    }
+
+    private String save(String username, String familyId, long expiresAt) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(refreshToken))
+                .familyId(familyId)
+                .username(username)
+                .expiresAt(expiresAt)
+                .used(false)
+                .build());
+
+        return refreshToken;
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(refreshToken.getBytes(StandardCharsets.US_ASCII));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
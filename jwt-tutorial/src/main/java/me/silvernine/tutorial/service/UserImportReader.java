@@ -0,0 +1,182 @@
+package me.silvernine.tutorial.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.silvernine.tutorial.dto.UserDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+//일괄 가입 파일을 한 줄씩 읽어서 UserDto로 바꿔주는 Iterator
+//파일 전체를 메모리에 올리지 않고 스트림으로 읽는다
+//- NDJSON : 한 줄에 {"username":"..","password":"..","nickname":".."} 하나
+//- CSV    : username,password,nickname (RFC 4180, 첫 줄이 헤더면 건너뛴다)
+//           쉼표, 큰따옴표, 줄바꿈이 들어간 필드는 큰따옴표로 감싸고 안의 큰따옴표는 ""로 쓴다 (비밀번호에 쉼표가 있는 경우 등)
+//파싱에 실패한 줄은 예외를 던지지 않고 error가 채워진 Row로 돌려준다
+public class UserImportReader implements Iterator<UserImportReader.Row> {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format fromContentType(String contentType) {
+            return contentType != null && contentType.startsWith("text/csv") ? CSV : NDJSON;
+        }
+
+        public static Format fromFileName(String fileName) {
+            return fileName.toLowerCase().endsWith(".csv") ? CSV : NDJSON;
+        }
+    }
+
+    private static final String CSV_HEADER = "username,password,nickname";
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private long lineNumber;
+    private Row next;
+
+    public UserImportReader(InputStream inputStream, Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Row row = next;
+        next = null;
+        return row;
+    }
+
+    private Row readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (format == Format.CSV && lineNumber == 1 && line.trim().equalsIgnoreCase(CSV_HEADER)) {
+                    continue;
+                }
+                return format == Format.CSV ? parseCsv(line) : parseJson(line);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //따옴표 안에 줄바꿈이 있으면 다음 줄까지 이어서 읽는다, Row의 줄 번호는 레코드가 시작한 줄
+    private Row parseCsv(String line) throws IOException {
+        long startLine = lineNumber;
+        List<String> columns = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        //fieldQuoted: 지금 필드가 따옴표로 시작했는지, inQuotes: 아직 닫는 따옴표가 나오지 않았는지
+        boolean fieldQuoted = false;
+        boolean inQuotes = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!inQuotes) {
+                    break;
+                }
+                String nextLine = reader.readLine();
+                if (nextLine == null) {
+                    return new Row(startLine, null, "따옴표가 닫히지 않았습니다.");
+                }
+                lineNumber++;
+                field.append('\n');
+                line = nextLine;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (inQuotes) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == ',') {
+                columns.add(field.toString());
+                field.setLength(0);
+                fieldQuoted = false;
+            } else if (fieldQuoted) {
+                return new Row(startLine, null, "닫는 따옴표 뒤에는 쉼표나 줄의 끝이 와야 합니다.");
+            } else if (c == '"') {
+                if (field.length() > 0) {
+                    return new Row(startLine, null, "따옴표는 필드 전체를 감쌀때만 사용할 수 있습니다.");
+                }
+                fieldQuoted = true;
+                inQuotes = true;
+            } else {
+                field.append(c);
+            }
+        }
+        columns.add(field.toString());
+
+        if (columns.size() != 3) {
+            return new Row(startLine, null, "username,password,nickname 형식이 아닙니다.");
+        }
+        return new Row(startLine, UserDto.builder()
+                .username(columns.get(0).trim())
+                .password(columns.get(1))
+                .nickname(columns.get(2).trim())
+                .build(), null);
+    }
+
+    private Row parseJson(String line) {
+        try {
+            return new Row(lineNumber, objectMapper.readValue(line, UserDto.class), null);
+        } catch (JsonProcessingException e) {
+            return new Row(lineNumber, null, "JSON 형식이 아닙니다.");
+        }
+    }
+
+    public static final class Row {
+        private final long line;
+        private final UserDto user;
+        private final String error;
+
+        private Row(long line, UserDto user, String error) {
+            this.line = line;
+            this.user = user;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public UserDto getUser() {
+            return user;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
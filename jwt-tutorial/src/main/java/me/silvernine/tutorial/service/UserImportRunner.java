@@ -0,0 +1,41 @@
+package me.silvernine.tutorial.service;
+
+import me.silvernine.tutorial.dto.ImportResultDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+//서버 시작시에 파일로 일괄 가입을 수행
+//java -jar jwt-tutorial.jar --import.users.file=users.ndjson (확장자가 .csv면 CSV로 읽는다)
+@Component
+@ConditionalOnProperty("import.users.file")
+public class UserImportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportRunner.class);
+
+    private final UserImportService userImportService;
+    private final String file;
+
+    public UserImportRunner(UserImportService userImportService, @Value("${import.users.file}") String file) {
+        this.userImportService = userImportService;
+        this.file = file;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        logger.info("일괄 가입을 시작합니다: {}", file);
+        try (InputStream inputStream = Files.newInputStream(Paths.get(file))) {
+            ImportResultDto result = userImportService.importUsers(inputStream, UserImportReader.Format.fromFileName(file));
+            result.getErrors().forEach(error ->
+                    logger.warn("{}번째 줄 ({}) 실패: {}", error.getLine(), error.getUsername(), error.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package me.silvernine.tutorial.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.silvernine.tutorial.config.CacheConfig;
+import me.silvernine.tutorial.dto.ImportErrorDto;
+import me.silvernine.tutorial.dto.ImportResultDto;
+import me.silvernine.tutorial.dto.UserDto;
+import me.silvernine.tutorial.entity.User;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+@Service
+public class UserImportService implements DisposableBean {//대량의 회원을 한번에 가입시키는 클래스
+    //한 명씩 /api/signup을 호출하면 BCrypt, 중복 조회, INSERT가 모두 한 명씩 순서대로 실행되기 때문에
+    //입력을 batch-size 단위로 묶어서
+    //1. 검증 + 중복 확인 (묶음당 조회 1번)
+    //2. 비밀번호 해시를 CPU 코어 수만큼 병렬로 수행
+    //3. user_seq 시퀀스에서 id를 블록으로 받아서 JDBC batch INSERT
+    //순서로 처리하고, 실패한 행은 줄 번호와 이유를 결과에 담는다
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final String INSERT_USER =
+            "insert into \"user\" (user_id, username, password, nickname, activated) values (?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_AUTHORITY =
+            "insert into user_authority (user_id, authority_name) values (?, ?)";
+    private static final String SELECT_EXISTING_USERNAMES =
+            "select username from \"user\" where username in (:usernames)";
+    private static final String DEFAULT_AUTHORITY = "ROLE_USER";
+    private static final String DUPLICATE_MESSAGE = "이미 가입되어 있는 유저입니다.";
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final Cache userCache;
+    private final String nextIdSql;
+    private final int batchSize;
+    private final ForkJoinPool hashPool;
+
+    public UserImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            PasswordEncoder passwordEncoder,
+            Validator validator,
+            ObjectMapper objectMapper,
+            CacheManager cacheManager,
+            EntityManagerFactory entityManagerFactory,
+            @Value("${import.batch-size:1000}") int batchSize,
+            @Value("${import.hash-parallelism:0}") int hashParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.userCache = cacheManager.getCache(CacheConfig.USERS);
+        //시퀀스 호출 SQL은 DB마다 다르므로 Hibernate Dialect에서 가져온다
+        this.nextIdSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceNextValString(User.ID_SEQUENCE);
+        this.batchSize = batchSize;
+        this.hashPool = new ForkJoinPool(hashParallelism > 0 ? hashParallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public ImportResultDto importUsers(InputStream inputStream, UserImportReader.Format format) {
+        return importUsers(new UserImportReader(inputStream, format, objectMapper));
+    }
+
+    public ImportResultDto importUsers(Iterator<UserImportReader.Row> rows) {
+        Progress progress = new Progress();
+        List<UserImportReader.Row> chunk = new ArrayList<>(batchSize);
+
+        while (rows.hasNext()) {
+            UserImportReader.Row row = rows.next();
+            progress.total++;
+            if (row.getError() != null) {
+                progress.fail(row, row.getError());
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                importChunk(chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, progress);
+        }
+
+        logger.info("일괄 가입 완료: 전체 {}, 성공 {}, 실패 {}", progress.total, progress.imported, progress.failed);
+        return ImportResultDto.builder()
+                .total(progress.total)
+                .imported(progress.imported)
+                .failed(progress.failed)
+                .errors(progress.errors)
+                .build();
+    }
+
+    private void importChunk(List<UserImportReader.Row> chunk, Progress progress) {
+        List<UserImportReader.Row> rows = validate(chunk, progress);
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        //BCrypt는 CPU 작업이므로 전용 ForkJoinPool에서 병렬로 (공용 풀을 막지 않기 위함)
+        List<String> passwords = hashPool.submit(() -> rows.parallelStream()
+                .map(row -> passwordEncoder.encode(row.getUser().getPassword()))
+                .collect(Collectors.toList())).join();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(rows, passwords));
+            progress.imported += rows.size();
+        } catch (DataIntegrityViolationException e) {
+            //중복 확인 이후에 다른 요청이 같은 username으로 먼저 가입한 경우, 이 묶음만 한 행씩 다시 넣는다
+            for (int i = 0; i < rows.size(); i++) {
+                UserImportReader.Row row = rows.get(i);
+                String password = passwords.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            insert(Collections.singletonList(row), Collections.singletonList(password)));
+                    progress.imported++;
+                } catch (DataIntegrityViolationException violation) {
+                    if (!UserService.isDuplicateUsername(violation)) {
+                        throw violation;
+                    }
+                    progress.fail(row, DUPLICATE_MESSAGE);
+                }
+            }
+        }
+
+        //없는 유저로 캐시되어 있었을 수도 있으므로 캐시를 지운다
+        if (userCache != null) {
+            rows.forEach(row -> userCache.evict(row.getUser().getUsername()));
+        }
+    }
+
+    //Bean Validation(UserDto의 @NotNull, @Size), 묶음 안의 중복, DB의 중복을 확인하고 통과한 행만 리턴
+    private List<UserImportReader.Row> validate(List<UserImportReader.Row> chunk, Progress progress) {
+        List<UserImportReader.Row> rows = new ArrayList<>(chunk.size());
+        Set<String> usernames = new HashSet<>();
+
+        for (UserImportReader.Row row : chunk) {
+            Set<ConstraintViolation<UserDto>> violations = validator.validate(row.getUser());
+            if (!violations.isEmpty()) {
+                progress.fail(row, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            } else if (!usernames.add(row.getUser().getUsername())) {
+                progress.fail(row, "파일 안에서 중복된 username입니다.");
+            } else {
+                rows.add(row);
+            }
+        }
+
+        if (rows.isEmpty()) {
+            return rows;
+        }
+
+        Set<String> existing = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                SELECT_EXISTING_USERNAMES, Collections.singletonMap("usernames", usernames), String.class));
+        if (existing.isEmpty()) {
+            return rows;
+        }
+
+        List<UserImportReader.Row> newRows = new ArrayList<>(rows.size());
+        for (UserImportReader.Row row : rows) {
+            if (existing.contains(row.getUser().getUsername())) {
+                progress.fail(row, DUPLICATE_MESSAGE);
+            } else {
+                newRows.add(row);
+            }
+        }
+        return newRows;
+    }
+
+    private void insert(List<UserImportReader.Row> rows, List<String> passwords) {
+        long[] ids = allocateIds(rows.size());
+
+        List<Object[]> users = new ArrayList<>(rows.size());
+        List<Object[]> userAuthorities = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            UserDto user = rows.get(i).getUser();
+            users.add(new Object[]{ids[i], user.getUsername(), passwords.get(i), user.getNickname(), true});
+            userAuthorities.add(new Object[]{ids[i], DEFAULT_AUTHORITY});
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_USER, users);
+        jdbcTemplate.batchUpdate(INSERT_USER_AUTHORITY, userAuthorities);
+    }
+
+    //JPA(pooled optimizer)와 같은 규칙으로 시퀀스 값 하나당 ID_ALLOCATION_SIZE개의 id를 사용한다
+    //시퀀스가 hi를 돌려주면 (hi - ID_ALLOCATION_SIZE, hi] 구간이 이 호출의 id 블록
+    private long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            Long hi = jdbcTemplate.queryForObject(nextIdSql, Long.class);
+            for (long id = Math.max(1, hi - User.ID_ALLOCATION_SIZE + 1); id <= hi && filled < count; id++) {
+                ids[filled++] = id;
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public void destroy() {
+        hashPool.shutdown();
+    }
+
+    private static final class Progress {
+        private long total;
+        private long imported;
+        private long failed;
+        private final List<ImportErrorDto> errors = new ArrayList<>();
+
+        private void fail(UserImportReader.Row row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ImportErrorDto.builder()
+                        .line(row.getLine())
+                        .username(row.getUser() != null ? row.getUser().getUsername() : null)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+}
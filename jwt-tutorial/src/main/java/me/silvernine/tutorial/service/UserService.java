@@ -1,55 +1,122 @@
 package me.silvernine.tutorial.service;
 
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
+import me.silvernine.tutorial.config.CacheConfig;
+import me.silvernine.tutorial.dto.AuthorityDto;
+import me.silvernine.tutorial.dto.ProfileDto;
 import me.silvernine.tutorial.dto.UserDto;
 import me.silvernine.tutorial.entity.Authority;
 import me.silvernine.tutorial.entity.User;
 import me.silvernine.tutorial.exception.DuplicateMemberException;
 import me.silvernine.tutorial.exception.NotFoundMemberException;
+import me.silvernine.tutorial.jwt.JwtAuthentication;
 import me.silvernine.tutorial.repository.UserRepository;
 import me.silvernine.tutorial.utils.SecurityUtil;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class UserService {//회원가입, 유저정보조회 등의 메소드를 만들기 위한 클래스
+    //회원가입한 유저가 기본으로 가지는 권한
+    //ManyToMany 연관관계에서는 authority_name(id)만 사용되므로 요청마다 만들지 않고 같은 객체를 사용한다
+    private static final Set<Authority> DEFAULT_AUTHORITIES = Collections.singleton(
+            Authority.builder().authorityName("ROLE_USER").build());
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ProfileChangeTracker profileChangeTracker;
+    private final CacheManager cacheManager;
 
     //UserService는 userRepository와 passwordEncoder를 주입받는다
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ProfileChangeTracker profileChangeTracker, CacheManager cacheManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.profileChangeTracker = profileChangeTracker;
+        this.cacheManager = cacheManager;
     }
 
     @Transactional
     //회원가입 로직을 수행하는 메소드
-    //파라미터로 받은 UserDto안에 getUsername()을 기준으로 해서
-    //33번라인 findOneWithAuthoritiesByUsername 이미 DataBase에 이 유저네임으로 정해져 있는 정보가 있는지 먼지 찾아보고
+    //이미 가입된 유저네임인지 먼저 조회하지 않고 바로 INSERT한다
+    //user.username의 unique 제약조건(User.USERNAME_INDEX)에 걸리면 DuplicateMemberException으로 바꿔서 던진다
+    //다른 제약조건 위반(컬럼 길이 등)은 중복 가입이 아니므로 그대로 던진다
+    //(조회 쿼리가 줄고, 조회와 INSERT 사이에 같은 유저네임으로 가입하는 경쟁 상황도 생기지 않는다)
     public UserDto signup(UserDto userDto) {
-        if (userRepository.findOneWithAuthoritiesByUsername(userDto.getUsername()).orElse(null) != null) {
-            throw new DuplicateMemberException("이미 가입되어 있는 유저입니다.");
-        }
-        //해당 유저네임이 없으면 권한정보를 만들고
-        Authority authority = Authority.builder()
-                .authorityName("ROLE_USER")
-                .build();
-        //위에 있는 권한정보를 가지고 유저정보도 만들어서
+        //기본 권한정보(ROLE_USER)를 가지고 유저정보를 만들어서
         User user = User.builder()
                 .username(userDto.getUsername())
                 .password(passwordEncoder.encode(userDto.getPassword()))
                 .nickname(userDto.getNickname())
-                .authorities(Collections.singleton(authority))
+                .authorities(DEFAULT_AUTHORITIES)
                 .activated(true)
                 .build();
-        //유저 레포지토리에 save메소드를 통해 DB에 저장
+        //유저 레포지토리에 saveAndFlush메소드를 통해 DB에 저장 (제약조건 위반을 여기서 바로 확인하기 위해 flush)
         //여기서 중요한 점은 signup메소드를 통해 가입한 회원은
-        // 37번라인에 ROLE_USER를 가지고 있고
+        // DEFAULT_AUTHORITIES의 ROLE_USER를 가지고 있고
         //data.sql에서 자동 생성되는 admin계정은 USER, ADMIN ROLE을 가지고 있다
         //이 차이는 권한 검증부분에서 테스트한다
-        return UserDto.from(userRepository.save(user));
+        try {
+            return UserDto.from(userRepository.saveAndFlush(user));
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateUsername(e)) {
+                throw new DuplicateMemberException("이미 가입되어 있는 유저입니다.", e);
+            }
+            throw e;
+        }
+    }
+
+    //예외의 원인 중에 username unique 인덱스 이름이 있는지 확인
+    //제약조건 이름을 꺼내는 방법이 DB마다 다르므로 (Hibernate의 constraintName, JDBC 메세지) 둘 다 본다
+    static boolean isDuplicateUsername(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String constraintName = cause instanceof ConstraintViolationException
+                    ? ((ConstraintViolationException) cause).getConstraintName() : null;
+            if (containsUsernameIndex(constraintName) || containsUsernameIndex(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsUsernameIndex(String text) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(User.USERNAME_INDEX);
+    }
+
+    @Transactional
+    //로그인한 유저의 nickname을 바꾼다
+    //이미 발급된 토큰의 nick claim은 바뀌기 전 값이므로 ProfileChangeTracker에 기록해서 /api/user가 DB에서 읽도록 한다
+    //커밋 전에 기록하면 그 사이에 로그인한 토큰이 바뀌기 전 nickname을 최신으로 가지고 있게 되므로 커밋 후에 기록한다
+    //save의 @CacheEvict는 커밋 전이라 그 사이에 바뀌기 전 값이 다시 캐시될 수 있으므로, 기록하기 전에 캐시를 한번 더 지운다
+    //(그러면 바뀌기 전 값으로 찍힌 pst는 모두 기록된 시각보다 앞선다)
+    public UserDto updateMyProfile(ProfileDto profileDto) {
+        String username = SecurityUtil.getCurrentUsername()
+                .orElseThrow(() -> new NotFoundMemberException("Member not found"));
+        User user = userRepository.findOneWithAuthoritiesByUsername(username)
+                .orElseThrow(() -> new NotFoundMemberException("Member not found"));
+        user.setNickname(profileDto.getNickname());
+        //save의 @CacheEvict로 users, userInfo 캐시도 지워진다
+        User saved = userRepository.save(user);
+        afterCommit(() -> {
+            evict(CacheConfig.USERS, username);
+            evict(CacheConfig.USER_INFO, username);
+            profileChangeTracker.markChanged(username);
+        });
+        return UserDto.from(saved);
     }
     //유저와 권한 정보를 가져오는 메소드 2개
     //2개의 메소드를 허용권한을 다르게해서 권한검증에 대한 부분 테스트할 것임
@@ -57,18 +124,60 @@ public class UserService {//회원가입, 유저정보조회 등의 메소드를
     //getUserWithAuthorities는 username을 파라미터로 받아서
     //어떠한 유저네임이든 username에 해당하는
     // 유저객체와 권한정보를 가져올 수 있는 메소드 findOneWithAuthoritiesByUsername
+    //엔티티 대신 (유저, 권한) 행 projection을 읽어서 UserDto로 합친다
     public UserDto getUserWithAuthorities(String username) {
-        return UserDto.from(userRepository.findOneWithAuthoritiesByUsername(username).orElse(null));
+        return UserDto.fromRows(userRepository.findAuthorityRowsByUsername(username));
     }
 
-    @Transactional(readOnly = true)
     //getMyUserWithAuthorities는
     // 현재 SecurityContext에 저장이 되어있는 유저네임getCurrentUsername에 해당하는
     //findOneWithAuthoritiesByUsername 유저네임과 권한정보만 반환할 수 있다
+    //토큰에 프로필(nick, pst claim)이 있고 그 뒤에 바뀌지 않았으면 SecurityContext의 인증정보만으로 응답한다 (DB 조회 없음)
+    //아니면 기존과 같이 DB(또는 userInfo 캐시)에서 읽는다
+    //claims로 응답할때 커넥션을 빌리지 않도록 트랜잭션을 열지 않는다 (DB 조회는 리포지토리의 readOnly 트랜잭션)
     public UserDto getMyUserWithAuthorities() {
-        return UserDto.from(SecurityUtil.getCurrentUsername()
-                        .flatMap(userRepository::findOneWithAuthoritiesByUsername)
-                        .orElseThrow(() -> new NotFoundMemberException("Member not found"))
-        );
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthentication) {
+            JwtAuthentication jwtAuthentication = (JwtAuthentication) authentication;
+            if (jwtAuthentication.getNickname() != null
+                    && profileChangeTracker.isCurrent(jwtAuthentication.getName(), jwtAuthentication.getProfileStamp())) {
+                return fromClaims(jwtAuthentication);
+            }
+        }
+        return SecurityUtil.getCurrentUsername()
+                .map(username -> UserDto.fromRows(userRepository.findAuthorityRowsByUsername(username)))
+                .orElseThrow(() -> new NotFoundMemberException("Member not found"));
+    }
+
+    private void evict(String cacheName, String username) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(username);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static UserDto fromClaims(JwtAuthentication authentication) {
+        Set<AuthorityDto> authorityDtoSet = new HashSet<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            authorityDtoSet.add(AuthorityDto.builder().authorityName(authority.getAuthority()).build());
+        }
+        return UserDto.builder()
+                .username(authentication.getName())
+                .nickname(authentication.getNickname())
+                .authorityDtoSet(authorityDtoSet)
+                .build();
     }
 }
@@ -0,0 +1,142 @@
+package me.silvernine.tutorial.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+//프로세스 안에서만 공유되는 SharedStore (store.type=local)
+//SharedStoreServer도 이 클래스에 데이터를 저장한다
+//만료된 키는 읽을때 무시하고, 쓰기가 PURGE_INTERVAL번 일어날때마다 한번에 지운다
+public class LocalSharedStore implements SharedStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalSharedStore.class);
+    private static final int PURGE_INTERVAL = 4096;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private final AtomicInteger writes = new AtomicInteger();
+
+    @Override
+    public String get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null || entry.isExpired(System.currentTimeMillis()) ? null : entry.value;
+    }
+
+    @Override
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<String, String> values = new HashMap<>();
+        for (String key : keys) {
+            String value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    //만료되지 않은 항목, 없으면 null (SharedStoreServer가 값과 만료시각을 한번에 읽을때 사용)
+    Entry lookup(String key) {
+        Entry entry = entries.get(key);
+        return entry == null || entry.isExpired(System.currentTimeMillis()) ? null : entry;
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+        entries.put(key, new Entry(value, expiresAt(ttlMillis)));
+        afterWrite();
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, String value, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        Entry created = new Entry(value, expiresAt(ttlMillis));
+        boolean[] stored = new boolean[1];
+        entries.compute(key, (k, entry) -> {
+            if (entry != null && !entry.isExpired(now)) {
+                return entry;
+            }
+            stored[0] = true;
+            return created;
+        });
+        afterWrite();
+        return stored[0];
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public long increment(String key, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        Entry updated = entries.compute(key, (k, entry) -> entry == null || entry.isExpired(now)
+                ? new Entry("1", expiresAt(ttlMillis))
+                : new Entry(Long.toString(Long.parseLong(entry.value) + 1), entry.expiresAt));
+        afterWrite();
+        return Long.parseLong(updated.value);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        List<Consumer<String>> channelListeners = listeners.get(channel);
+        if (channelListeners == null) {
+            return;
+        }
+        for (Consumer<String> listener : channelListeners) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                logger.warn("'{}' 채널 메세지 처리중 오류가 발생했습니다.", channel, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listeners.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private void afterWrite() {
+        if (writes.incrementAndGet() % PURGE_INTERVAL == 0) {
+            purgeExpired();
+        }
+    }
+
+    private static long expiresAt(long ttlMillis) {
+        return ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0;
+    }
+
+    static final class Entry {
+        final String value;
+        //epoch millis, 0이면 만료되지 않음
+        final long expiresAt;
+
+        private Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != 0 && expiresAt <= now;
+        }
+    }
+}
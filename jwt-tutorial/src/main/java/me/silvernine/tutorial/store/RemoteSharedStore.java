@@ -0,0 +1,484 @@
+package me.silvernine.tutorial.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import me.silvernine.tutorial.exception.SharedStoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+//SharedStoreServer에 접속하는 SharedStore (store.type=remote, embedded)
+//- 연결은 하나만 사용하고, 요청은 응답을 기다리지 않고 보낸다 (pipelining)
+//  writer 스레드가 쌓인 요청을 한번의 flush로 보내므로(batching) 동시에 많은 요청이 와도 write 횟수가 늘지 않는다
+//- get으로 읽은 값은 near-cache에 두고, 서버가 그 키가 바뀌었다고 push하면 지운다 (다른 서버가 바꿔도 무효화됨)
+//  near-cache는 응답과 push를 받는 reader 스레드에서만 채우므로 무효화 push가 응답보다 먼저 처리되는 일은 없다
+//- 연결이 끊기면 대기중인 요청은 SharedStoreException으로 실패하고, near-cache를 비운 뒤 다음 요청에서 다시 접속한다
+//- 접속할때 서버가 보낸 nonce에 store.secret으로 응답한다 (StoreProtocol)
+public class RemoteSharedStore implements SharedStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteSharedStore.class);
+    private static final int MAX_BATCH = 256;
+    //접속에 실패하면 이 시간 동안은 다시 시도하지 않고 바로 실패
+    private static final long RECONNECT_BACKOFF_MILLIS = 1000;
+
+    private final String host;
+    private final int port;
+    private final String secret;
+    private final long timeoutMillis;
+    private final Cache<String, NearEntry> nearCache;
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private final ExecutorService eventExecutor;
+    private final AtomicInteger requestIds = new AtomicInteger();
+
+    private volatile Connection connection;
+    private volatile boolean closed;
+    private long lastConnectFailure;
+
+    //nearCacheSize가 0이면 near-cache를 사용하지 않는다
+    public RemoteSharedStore(String host, int port, String secret, long timeoutMillis, int nearCacheSize) {
+        this.host = host;
+        this.port = port;
+        this.secret = StoreProtocol.requireSecret(secret);
+        this.timeoutMillis = timeoutMillis;
+        this.nearCache = nearCacheSize > 0 ? Caffeine.newBuilder().maximumSize(nearCacheSize).build() : null;
+        this.eventExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shared-store-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String get(String key) {
+        NearEntry cached = nearCache == null ? null : nearCache.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached.value;
+        }
+        return call(StoreProtocol.GET, out -> out.writeUTF(key), in -> readValue(in, key));
+    }
+
+    @Override
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<String, String> values = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String key : keys) {
+            NearEntry cached = nearCache == null ? null : nearCache.getIfPresent(key);
+            if (cached == null || cached.isExpired()) {
+                misses.add(key);
+            } else if (cached.value != null) {
+                values.put(key, cached.value);
+            }
+        }
+        //서버가 받는 최대 키 수 단위로 나눠서 조회
+        for (int from = 0; from < misses.size(); from += StoreProtocol.MAX_KEYS_PER_REQUEST) {
+            List<String> chunk = misses.subList(from, Math.min(from + StoreProtocol.MAX_KEYS_PER_REQUEST, misses.size()));
+            values.putAll(call(StoreProtocol.GET_ALL, out -> {
+                out.writeInt(chunk.size());
+                for (String key : chunk) {
+                    out.writeUTF(key);
+                }
+            }, in -> {
+                Map<String, String> result = new HashMap<>();
+                for (String key : chunk) {
+                    String value = readValue(in, key);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                }
+                return result;
+            }));
+        }
+        return values;
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+        invalidateNearCache(key);
+        call(StoreProtocol.PUT, out -> {
+            out.writeUTF(key);
+            out.writeUTF(value);
+            out.writeLong(ttlMillis);
+        }, in -> null);
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, String value, long ttlMillis) {
+        invalidateNearCache(key);
+        return call(StoreProtocol.PUT_IF_ABSENT, out -> {
+            out.writeUTF(key);
+            out.writeUTF(value);
+            out.writeLong(ttlMillis);
+        }, DataInputStream::readBoolean);
+    }
+
+    @Override
+    public void delete(String key) {
+        invalidateNearCache(key);
+        call(StoreProtocol.DELETE, out -> out.writeUTF(key), in -> null);
+    }
+
+    @Override
+    public long increment(String key, long ttlMillis) {
+        invalidateNearCache(key);
+        return call(StoreProtocol.INCREMENT, out -> {
+            out.writeUTF(key);
+            out.writeLong(ttlMillis);
+        }, DataInputStream::readLong);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        call(StoreProtocol.PUBLISH, out -> {
+            out.writeUTF(channel);
+            out.writeUTF(message);
+        }, in -> null);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        boolean first = listeners.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).isEmpty();
+        listeners.get(channel).add(listener);
+        if (first) {
+            //연결되어 있지 않으면 접속할때 구독된다
+            try {
+                call(StoreProtocol.SUBSCRIBE, out -> out.writeUTF(channel), in -> null);
+            } catch (SharedStoreException e) {
+                logger.warn("'{}' 채널 구독을 접속할때로 미룹니다: {}", channel, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection current = connection;
+        if (current != null) {
+            current.fail(new IOException("closed"));
+        }
+        eventExecutor.shutdown();
+    }
+
+    private <T> T call(byte op, Writer writer, Reader<T> reader) {
+        Request<T> request = new Request<>(nextRequestId(), op, writer, reader);
+        connection().send(request);
+        try {
+            return request.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new SharedStoreException("공유 저장소 응답 시간이 초과되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof SharedStoreException
+                    ? (SharedStoreException) e.getCause()
+                    : new SharedStoreException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SharedStoreException(e);
+        }
+    }
+
+    private int nextRequestId() {
+        //0은 push에서 사용
+        int id;
+        do {
+            id = requestIds.incrementAndGet() & Integer.MAX_VALUE;
+        } while (id == StoreProtocol.PUSH_ID);
+        return id;
+    }
+
+    private Connection connection() {
+        Connection current = connection;
+        if (current != null && !current.failed) {
+            return current;
+        }
+        synchronized (this) {
+            if (connection != null && !connection.failed) {
+                return connection;
+            }
+            if (closed) {
+                throw new SharedStoreException("공유 저장소 연결이 닫혔습니다.");
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastConnectFailure < RECONNECT_BACKOFF_MILLIS) {
+                throw new SharedStoreException("공유 저장소에 접속할 수 없습니다: " + host + ":" + port);
+            }
+            try {
+                Connection created = new Connection();
+                connection = created;
+                //다시 접속한 경우 구독을 복구 (응답은 기다리지 않는다)
+                for (String channel : listeners.keySet()) {
+                    created.send(new Request<>(nextRequestId(), StoreProtocol.SUBSCRIBE,
+                            out -> out.writeUTF(channel), in -> null));
+                }
+                logger.info("공유 저장소에 접속했습니다. {}:{}", host, port);
+                return created;
+            } catch (IOException e) {
+                lastConnectFailure = now;
+                throw new SharedStoreException("공유 저장소에 접속할 수 없습니다: " + host + ":" + port, e);
+            }
+        }
+    }
+
+    //reader 스레드에서만 호출
+    private String readValue(DataInputStream in, String key) throws IOException {
+        String value = null;
+        long expiresAt = 0;
+        if (in.readBoolean()) {
+            value = in.readUTF();
+            long ttlMillis = in.readLong();
+            expiresAt = ttlMillis == 0 ? 0 : System.currentTimeMillis() + ttlMillis;
+        }
+        if (nearCache != null) {
+            nearCache.put(key, new NearEntry(value, expiresAt));
+        }
+        return value;
+    }
+
+    private void invalidateNearCache(String key) {
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+        }
+    }
+
+    private void dispatch(String channel, String message) {
+        List<Consumer<String>> channelListeners = listeners.get(channel);
+        if (channelListeners == null) {
+            return;
+        }
+        eventExecutor.execute(() -> {
+            for (Consumer<String> listener : channelListeners) {
+                try {
+                    listener.accept(message);
+                } catch (RuntimeException e) {
+                    logger.warn("'{}' 채널 메세지 처리중 오류가 발생했습니다.", channel, e);
+                }
+            }
+        });
+    }
+
+    private interface Writer {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T readFrom(DataInputStream in) throws IOException;
+    }
+
+    private static final class Request<T> {
+        private final int id;
+        private final byte op;
+        private final Writer writer;
+        private final Reader<T> reader;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Request(int id, byte op, Writer writer, Reader<T> reader) {
+            this.id = id;
+            this.op = op;
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        //reader 스레드에서 응답을 읽어서 완료
+        private void complete(DataInputStream in) throws IOException {
+            future.complete(reader.readFrom(in));
+        }
+    }
+
+    private static final class NearEntry {
+        private final String value;
+        private final long expiresAt;
+
+        private NearEntry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return expiresAt != 0 && expiresAt <= System.currentTimeMillis();
+        }
+    }
+
+    private final class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final BlockingQueue<Request<?>> outbound = new LinkedBlockingQueue<>();
+        private final Map<Integer, Request<?>> pending = new ConcurrentHashMap<>();
+        private volatile boolean failed;
+
+        private Connection() throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), (int) timeoutMillis);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            authenticate();
+            start(this::writeLoop, "shared-store-writer");
+            start(this::readLoop, "shared-store-reader");
+        }
+
+        //서버의 nonce에 HMAC(secret, nonce)로 응답, secret이 틀리면 서버가 연결을 끊는다
+        private void authenticate() throws IOException {
+            try {
+                socket.setSoTimeout((int) timeoutMillis);
+                byte[] nonce = new byte[StoreProtocol.NONCE_LENGTH];
+                in.readFully(nonce);
+                out.write(StoreProtocol.authenticate(secret, nonce));
+                out.flush();
+                if (in.readByte() != StoreProtocol.OK) {
+                    throw new IOException("공유 저장소 인증에 실패했습니다.");
+                }
+                socket.setSoTimeout(0);
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        private void send(Request<?> request) {
+            pending.put(request.id, request);
+            outbound.add(request);
+            if (failed) {
+                //fail과 동시에 들어온 요청
+                pending.remove(request.id);
+                request.future.completeExceptionally(new SharedStoreException("공유 저장소 연결이 끊어졌습니다."));
+            }
+        }
+
+        private void writeLoop() {
+            List<Request<?>> batch = new ArrayList<>(MAX_BATCH);
+            try {
+                while (true) {
+                    Request<?> first = outbound.take();
+                    if (failed) {
+                        return;
+                    }
+                    batch.add(first);
+                    outbound.drainTo(batch, MAX_BATCH - 1);
+                    for (Request<?> request : batch) {
+                        out.writeInt(request.id);
+                        out.writeByte(request.op);
+                        request.writer.writeTo(out);
+                    }
+                    out.flush();
+                    batch.clear();
+                }
+            } catch (IOException e) {
+                fail(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(new IOException(e));
+            }
+        }
+
+        private void readLoop() {
+            try {
+                while (!failed) {
+                    int id = in.readInt();
+                    if (id == StoreProtocol.PUSH_ID) {
+                        readPush();
+                        continue;
+                    }
+                    Request<?> request = pending.remove(id);
+                    if (request == null) {
+                        //응답 내용의 형식을 알 수 없으므로 더 읽을 수 없다
+                        throw new IOException("알 수 없는 응답입니다: " + id);
+                    }
+                    if (in.readByte() == StoreProtocol.ERROR) {
+                        request.future.completeExceptionally(new SharedStoreException(in.readUTF()));
+                    } else {
+                        request.complete(in);
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void readPush() throws IOException {
+            byte kind = in.readByte();
+            switch (kind) {
+                case StoreProtocol.PUSH_MESSAGE:
+                    dispatch(in.readUTF(), in.readUTF());
+                    break;
+                case StoreProtocol.PUSH_INVALIDATE:
+                    invalidateNearCache(in.readUTF());
+                    break;
+                case StoreProtocol.PUSH_INVALIDATE_ALL:
+                    if (nearCache != null) {
+                        nearCache.invalidateAll();
+                    }
+                    break;
+                default:
+                    throw new IOException("알 수 없는 push입니다: " + kind);
+            }
+        }
+
+        private void fail(IOException cause) {
+            synchronized (this) {
+                if (failed) {
+                    return;
+                }
+                failed = true;
+            }
+            if (!closed) {
+                logger.warn("공유 저장소 연결이 끊어졌습니다: {}", cause.getMessage());
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                //이미 닫힌 연결
+            }
+            //끊어진 동안의 무효화 push를 받지 못했으므로 near-cache를 믿을 수 없다
+            if (nearCache != null) {
+                nearCache.invalidateAll();
+            }
+            SharedStoreException exception = new SharedStoreException("공유 저장소 연결이 끊어졌습니다.", cause);
+            for (Request<?> request : pending.values()) {
+                request.future.completeExceptionally(exception);
+            }
+            pending.clear();
+            outbound.clear();
+            synchronized (RemoteSharedStore.this) {
+                if (connection == this) {
+                    connection = null;
+                }
+            }
+            //writer가 take에서 기다리고 있으면 깨운다
+            outbound.add(new Request<>(0, (byte) 0, o -> { }, i -> null));
+        }
+
+        private void start(Runnable runnable, String name) {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package me.silvernine.tutorial.store;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+//여러 서버가 공유해야 하는 인증 상태(토큰 폐기, 캐시 무효화, 로그인 시도 횟수 등)를 위한 저장소
+//- LocalSharedStore  : 프로세스 안에서만 공유 (서버 1대, 기본값)
+//- RemoteSharedStore : SharedStoreServer에 TCP로 접속해서 모든 서버가 공유 (store.type=remote, embedded)
+//값은 문자열, ttlMillis가 0이면 만료되지 않는다
+//publish한 메세지는 publish한 서버를 포함해서 구독중인 모든 서버에 전달된다
+public interface SharedStore extends Closeable {
+
+    //없으면 null
+    String get(String key);
+
+    //여러 키를 한번에 조회, 없는 키는 결과에서 빠진다
+    Map<String, String> getAll(Collection<String> keys);
+
+    void put(String key, String value, long ttlMillis);
+
+    //키가 없을때만 저장하고 true
+    boolean putIfAbsent(String key, String value, long ttlMillis);
+
+    void delete(String key);
+
+    //1 증가시킨 값을 리턴, 키가 없으면 ttlMillis로 새로 만든다 (증가할때 ttl은 연장되지 않는다)
+    long increment(String key, long ttlMillis);
+
+    void publish(String channel, String message);
+
+    //listener는 저장소의 이벤트 스레드에서 호출되므로 오래 걸리는 작업을 하면 안된다
+    void subscribe(String channel, Consumer<String> listener);
+
+    //다른 서버와 공유되는 저장소인지 (false면 이 프로세스 안에서만 유효)
+    boolean isShared();
+
+    @Override
+    default void close() {
+    }
+}
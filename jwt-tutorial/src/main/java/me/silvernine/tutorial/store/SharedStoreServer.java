@@ -0,0 +1,428 @@
+package me.silvernine.tutorial.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//RemoteSharedStore가 접속하는 공유 저장소 서버
+//- 데이터는 LocalSharedStore에 저장하고, 연결마다 워커 하나가 요청을 순서대로 처리한다
+//  워커 풀은 maxConnections개로 제한되고, 넘는 연결은 바로 끊는다
+//- 접속하면 store.secret으로 nonce에 응답해야 요청을 받는다 (StoreProtocol), 응답이 틀리면 연결을 끊는다
+//- 읽을 요청이 더 남아있으면 응답을 버퍼에 모아두었다가 한번에 flush한다 (pipelining된 요청을 한번의 write로 응답)
+//- 연결마다 GET으로 읽어간 키를 기억해두고, 그 키가 바뀌면 해당 연결에만 무효화 push를 보낸다 (near-cache 무효화)
+//  push는 연결별 대기열에 넣고 그 연결의 push 작업이 쓰므로, 느린 연결이 다른 연결의 요청 처리를 막지 않는다
+//  대기열이 MAX_PENDING_PUSHES를 넘으면 그 연결을 끊는다 (클라이언트는 끊기면 near-cache를 비운다)
+//- store.type=embedded이면 앱 안에서 이 서버를 띄우고 자기 자신에 접속한다 (테스트, 개발용 대역)
+//  여러 서버를 운영할때는 별도 프로세스로 띄운다: STORE_SECRET=... java -cp app.jar ...SharedStoreServer <port> [bind address]
+//  bind address를 주지 않으면 loopback에만 열린다, 다른 호스트에서 접속하게 열때는 신뢰할 수 있는 내부망에서만 사용한다
+//  (secret으로 접속은 막지만 내용은 암호화되지 않는다)
+public class SharedStoreServer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedStoreServer.class);
+    //연결 하나가 추적하는 키의 최대 수, 넘으면 전체 무효화를 보내고 다시 시작
+    private static final int MAX_TRACKED_KEYS = 100_000;
+    private static final int MAX_PENDING_PUSHES = 10_000;
+    private static final int DEFAULT_MAX_CONNECTIONS = 256;
+    //접속한 다음 이 시간 안에 nonce에 응답하지 않으면 끊는다
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5000;
+
+    private final LocalSharedStore store = new LocalSharedStore();
+    private final ServerSocket serverSocket;
+    private final String secret;
+    private final SecureRandom random = new SecureRandom();
+    private final ExecutorService connectionExecutor;
+    private final ExecutorService pushExecutor;
+    private final Set<Connection> connections = new CopyOnWriteArraySet<>();
+    private final Map<String, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public SharedStoreServer(int port, InetAddress bindAddress, String secret) throws IOException {
+        this(port, bindAddress, secret, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    //port가 0이면 빈 포트를 사용 (getPort로 확인), bindAddress가 null이면 loopback
+    public SharedStoreServer(int port, InetAddress bindAddress, String secret, int maxConnections) throws IOException {
+        this.secret = StoreProtocol.requireSecret(secret);
+        //요청을 읽는 워커, 남는 스레드가 없으면 execute에서 거절된다
+        this.connectionExecutor = new ThreadPoolExecutor(0, maxConnections, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemonThreads("shared-store-connection-"));
+        //연결별 push 작업, 연결마다 한번에 하나만 실행되므로 maxConnections개면 충분하다
+        ThreadPoolExecutor pushes = new ThreadPoolExecutor(maxConnections, maxConnections, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("shared-store-push-"));
+        pushes.allowCoreThreadTimeOut(true);
+        this.pushExecutor = pushes;
+        this.serverSocket = new ServerSocket(port, 128,
+                bindAddress != null ? bindAddress : InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "shared-store-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("공유 저장소 서버를 시작했습니다. {}:{}", serverSocket.getInetAddress().getHostAddress(), getPort());
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        InetAddress bindAddress = args.length > 1 ? InetAddress.getByName(args[1]) : null;
+        new SharedStoreServer(port, bindAddress, System.getenv("STORE_SECRET"));
+        Thread.currentThread().join();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        connectionExecutor.shutdownNow();
+        pushExecutor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            Socket socket = null;
+            try {
+                socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                try {
+                    connectionExecutor.execute(connection);
+                } catch (RejectedExecutionException e) {
+                    logger.warn("공유 저장소 연결 수가 최대입니다. 연결을 끊습니다. {}", socket.getRemoteSocketAddress());
+                    connection.close();
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("공유 저장소 연결을 받지 못했습니다.", e);
+                }
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            //이미 닫힌 연결
+        }
+    }
+
+    //키가 바뀌었으므로 그 키를 읽어간 연결의 near-cache를 무효화
+    private void invalidate(String key) {
+        for (Connection connection : connections) {
+            if (connection.trackedKeys.remove(key)) {
+                connection.push(out -> {
+                    out.writeByte(StoreProtocol.PUSH_INVALIDATE);
+                    out.writeUTF(key);
+                });
+            }
+        }
+    }
+
+    private int publish(String channel, String message) {
+        Set<Connection> channelSubscribers = subscribers.get(channel);
+        if (channelSubscribers == null) {
+            return 0;
+        }
+        for (Connection connection : channelSubscribers) {
+            connection.push(out -> {
+                out.writeByte(StoreProtocol.PUSH_MESSAGE);
+                out.writeUTF(channel);
+                out.writeUTF(message);
+            });
+        }
+        return channelSubscribers.size();
+    }
+
+    private interface Frame {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private final class Connection implements Runnable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Set<String> trackedKeys = ConcurrentHashMap.newKeySet();
+        //아직 쓰지 못한 push, 이 연결의 push 작업(drainPushes)만 꺼내서 쓴다
+        private final Queue<Frame> pushes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingPushes = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        //handshake를 통과하기 전에는 push(구독 메세지, 무효화)를 받지 않는다
+        private volatile boolean authenticated;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!authenticate()) {
+                    logger.warn("공유 저장소 인증에 실패했습니다. {}", socket.getRemoteSocketAddress());
+                    return;
+                }
+                while (running) {
+                    int id = in.readInt();
+                    byte op = in.readByte();
+                    handle(id, op);
+                    //다음 요청이 이미 도착해있으면 flush를 미룬다
+                    if (in.available() == 0) {
+                        synchronized (out) {
+                            out.flush();
+                        }
+                    }
+                }
+            } catch (EOFException e) {
+                logger.debug("공유 저장소 연결이 닫혔습니다. {}", socket.getRemoteSocketAddress());
+            } catch (IOException e) {
+                if (running) {
+                    logger.debug("공유 저장소 연결 오류: {}", e.getMessage());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        //nonce를 보내고 HMAC(secret, nonce) 응답을 확인
+        private boolean authenticate() throws IOException {
+            byte[] nonce = new byte[StoreProtocol.NONCE_LENGTH];
+            random.nextBytes(nonce);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            out.write(nonce);
+            out.flush();
+            byte[] response = new byte[StoreProtocol.NONCE_LENGTH];
+            in.readFully(response);
+            if (!MessageDigest.isEqual(response, StoreProtocol.authenticate(secret, nonce))) {
+                return false;
+            }
+            socket.setSoTimeout(0);
+            synchronized (out) {
+                out.writeByte(StoreProtocol.OK);
+                out.flush();
+            }
+            authenticated = true;
+            return true;
+        }
+
+        private void handle(int id, byte op) throws IOException {
+            switch (op) {
+                case StoreProtocol.GET: {
+                    String key = in.readUTF();
+                    resetTrackingIfFull();
+                    respond(id, out -> writeValue(out, key));
+                    break;
+                }
+                case StoreProtocol.GET_ALL: {
+                    int count = in.readInt();
+                    if (count < 0 || count > StoreProtocol.MAX_KEYS_PER_REQUEST) {
+                        //배열을 만들기 전에 확인, 프로토콜이 어긋났거나 악의적인 요청이므로 연결을 끊는다
+                        throw new IOException("GET_ALL 키 수가 범위를 벗어났습니다: " + count);
+                    }
+                    String[] keys = new String[count];
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = in.readUTF();
+                    }
+                    resetTrackingIfFull();
+                    respond(id, out -> {
+                        for (String key : keys) {
+                            writeValue(out, key);
+                        }
+                    });
+                    break;
+                }
+                case StoreProtocol.PUT: {
+                    String key = in.readUTF();
+                    String value = in.readUTF();
+                    long ttlMillis = in.readLong();
+                    store.put(key, value, ttlMillis);
+                    invalidate(key);
+                    respond(id, out -> { });
+                    break;
+                }
+                case StoreProtocol.PUT_IF_ABSENT: {
+                    String key = in.readUTF();
+                    String value = in.readUTF();
+                    long ttlMillis = in.readLong();
+                    boolean stored = store.putIfAbsent(key, value, ttlMillis);
+                    if (stored) {
+                        invalidate(key);
+                    }
+                    respond(id, out -> out.writeBoolean(stored));
+                    break;
+                }
+                case StoreProtocol.DELETE: {
+                    String key = in.readUTF();
+                    store.delete(key);
+                    invalidate(key);
+                    respond(id, out -> { });
+                    break;
+                }
+                case StoreProtocol.INCREMENT: {
+                    String key = in.readUTF();
+                    long ttlMillis = in.readLong();
+                    long value;
+                    try {
+                        value = store.increment(key, ttlMillis);
+                    } catch (NumberFormatException e) {
+                        respondError(id, "숫자가 아닌 값입니다: " + key);
+                        break;
+                    }
+                    invalidate(key);
+                    respond(id, out -> out.writeLong(value));
+                    break;
+                }
+                case StoreProtocol.PUBLISH: {
+                    String channel = in.readUTF();
+                    String message = in.readUTF();
+                    publish(channel, message);
+                    respond(id, out -> { });
+                    break;
+                }
+                case StoreProtocol.SUBSCRIBE: {
+                    String channel = in.readUTF();
+                    subscribers.computeIfAbsent(channel, k -> new CopyOnWriteArraySet<>()).add(this);
+                    respond(id, out -> { });
+                    break;
+                }
+                default:
+                    //프로토콜이 어긋났으므로 연결을 끊는다
+                    throw new IOException("알 수 없는 요청입니다: " + op);
+            }
+        }
+
+        //이 연결이 키를 읽어갔다고 먼저 기록한 다음 값과 남은 ttl을 쓴다
+        //respond에서 out의 락을 잡은 상태로 호출되므로, 값을 읽은 뒤에 바뀐 키의 무효화 push는 항상 이 응답 뒤에 나간다
+        private void writeValue(DataOutputStream out, String key) throws IOException {
+            trackedKeys.add(key);
+            LocalSharedStore.Entry entry = store.lookup(key);
+            out.writeBoolean(entry != null);
+            if (entry != null) {
+                out.writeUTF(entry.value);
+                out.writeLong(entry.expiresAt == 0 ? 0 : Math.max(entry.expiresAt - System.currentTimeMillis(), 1));
+            }
+        }
+
+        private void resetTrackingIfFull() {
+            if (trackedKeys.size() >= MAX_TRACKED_KEYS) {
+                trackedKeys.clear();
+                push(out -> out.writeByte(StoreProtocol.PUSH_INVALIDATE_ALL));
+            }
+        }
+
+        private void respond(int id, Frame body) throws IOException {
+            synchronized (out) {
+                out.writeInt(id);
+                out.writeByte(StoreProtocol.OK);
+                body.writeTo(out);
+            }
+        }
+
+        private void respondError(int id, String message) throws IOException {
+            synchronized (out) {
+                out.writeInt(id);
+                out.writeByte(StoreProtocol.ERROR);
+                out.writeUTF(message);
+            }
+        }
+
+        //다른 연결의 요청을 처리하는 스레드에서도 호출되므로 여기서는 대기열에 넣기만 한다
+        private void push(Frame body) {
+            if (!authenticated || socket.isClosed()) {
+                return;
+            }
+            if (pendingPushes.incrementAndGet() > MAX_PENDING_PUSHES) {
+                logger.warn("push를 받지 못하는 연결을 끊습니다. {}", socket.getRemoteSocketAddress());
+                close();
+                return;
+            }
+            pushes.add(body);
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    pushExecutor.execute(this::drainPushes);
+                } catch (RejectedExecutionException e) {
+                    //서버 종료중
+                    close();
+                }
+            }
+        }
+
+        //응답과 같은 out 락을 잡고 쓰므로, GET 응답(writeValue) 뒤에 바뀐 키의 무효화는 항상 그 응답 뒤에 나간다
+        private void drainPushes() {
+            try {
+                while (true) {
+                    synchronized (out) {
+                        Frame frame;
+                        while ((frame = pushes.poll()) != null) {
+                            pendingPushes.decrementAndGet();
+                            out.writeInt(StoreProtocol.PUSH_ID);
+                            frame.writeTo(out);
+                        }
+                        out.flush();
+                    }
+                    draining.set(false);
+                    //draining을 내린 사이에 들어온 push는 여기서 이어서 쓴다
+                    if (pushes.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            connections.remove(this);
+            for (Set<Connection> channelSubscribers : subscribers.values()) {
+                channelSubscribers.remove(this);
+            }
+            pushes.clear();
+            closeQuietly(socket);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package me.silvernine.tutorial.store;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+//RemoteSharedStore와 SharedStoreServer 사이의 프로토콜 (DataOutputStream 기반 바이너리)
+//접속 : 서버가 nonce(32byte)를 보내면 클라이언트는 HMAC-SHA256(store.secret, nonce)로 응답, 맞으면 서버가 byte OK
+//       secret 자체는 전송되지 않는다, 틀리거나 제한시간 안에 응답하지 않으면 서버가 연결을 끊는다
+//요청 : int id(1 이상), byte op, op별 인자
+//응답 : int id, byte status(OK, ERROR), op별 결과 (ERROR면 UTF 메세지)
+//push : int 0, byte kind, kind별 내용 (구독 메세지, near-cache 무효화)
+//한 연결에서 요청은 응답을 기다리지 않고 연속으로 보낼 수 있고(pipelining), 응답은 요청 순서대로 온다
+final class StoreProtocol {
+
+    static final byte GET = 1;              //key -> boolean present, [UTF value, long ttlMillis]
+    static final byte GET_ALL = 2;          //int n, n * key -> n * (boolean present, [UTF value, long ttlMillis])
+    static final byte PUT = 3;              //key, value, long ttlMillis -> -
+    static final byte PUT_IF_ABSENT = 4;    //key, value, long ttlMillis -> boolean
+    static final byte DELETE = 5;           //key -> -
+    static final byte INCREMENT = 6;        //key, long ttlMillis -> long
+    static final byte PUBLISH = 7;          //channel, message -> -
+    static final byte SUBSCRIBE = 8;        //channel -> -
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    static final int PUSH_ID = 0;
+    static final byte PUSH_MESSAGE = 1;         //channel, message
+    static final byte PUSH_INVALIDATE = 2;      //key
+    static final byte PUSH_INVALIDATE_ALL = 3;  //-
+
+    static final int NONCE_LENGTH = 32;
+    //GET_ALL 한번에 보낼 수 있는 키의 최대 수, 넘으면 서버가 연결을 끊는다 (클라이언트는 나눠서 보낸다)
+    static final int MAX_KEYS_PER_REQUEST = 1024;
+
+    private StoreProtocol() {
+    }
+
+    //접속할때 nonce에 대한 응답
+    static byte[] authenticate(String secret, byte[] nonce) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(nonce);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String requireSecret(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalStateException("store.secret이 설정되지 않았습니다. 공유 저장소는 secret 없이 사용할 수 없습니다.");
+        }
+        return secret;
+    }
+}
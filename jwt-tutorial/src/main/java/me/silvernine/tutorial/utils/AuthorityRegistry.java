@@ -0,0 +1,89 @@
+package me.silvernine.tutorial.utils;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+//GrantedAuthority 객체를 공유하기 위한 유틸리티 클래스
+//권한의 종류는 ROLE_USER, ROLE_ADMIN 처럼 몇개 되지 않기 때문에
+//요청마다 SimpleGrantedAuthority를 새로 만들지 않고, 한번 만든 (불변)객체를 계속 재사용한다
+//TokenProvider(토큰의 auth claim)와 CustomUserDetailsService(Authority 엔티티)에서 사용
+public class AuthorityRegistry {
+
+    //토큰 위조가 불가능하므로 종류가 많아질 일은 없지만, 혹시 모를 상황을 대비해서 개수를 제한한다
+    private static final int MAX_POOLED_AUTHORITIES = 256;
+    private static final int MAX_POOLED_CLAIMS = 1024;
+
+    //권한이름 -> GrantedAuthority
+    private static final ConcurrentMap<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+    //"ROLE_USER,ROLE_ADMIN" 같은 auth claim 문자열 -> 불변 권한 리스트
+    private static final ConcurrentMap<String, List<GrantedAuthority>> CLAIMS = new ConcurrentHashMap<>();
+
+    private AuthorityRegistry() {}
+
+    //권한이름에 해당하는 공유 GrantedAuthority를 리턴
+    public static GrantedAuthority of(String authorityName) {
+        GrantedAuthority authority = AUTHORITIES.get(authorityName);
+        if (authority != null) {
+            return authority;
+        }
+
+        authority = new SimpleGrantedAuthority(authorityName);
+        if (AUTHORITIES.size() >= MAX_POOLED_AUTHORITIES) {
+            return authority;
+        }
+        GrantedAuthority existing = AUTHORITIES.putIfAbsent(authorityName, authority);
+        return existing != null ? existing : authority;
+    }
+
+    //콤마로 이어진 auth claim을 불변 권한 리스트로 바꿔서 리턴
+    //같은 claim 문자열은 같은 리스트를 돌려주므로, 두번째부터는 split이나 객체 생성이 전혀 일어나지 않는다
+    public static List<GrantedAuthority> fromClaim(String claim) {
+        if (claim == null || claim.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<GrantedAuthority> authorities = CLAIMS.get(claim);
+        if (authorities != null) {
+            return authorities;
+        }
+
+        authorities = Collections.unmodifiableList(split(claim));
+        if (CLAIMS.size() >= MAX_POOLED_CLAIMS) {
+            return authorities;
+        }
+        List<GrantedAuthority> existing = CLAIMS.putIfAbsent(claim, authorities);
+        return existing != null ? existing : authorities;
+    }
+
+    //권한 리스트를 auth claim 형태("ROLE_USER,ROLE_ADMIN")로 바꿔서 리턴
+    public static String toClaim(Collection<? extends GrantedAuthority> authorities) {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+    }
+
+    //String.split은 정규식 처리와 중간 배열을 만들기 때문에 indexOf로 직접 자른다
+    private static List<GrantedAuthority> split(String claim) {
+        List<GrantedAuthority> authorities = new ArrayList<>(4);
+        int start = 0;
+        while (start <= claim.length()) {
+            int end = claim.indexOf(',', start);
+            if (end < 0) {
+                end = claim.length();
+            }
+            if (end > start) {
+                authorities.add(of(claim.substring(start, end)));
+            }
+            start = end + 1;
+        }
+        return authorities;
+    }
+}
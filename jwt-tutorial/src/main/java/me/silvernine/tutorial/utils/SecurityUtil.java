@@ -1,5 +1,6 @@
 package me.silvernine.tutorial.utils;
 
+import me.silvernine.tutorial.jwt.JwtAuthentication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
@@ -29,6 +30,11 @@ public class SecurityUtil {//간단한 유틸리티 메소드를 만듬(getCurre
             return Optional.empty();
         }
 
+        //JwtFilter가 저장한 인증정보는 principal 객체를 만들지 않고 토큰의 subject를 바로 리턴
+        if (authentication instanceof JwtAuthentication) {
+            return Optional.ofNullable(authentication.getName());
+        }
+
         String username = null;
         if (authentication.getPrincipal() instanceof UserDetails) {
             UserDetails springSecurityUser = (UserDetails) authentication.getPrincipal();
@@ -0,0 +1,3 @@
+-- 운영 프로필(application-prod.yml)의 초기 데이터, 재시작할때마다 실행되므로 MERGE로 넣는다
+merge into authority (authority_name) key (authority_name) values ('ROLE_USER');
+merge into authority (authority_name) key (authority_name) values ('ROLE_ADMIN');
@@ -0,0 +1,79 @@
+package me.silvernine.tutorial.authorization;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.Expression;
+import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthorizationRuleCompilerTest {
+
+    private static final List<String> EXPRESSIONS = Arrays.asList(
+            "hasAnyRole('USER','ADMIN')",
+            "hasAnyRole('ADMIN')",
+            "hasRole('ROLE_ADMIN')",
+            "hasAuthority('ADMIN')",
+            "hasAnyAuthority('ROLE_USER', 'SCOPE_read')",
+            "hasRole('ADMIN') or hasAuthority('SCOPE_read')",
+            "isAuthenticated()",
+            "isAnonymous()",
+            "permitAll",
+            "denyAll");
+
+    //SpEL로 평가한 결과와 컴파일한 규칙의 결과가 같아야 한다
+    @Test
+    void matchesSpelEvaluation() throws Exception {
+        AuthorizationRuleCompiler.Compiled compiled = AuthorizationRuleCompiler.compile(EXPRESSIONS);
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        MethodInvocation invocation = new SimpleMethodInvocation(this, Object.class.getMethod("toString"));
+
+        List<Authentication> authentications = Arrays.asList(
+                user("ROLE_USER"),
+                user("ROLE_ADMIN"),
+                user("ROLE_USER", "ROLE_ADMIN"),
+                user("ADMIN"),
+                user("SCOPE_read"),
+                user("ROLE_OTHER"),
+                user(),
+                new AnonymousAuthenticationToken("key", "anonymousUser",
+                        AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+        for (String expression : EXPRESSIONS) {
+            Expression spel = handler.getExpressionParser().parseExpression(expression);
+            AuthorizationRule rule = compiled.getRule(expression);
+            for (Authentication authentication : authentications) {
+                boolean expected = ExpressionUtils.evaluateAsBoolean(spel,
+                        handler.createEvaluationContext(authentication, invocation));
+                long mask = compiled.getAuthorityBits().maskOf(authentication.getAuthorities());
+                assertThat(rule.isGranted(authentication, mask))
+                        .as("%s / %s", expression, authentication.getAuthorities())
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnsupportedExpressions() {
+        assertThatThrownBy(() -> AuthorizationRuleCompiler.compile(Arrays.asList("hasRole('A') and hasRole('B')")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> AuthorizationRuleCompiler.compile(Arrays.asList("#username == principal.username")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> AuthorizationRuleCompiler.compile(Arrays.asList("hasRole('A', 'B')")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Authentication user(String... authorities) {
+        return new UsernamePasswordAuthenticationToken("user", null, AuthorityUtils.createAuthorityList(authorities));
+    }
+}
@@ -0,0 +1,44 @@
+package me.silvernine.tutorial.config;
+
+import me.silvernine.tutorial.store.LocalSharedStore;
+import me.silvernine.tutorial.store.SharedStore;
+import me.silvernine.tutorial.store.SharedStoreServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SharedStoreConfigTest {
+
+    @Test
+    void onlyServerDatabasesAreShared() {
+        assertThat(SharedStoreConfig.isSharedDatabase("jdbc:h2:tcp://db-host/jwt-tutorial")).isTrue();
+        assertThat(SharedStoreConfig.isSharedDatabase("jdbc:h2:ssl://db-host:9092/jwt-tutorial")).isTrue();
+        assertThat(SharedStoreConfig.isSharedDatabase("jdbc:mysql://db-host:3306/jwt")).isTrue();
+        assertThat(SharedStoreConfig.isSharedDatabase("jdbc:postgresql://db-host/jwt")).isTrue();
+
+        assertThat(SharedStoreConfig.isSharedDatabase("")).isFalse();
+        assertThat(SharedStoreConfig.isSharedDatabase("jdbc:h2:mem:testdb")).isFalse();
+        assertThat(SharedStoreConfig.isSharedDatabase("jdbc:h2:file:./data/jwt-tutorial;AUTO_SERVER=TRUE")).isFalse();
+        assertThat(SharedStoreConfig.isSharedDatabase("jdbc:h2:~/jwt-tutorial")).isFalse();
+        assertThat(SharedStoreConfig.isSharedDatabase("jdbc:hsqldb:mem:jwt")).isFalse();
+        assertThat(SharedStoreConfig.isSharedDatabase("jdbc:derby:memory:jwt")).isFalse();
+    }
+
+    @Test
+    void sharedStoreRequiresSharedDatabase() {
+        SharedStoreConfig config = new SharedStoreConfig();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+        assertThatThrownBy(() -> config.sharedStore("remote", "localhost", 7070, "secret", 500, 0,
+                "jdbc:h2:mem:testdb", beanFactory.getBeanProvider(SharedStoreServer.class)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("jdbc:h2:mem:testdb");
+
+        //서버 1대(local)는 메모리 DB도 사용할 수 있다
+        SharedStore local = config.sharedStore("local", "localhost", 7070, "", 500, 0,
+                "jdbc:h2:mem:testdb", beanFactory.getBeanProvider(SharedStoreServer.class));
+        assertThat(local).isInstanceOf(LocalSharedStore.class);
+    }
+}
@@ -0,0 +1,49 @@
+package me.silvernine.tutorial.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpgradingBCryptPasswordEncoderTest {
+
+    //data.sql의 admin 비밀번호 해시 (cost 08)
+    private static final String COST_08 = "$2a$08$lDnHPz7eUkSi6ao14Twuau08mzhWrL4kyZGGU5xfiGALO/Vxd5DOi";
+
+    @Test
+    void readsStrengthFromHash() {
+        assertThat(UpgradingBCryptPasswordEncoder.strengthOf(COST_08)).isEqualTo(8);
+        assertThat(UpgradingBCryptPasswordEncoder.strengthOf("{bcrypt}" + COST_08)).isEqualTo(8);
+        assertThat(UpgradingBCryptPasswordEncoder.strengthOf(new BCryptPasswordEncoder(12).encode("password")))
+                .isEqualTo(12);
+    }
+
+    @Test
+    void malformedHashHasNoStrength() {
+        assertThat(UpgradingBCryptPasswordEncoder.strengthOf(null)).isEqualTo(-1);
+        assertThat(UpgradingBCryptPasswordEncoder.strengthOf("")).isEqualTo(-1);
+        assertThat(UpgradingBCryptPasswordEncoder.strengthOf("{bcrypt}")).isEqualTo(-1);
+        assertThat(UpgradingBCryptPasswordEncoder.strengthOf("plain-password")).isEqualTo(-1);
+        assertThat(UpgradingBCryptPasswordEncoder.strengthOf("$2a$x8$abc")).isEqualTo(-1);
+        assertThat(UpgradingBCryptPasswordEncoder.strengthOf("$2a08$abcdefg")).isEqualTo(-1);
+    }
+
+    @Test
+    void upgradesWhenStrengthDiffers() {
+        UpgradingBCryptPasswordEncoder encoder = new UpgradingBCryptPasswordEncoder(10);
+
+        //낮은 cost, 높은 cost 모두 설정된 cost로 재해시
+        assertThat(encoder.upgradeEncoding(COST_08)).isTrue();
+        assertThat(encoder.upgradeEncoding(COST_08.replace("$08$", "$12$"))).isTrue();
+        assertThat(encoder.upgradeEncoding(COST_08.replace("$08$", "$10$"))).isFalse();
+        //형식을 알 수 없는 해시는 재해시하지 않는다
+        assertThat(encoder.upgradeEncoding("plain-password")).isFalse();
+    }
+
+    @Test
+    void calibratedStrengthIsNeverBelowMinimum() {
+        //목표 시간이 0ms여도 최소 cost는 지킨다
+        assertThat(BCryptStrengthCalibrator.calibrate(0, 10)).isEqualTo(10);
+        assertThat(BCryptStrengthCalibrator.calibrate(1, 6)).isGreaterThanOrEqualTo(6);
+    }
+}
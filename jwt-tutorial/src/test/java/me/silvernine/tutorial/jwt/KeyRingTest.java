@@ -0,0 +1,132 @@
+package me.silvernine.tutorial.jwt;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.silvernine.tutorial.controller.JwkSetController;
+import me.silvernine.tutorial.entity.JwtKey;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import me.silvernine.tutorial.repository.JwtKeyRepository;
+import me.silvernine.tutorial.store.LocalSharedStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyRingTest {
+
+    private static final String KEK = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final long TOKEN_VALIDITY_IN_SECONDS = 60;
+    private static final long PUBLISH_DELAY_IN_SECONDS = 300;
+
+    //jwt_key 테이블 대신 사용하는 목록, 테스트에서 activatesAt을 바꿔서 시간이 지난 것처럼 만든다
+    private final List<JwtKey> rows = new ArrayList<>();
+    private final SigningKey configuredKey = SigningKey.generate(SignatureAlgorithm.ES256);
+    private KeyRing keyRing;
+    private TokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        keyRing = keyRing(KEK);
+        keyRing.afterPropertiesSet();
+        //처음 저장된 키는 한시간 전부터 서명에 사용된 것으로
+        rows.get(0).setActivatesAt(System.currentTimeMillis() - 3600_000);
+        CompactTokenCodec compactTokenCodec = new CompactTokenCodec(keyRing,
+                RoleRegistry.fixed(Collections.singletonList("ROLE_USER")), false, "HmacSHA256", 16);
+        tokenProvider = new TokenProvider(keyRing, TOKEN_VALIDITY_IN_SECONDS, new VerifiedTokenCache(false, 0),
+                new AuthMetrics(new SimpleMeterRegistry()), compactTokenCodec, false);
+        tokenProvider.afterPropertiesSet();
+    }
+
+    @Test
+    void storesKeysEncryptedWithKek() {
+        assertThat(rows).hasSize(1);
+        String stored = rows.get(0).getSigningKey();
+        assertThat(stored).startsWith("v1:")
+                .doesNotContain(Base64.getEncoder().encodeToString(configuredKey.encodeSigningKey()));
+
+        //다른 KEK로는 저장된 키를 읽을 수 없다
+        KeyRing other = keyRing(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}));
+        assertThatThrownBy(other::afterPropertiesSet).isInstanceOf(IllegalStateException.class);
+        //KEK 없이 키 교체를 켜면 시작할때 실패
+        assertThatThrownBy(() -> keyRing("")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rotatedKeyIsPublishedBeforeItSigns() {
+        JwtKey rotated = keyRing.rotate();
+
+        assertThat(keyRing.getActiveKey().getKeyId()).isEqualTo(configuredKey.getKeyId());
+        assertThat(publishedKeyIds()).containsExactlyInAnyOrder(configuredKey.getKeyId(), rotated.getKeyId());
+    }
+
+    @Test
+    void tokensSignedWithPreviousKeyVerifyUntilRetired() {
+        String oldToken = tokenProvider.createToken("user", "ROLE_USER");
+        JwtKey rotated = keyRing.rotate();
+
+        //publish-delay가 지나서 새 키가 서명 키가 된 상태
+        activate(rotated, System.currentTimeMillis() - 1000);
+        keyRing.refresh();
+        assertThat(keyRing.getActiveKey().getKeyId()).isEqualTo(rotated.getKeyId());
+        assertThat(tokenProvider.verify(oldToken).isValid()).isTrue();
+        assertThat(tokenProvider.verify(tokenProvider.createToken("user", "ROLE_USER")).isValid()).isTrue();
+
+        //이전 키로 서명된 토큰이 모두 만료된 다음(token-validity + check-interval)에는 이전 키를 삭제
+        activate(rotated, System.currentTimeMillis() - TOKEN_VALIDITY_IN_SECONDS * 1000 - 1000);
+        keyRing.refresh();
+        assertThat(rows).extracting(JwtKey::getKeyId).containsExactly(rotated.getKeyId());
+        assertThat(publishedKeyIds()).containsExactly(rotated.getKeyId());
+        assertThat(tokenProvider.verify(oldToken).getFailureReason()).isEqualTo(TokenFailureReason.INVALID_SIGNATURE);
+    }
+
+    @Test
+    void jwksMaxAgeIsShorterThanPublishDelay() {
+        JwkSetController controller = new JwkSetController(keyRing, PUBLISH_DELAY_IN_SECONDS);
+
+        assertThat(controller.jwks().getHeaders().getCacheControl()).contains("max-age=150");
+    }
+
+    private KeyRing keyRing(String kek) {
+        return new KeyRing(configuredKey, jwtKeyRepository(), new LocalSharedStore(), true, kek,
+                86400, PUBLISH_DELAY_IN_SECONDS, 0, TOKEN_VALIDITY_IN_SECONDS);
+    }
+
+    private void activate(JwtKey key, long activatesAt) {
+        rows.stream().filter(row -> row.getKeyId().equals(key.getKeyId())).forEach(row -> row.setActivatesAt(activatesAt));
+    }
+
+    private List<Object> publishedKeyIds() {
+        return keyRing.getPublicJwks().stream().map(jwk -> jwk.get("kid")).collect(Collectors.toList());
+    }
+
+    private JwtKeyRepository jwtKeyRepository() {
+        return (JwtKeyRepository) Proxy.newProxyInstance(JwtKeyRepository.class.getClassLoader(),
+                new Class<?>[]{JwtKeyRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findAllByOrderByActivatesAtDesc":
+                            List<JwtKey> sorted = new ArrayList<>(rows);
+                            sorted.sort(Comparator.comparingLong(JwtKey::getActivatesAt).reversed());
+                            return sorted;
+                        case "save":
+                            JwtKey key = (JwtKey) args[0];
+                            rows.removeIf(row -> row.getKeyId().equals(key.getKeyId()));
+                            rows.add(key);
+                            return key;
+                        case "delete":
+                            rows.removeIf(row -> row.getKeyId().equals(((JwtKey) args[0]).getKeyId()));
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,140 @@
+package me.silvernine.tutorial.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.silvernine.tutorial.controller.JwkSetController;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.security.AlgorithmParameters;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SigningKeyTest {
+
+    //RSA 2048(alias rsa)와 EC P-256(alias ec) 키가 들어있는 테스트용 키스토어
+    private static final String KEYSTORE = "jwt-test.p12";
+    private static final String PASSWORD = "changeit";
+    //64byte
+    private static final String SECRET = "c2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQtc2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQK";
+    //32byte
+    private static final String SHORT_SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Test
+    void hmacUsesConfiguredAlgorithm() {
+        SigningKey signingKey = SigningKey.hmac(SignatureAlgorithm.HS256, SECRET);
+        String token = tokenProvider(signingKey).createToken("user", "ROLE_USER");
+
+        assertThat(signingKey.getAlgorithm()).isEqualTo(SignatureAlgorithm.HS256);
+        assertThat(parse(token, signingKey.getVerificationKey()).getHeader().getAlgorithm()).isEqualTo("HS256");
+    }
+
+    @Test
+    void hmacRejectsSecretShorterThanAlgorithm() {
+        assertThat(SigningKey.hmac(SignatureAlgorithm.HS256, SHORT_SECRET).getAlgorithm()).isEqualTo(SignatureAlgorithm.HS256);
+        assertThatThrownBy(() -> SigningKey.hmac(SignatureAlgorithm.HS512, SHORT_SECRET))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> SigningKey.hmac(SignatureAlgorithm.HS512, ""))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> SigningKey.hmac(SignatureAlgorithm.RS256, SECRET))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void signsWithRsaKeyStoreKeyAndPublishesJwk() throws Exception {
+        SigningKey signingKey = fromKeyStore("rsa", SignatureAlgorithm.RS256);
+        String token = tokenProvider(signingKey).createToken("user", "ROLE_USER");
+
+        Map<String, Object> jwk = publishedJwk(signingKey);
+        assertThat(jwk).containsEntry("kty", "RSA").containsEntry("alg", "RS256")
+                .containsEntry("use", "sig").containsEntry("kid", signingKey.getKeyId());
+        PublicKey publicKey = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                unsigned(jwk.get("n")), unsigned(jwk.get("e"))));
+        assertVerifiesWith(token, publicKey, signingKey);
+    }
+
+    @Test
+    void signsWithEcKeyStoreKeyAndPublishesJwk() throws Exception {
+        SigningKey signingKey = fromKeyStore("ec", SignatureAlgorithm.ES256);
+        String token = tokenProvider(signingKey).createToken("user", "ROLE_USER");
+
+        Map<String, Object> jwk = publishedJwk(signingKey);
+        assertThat(jwk).containsEntry("kty", "EC").containsEntry("crv", "P-256").containsEntry("alg", "ES256")
+                .containsEntry("kid", signingKey.getKeyId());
+        //P-256 좌표는 앞의 0을 채워서 항상 32byte
+        assertThat(Base64.getUrlDecoder().decode((String) jwk.get("x"))).hasSize(32);
+        assertThat(Base64.getUrlDecoder().decode((String) jwk.get("y"))).hasSize(32);
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        PublicKey publicKey = KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(
+                new ECPoint(unsigned(jwk.get("x")), unsigned(jwk.get("y"))),
+                parameters.getParameterSpec(ECParameterSpec.class)));
+        assertVerifiesWith(token, publicKey, signingKey);
+    }
+
+    @Test
+    void rejectsKeyStoreKeyOfOtherType() {
+        assertThatThrownBy(() -> fromKeyStore("rsa", SignatureAlgorithm.ES256))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> fromKeyStore("missing", SignatureAlgorithm.RS256))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private SigningKey fromKeyStore(String alias, SignatureAlgorithm algorithm) throws Exception {
+        String path = Paths.get(getClass().getClassLoader().getResource(KEYSTORE).toURI()).toString();
+        return SigningKey.fromKeyStore(path, "PKCS12", PASSWORD, alias, algorithm);
+    }
+
+    private TokenProvider tokenProvider(SigningKey signingKey) {
+        KeyRing keyRing = KeyRing.fixed(signingKey);
+        CompactTokenCodec compactTokenCodec = new CompactTokenCodec(keyRing,
+                RoleRegistry.fixed(Collections.singletonList("ROLE_USER")), false, "HmacSHA256", 16);
+        TokenProvider tokenProvider = new TokenProvider(keyRing, 60, new VerifiedTokenCache(false, 0),
+                new AuthMetrics(new SimpleMeterRegistry()), compactTokenCodec, false);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    //JwkSetController가 공개하는 목록의 유일한 키
+    private static Map<String, Object> publishedJwk(SigningKey signingKey) {
+        List<Map<String, Object>> keys = new JwkSetController(KeyRing.fixed(signingKey), 300).jwks().getBody().get("keys");
+        assertThat(keys).hasSize(1);
+        return keys.get(0);
+    }
+
+    //JWKS의 공개키만으로(이 서버를 거치지 않고) 검증할 수 있어야 한다
+    private static void assertVerifiesWith(String token, PublicKey publicKey, SigningKey signingKey) {
+        Jws<Claims> jws = parse(token, publicKey);
+        JwsHeader<?> header = jws.getHeader();
+        assertThat(header.getAlgorithm()).isEqualTo(signingKey.getAlgorithm().getValue());
+        assertThat(header.getKeyId()).isEqualTo(signingKey.getKeyId());
+        assertThat(jws.getBody().getSubject()).isEqualTo("user");
+    }
+
+    private static Jws<Claims> parse(String token, Key key) {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+    }
+
+    private static BigInteger unsigned(Object base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode((String) base64Url));
+    }
+}
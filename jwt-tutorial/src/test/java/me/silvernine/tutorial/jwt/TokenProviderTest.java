@@ -0,0 +1,121 @@
+package me.silvernine.tutorial.jwt;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import me.silvernine.tutorial.service.CustomUserDetails;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenProviderTest {
+
+    private static final String SECRET = "c2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQtc2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQK";
+
+    private TokenProvider tokenProvider(long tokenValidityInSeconds) {
+        return tokenProvider(tokenValidityInSeconds, false);
+    }
+
+    private TokenProvider tokenProvider(long tokenValidityInSeconds, boolean compact) {
+        KeyRing keyRing = KeyRing.fixed(SigningKey.hmac(SignatureAlgorithm.HS512, SECRET));
+        CompactTokenCodec compactTokenCodec = new CompactTokenCodec(keyRing,
+                RoleRegistry.fixed(Arrays.asList("ROLE_USER", "ROLE_ADMIN")), compact, "HmacSHA256", 16);
+        TokenProvider tokenProvider = new TokenProvider(keyRing, tokenValidityInSeconds,
+                new VerifiedTokenCache(false, 0), new AuthMetrics(new SimpleMeterRegistry()), compactTokenCodec, true);
+        tokenProvider.afterPropertiesSet();
+        return tokenProvider;
+    }
+
+    private Authentication login() {
+        return new UsernamePasswordAuthenticationToken("admin", null, Arrays.asList(
+                new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    @Test
+    void verifyReturnsAuthenticationForValidToken() {
+        TokenProvider tokenProvider = tokenProvider(60);
+        String token = tokenProvider.createToken(login());
+
+        TokenVerification verification = tokenProvider.verify(token);
+
+        assertThat(verification.isValid()).isTrue();
+        assertThat(verification.getAuthentication().getName()).isEqualTo("admin");
+        assertThat(verification.getAuthentication().getAuthorities())
+                .extracting("authority")
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+        assertThat(verification.getAuthentication().getCredentials()).isEqualTo(token);
+        assertThat(((UserDetails) verification.getAuthentication().getPrincipal()).getUsername()).isEqualTo("admin");
+    }
+
+    @Test
+    void verifyReturnsFailureReason() {
+        TokenProvider tokenProvider = tokenProvider(60);
+        String token = tokenProvider.createToken(login());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThat(tokenProvider.verify(tampered).getFailureReason()).isEqualTo(TokenFailureReason.INVALID_SIGNATURE);
+        assertThat(tokenProvider.verify("not-a-jwt").getFailureReason()).isEqualTo(TokenFailureReason.MALFORMED);
+        assertThat(tokenProvider(-60).verify(tokenProvider(-60).createToken(login())).getFailureReason())
+                .isEqualTo(TokenFailureReason.EXPIRED);
+    }
+
+    @Test
+    void verifyReturnsProfileClaims() {
+        TokenProvider tokenProvider = tokenProvider(60);
+        CustomUserDetails userDetails = new CustomUserDetails("admin", "", login().getAuthorities(), "관리자", 1234L);
+        String token = tokenProvider.createToken(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+
+        JwtAuthentication authentication = (JwtAuthentication) tokenProvider.verify(token).getAuthentication();
+
+        assertThat(authentication.getNickname()).isEqualTo("관리자");
+        assertThat(authentication.getProfileStamp()).isEqualTo(1234L);
+        assertThat(((JwtAuthentication) tokenProvider.verify(tokenProvider.createToken(login())).getAuthentication())
+                .getNickname()).isNull();
+    }
+
+    @Test
+    void compactTokenRoundTrips() {
+        TokenProvider tokenProvider = tokenProvider(60, true);
+        String token = tokenProvider.createToken(login());
+
+        assertThat(token).startsWith(CompactTokenCodec.PREFIX);
+        assertThat(token.length()).isLessThan(100);
+        TokenVerification verification = tokenProvider.verify(token);
+        assertThat(verification.isValid()).isTrue();
+        assertThat(verification.getAuthentication().getName()).isEqualTo("admin");
+        assertThat(verification.getAuthentication().getAuthorities())
+                .extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        assertThat(verification.getTokenId()).isNotEmpty();
+
+        //payload의 subject 부분을 바꾼다
+        int index = token.indexOf('.', CompactTokenCodec.PREFIX.length()) - 2;
+        String tampered = token.substring(0, index) + (token.charAt(index) == 'A' ? 'B' : 'A') + token.substring(index + 1);
+        assertThat(tokenProvider.verify(tampered).getFailureReason()).isEqualTo(TokenFailureReason.INVALID_SIGNATURE);
+        assertThat(tokenProvider(-60, true).verify(tokenProvider(-60, true).createToken(login())).getFailureReason())
+                .isEqualTo(TokenFailureReason.EXPIRED);
+        //권한 목록에 없는 권한은 JWT로 발급
+        assertThat(tokenProvider.createToken("admin", "ROLE_UNKNOWN")).doesNotStartWith(CompactTokenCodec.PREFIX);
+    }
+
+    @Test
+    void compactTokenFromOtherRoleListIsRejected() {
+        KeyRing keyRing = KeyRing.fixed(SigningKey.hmac(SignatureAlgorithm.HS512, SECRET));
+        RoleRegistry issuedWith = RoleRegistry.fixed(Arrays.asList("ROLE_USER", "ROLE_ADMIN"));
+        //ROLE_USER의 bit 번호(1)가 ROLE_MANAGER의 번호가 되는 목록
+        RoleRegistry readWith = RoleRegistry.fixed(Arrays.asList("ROLE_USER", "ROLE_ADMIN", "ROLE_MANAGER"));
+        String token = new CompactTokenCodec(keyRing, issuedWith, true, "HmacSHA256", 16)
+                .encode(keyRing.getActiveKey(), "user", "ROLE_USER", System.currentTimeMillis() + 60_000);
+
+        assertThat(readWith.fingerprint()).isNotEqualTo(issuedWith.fingerprint());
+        assertThat(new CompactTokenCodec(keyRing, readWith, true, "HmacSHA256", 16).decode(token).getFailureReason())
+                .isEqualTo(TokenFailureReason.UNSUPPORTED);
+    }
+}
@@ -0,0 +1,160 @@
+package me.silvernine.tutorial.jwt;
+
+import me.silvernine.tutorial.entity.RevokedToken;
+import me.silvernine.tutorial.repository.RevokedTokenRepository;
+import me.silvernine.tutorial.store.LocalSharedStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationStoreTest {
+
+    private static final long VALIDITY_SECONDS = 600;
+    private static final long BUCKET_SECONDS = 60;
+    private static final long BUCKET = BUCKET_SECONDS * 1000;
+    //링 배열의 칸 수 (validity / bucket + 2)
+    private static final int SLOTS = (int) (VALIDITY_SECONDS / BUCKET_SECONDS) + 2;
+
+    //revoked_token 테이블 대신 사용하는 목록
+    private final List<RevokedToken> rows = new ArrayList<>();
+    //bucket 경계에서 시작
+    private final AtomicLong now = new AtomicLong(1_000_000 * BUCKET);
+    private final LocalSharedStore sharedStore = new LocalSharedStore();
+    private TokenRevocationStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = newStore();
+    }
+
+    @Test
+    void revokedTokenIsFoundByJtiAndExpiration() {
+        long expiration = now.get() + 300_000;
+        store.revoke("revoked", expiration);
+
+        assertThat(store.isRevoked("revoked", expiration)).isTrue();
+        //같은 bucket의 다른 jti
+        assertThat(store.isRevoked("other", expiration)).isFalse();
+        assertThat(store.isRevoked("other", expiration + 1)).isFalse();
+        assertThat(store.isRevoked(null, expiration)).isFalse();
+        assertThat(rows).extracting(RevokedToken::getJti).containsExactly("revoked");
+    }
+
+    @Test
+    void tokenExpiringAtFarEdgeOfValidityIsIndexed() {
+        now.addAndGet(BUCKET / 2);
+        //지금 발급된 토큰이 가장 늦게 만료된다, 현재 bucket에서 만료되는 토큰과 같은 칸을 쓰지 않아야 한다
+        long farthest = now.get() + VALIDITY_SECONDS * 1000;
+        long current = now.get() + 1;
+        store.revoke("farthest", farthest);
+        store.revoke("current", current);
+
+        assertThat(store.isRevoked("farthest", farthest)).isTrue();
+        assertThat(store.isRevoked("current", current)).isTrue();
+
+        //링 배열이 덮는 범위를 넘어서는 토큰은 인덱싱하지 않는다 (DB에는 저장된다)
+        long beyond = now.get() + SLOTS * BUCKET;
+        store.revoke("beyond", beyond);
+        assertThat(store.isRevoked("beyond", beyond)).isFalse();
+        assertThat(rows).extracting(RevokedToken::getJti).contains("beyond");
+    }
+
+    @Test
+    void expiredBucketIsReplacedAfterWraparound() {
+        long oldExpiration = now.get() + BUCKET;
+        store.revoke("old", oldExpiration);
+
+        //링을 한바퀴 돌아서 같은 칸을 쓰는 bucket
+        now.addAndGet(SLOTS * BUCKET);
+        long newExpiration = oldExpiration + SLOTS * BUCKET;
+        store.revoke("new", newExpiration);
+
+        assertThat(store.isRevoked("new", newExpiration)).isTrue();
+        assertThat(store.isRevoked("old", oldExpiration)).isFalse();
+        //이전 bucket의 항목은 새 bucket으로 넘어오지 않는다
+        assertThat(store.isRevoked("old", newExpiration)).isFalse();
+    }
+
+    @Test
+    void purgeExpiredDropsWholeBuckets() {
+        long soon = now.get() + BUCKET + 1;
+        long later = now.get() + 5 * BUCKET;
+        store.revoke("soon-1", soon);
+        store.revoke("soon-2", soon);
+        store.revoke("later", later);
+
+        now.set(soon + BUCKET);
+        store.purgeExpired();
+
+        assertThat(store.isRevoked("soon-1", soon)).isFalse();
+        assertThat(store.isRevoked("soon-2", soon)).isFalse();
+        assertThat(store.isRevoked("later", later)).isTrue();
+        assertThat(rows).extracting(RevokedToken::getJti).containsExactly("later");
+    }
+
+    @Test
+    void afterPropertiesSetLoadsUnexpiredRevocations() {
+        long expiration = now.get() + 120_000;
+        rows.add(RevokedToken.builder().jti("stored").expiresAt(expiration).build());
+        rows.add(RevokedToken.builder().jti("expired").expiresAt(now.get() - 1).build());
+
+        TokenRevocationStore restarted = newStore();
+
+        assertThat(restarted.isRevoked("stored", expiration)).isTrue();
+        assertThat(restarted.isRevoked("expired", now.get() - 1)).isFalse();
+    }
+
+    @Test
+    void revocationMessagesFromOtherServersAreIndexed() {
+        long expiration = now.get() + 120_000;
+
+        //잘못된 메세지는 무시한다
+        sharedStore.publish(TokenRevocationStore.REVOKED_CHANNEL, "");
+        sharedStore.publish(TokenRevocationStore.REVOKED_CHANNEL, "no-expiration");
+        sharedStore.publish(TokenRevocationStore.REVOKED_CHANNEL, "jti not-a-number");
+        sharedStore.publish(TokenRevocationStore.REVOKED_CHANNEL, " " + expiration);
+        assertThat(store.isRevoked("no-expiration", expiration)).isFalse();
+        assertThat(store.isRevoked("jti", expiration)).isFalse();
+        assertThat(store.isRevoked("", expiration)).isFalse();
+
+        sharedStore.publish(TokenRevocationStore.REVOKED_CHANNEL, "remote " + expiration);
+        assertThat(store.isRevoked("remote", expiration)).isTrue();
+    }
+
+    private TokenRevocationStore newStore() {
+        TokenRevocationStore created = new TokenRevocationStore(revokedTokenRepository(), sharedStore,
+                VALIDITY_SECONDS, BUCKET_SECONDS, now::get);
+        created.afterPropertiesSet();
+        return created;
+    }
+
+    private RevokedTokenRepository revokedTokenRepository() {
+        return (RevokedTokenRepository) Proxy.newProxyInstance(RevokedTokenRepository.class.getClassLoader(),
+                new Class<?>[]{RevokedTokenRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "save":
+                            RevokedToken revokedToken = (RevokedToken) args[0];
+                            rows.removeIf(row -> row.getJti().equals(revokedToken.getJti()));
+                            rows.add(revokedToken);
+                            return revokedToken;
+                        case "findByExpiresAtGreaterThan":
+                            long after = (Long) args[0];
+                            return rows.stream().filter(row -> row.getExpiresAt() > after).collect(Collectors.toList());
+                        case "deleteExpired":
+                            long before = (Long) args[0];
+                            int size = rows.size();
+                            rows.removeIf(row -> row.getExpiresAt() < before);
+                            return size - rows.size();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,87 @@
+package me.silvernine.tutorial.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private VerifiedTokenCache cache(int maximumSize) {
+        return new VerifiedTokenCache(true, maximumSize, now::get);
+    }
+
+    private TokenVerification verification(long expiresInMillis) {
+        TokenClaims claims = new TokenClaims("user", "ROLE_USER", "token", null, 0);
+        return TokenVerification.success(claims, "jti", now.get() + expiresInMillis);
+    }
+
+    @Test
+    void returnsCachedVerificationOnHit() {
+        VerifiedTokenCache cache = cache(100);
+        TokenVerification verification = verification(60_000);
+        cache.put("a.b.c", verification);
+
+        assertThat(cache.get("a.b.c")).isSameAs(verification);
+        assertThat(cache.get("x.y.z")).isNull();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cachedVerificationGivesEachRequestItsOwnAuthentication() {
+        VerifiedTokenCache cache = cache(100);
+        cache.put("a.b.c", verification(60_000));
+
+        //한 요청에서 인증을 취소해도 같은 토큰의 다음 요청은 인증된 상태
+        cache.get("a.b.c").getAuthentication().setAuthenticated(false);
+
+        assertThat(cache.get("a.b.c").getAuthentication().isAuthenticated()).isTrue();
+        assertThat(cache.get("a.b.c").getAuthentication()).isNotSameAs(cache.get("a.b.c").getAuthentication());
+    }
+
+    @Test
+    void doesNotCacheFailuresOrExpiredTokens() {
+        VerifiedTokenCache cache = cache(100);
+        cache.put("failed", TokenVerification.failure(TokenFailureReason.INVALID_SIGNATURE));
+        cache.put("expired", verification(0));
+
+        assertThat(cache.get("failed")).isNull();
+        assertThat(cache.get("expired")).isNull();
+    }
+
+    @Test
+    void expiresAtTokenExpiration() {
+        VerifiedTokenCache cache = cache(100);
+        cache.put("a.b.c", verification(60_000));
+
+        //읽어도 만료 시각이 연장되지 않는다
+        now.addAndGet(59_999);
+        assertThat(cache.get("a.b.c")).isNotNull();
+        now.addAndGet(1);
+        assertThat(cache.get("a.b.c")).isNull();
+    }
+
+    @Test
+    void staysWithinMaximumSize() {
+        VerifiedTokenCache cache = cache(10);
+        for (int i = 0; i < 100; i++) {
+            cache.put("token-" + i, verification(60_000));
+        }
+        cache.cleanUp();
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 100);
+        cache.put("a.b.c", verification(60_000));
+
+        assertThat(cache.get("a.b.c")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+}
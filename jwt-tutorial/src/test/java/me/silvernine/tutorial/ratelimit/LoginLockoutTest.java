@@ -0,0 +1,56 @@
+package me.silvernine.tutorial.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//LoginService가 기록한 로그인 실패로 username이 잠기면 LoginRateLimitFilter가 비밀번호 확인 전에 거절한다
+@SpringBootTest(properties = "login.rate-limit.max-failures-per-username=3")
+@AutoConfigureMockMvc
+class LoginLockoutTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Test
+    void repeatedFailuresLockUsername() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(loginRateLimiter.isUsernameBlocked("user")).isFalse();
+            MvcResult result = mockMvc.perform(login("user", "wrong-password"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            //인증 실패 결과를 기다린다 (실패 기록은 결과가 나오기 전에 끝난다)
+            result.getAsyncResult(10_000);
+        }
+        assertThat(loginRateLimiter.isUsernameBlocked("user")).isTrue();
+
+        //비밀번호가 맞아도 잠긴 동안은 인증을 시작하지 않는다
+        mockMvc.perform(login("user", "user"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        //다른 username은 영향 없음
+        assertThat(loginRateLimiter.isUsernameBlocked("admin")).isFalse();
+    }
+
+    private static MockHttpServletRequestBuilder login(String username, String password) {
+        return post("/api/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}");
+    }
+}
@@ -0,0 +1,147 @@
+package me.silvernine.tutorial.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import me.silvernine.tutorial.store.LocalSharedStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginRateLimitFilterTest {
+
+    private static final int MAX_ATTEMPTS_PER_IP = 3;
+    private static final int MAX_FAILURES_PER_USERNAME = 2;
+    private static final byte[] LOGIN_BODY = "{\"username\":\"admin\",\"password\":\"admin\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final LoginRateLimiter loginRateLimiter = new LoginRateLimiter(new AuthMetrics(new SimpleMeterRegistry()),
+            new LocalSharedStore(), true, 60, MAX_ATTEMPTS_PER_IP, MAX_FAILURES_PER_USERNAME, 300, 1000);
+    private final LoginRateLimitFilter filter = new LoginRateLimitFilter(loginRateLimiter, new ObjectMapper());
+
+    @Test
+    void ipLimitRejectsBeforeReadingBody() throws Exception {
+        for (int i = 0; i < MAX_ATTEMPTS_PER_IP; i++) {
+            assertThat(filter(login(LOGIN_BODY)).getRequest()).isNotNull();
+        }
+
+        //body를 읽으면 실패하는 요청
+        MockHttpServletRequest unread = new MockHttpServletRequest("POST", "/api/authenticate") {
+            @Override
+            public ServletInputStream getInputStream() {
+                throw new AssertionError("IP 제한은 body를 읽기 전에 거절해야 합니다.");
+            }
+        };
+        unread.setServletPath("/api/authenticate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(unread, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER))).isPositive();
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void lockedUsernameIsRejected() throws Exception {
+        for (int i = 0; i < MAX_FAILURES_PER_USERNAME; i++) {
+            loginRateLimiter.recordFailure("admin");
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = filter(login(LOGIN_BODY), response);
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER))).isBetween(1L, 300L);
+        assertThat(chain.getRequest()).isNull();
+
+        //다른 username은 영향 없음
+        assertThat(filter(login("{\"username\":\"user\"}".getBytes(StandardCharsets.UTF_8))).getRequest()).isNotNull();
+    }
+
+    @Test
+    void oversizedBodyIsRejected() throws Exception {
+        byte[] large = new byte[5000];
+        Arrays.fill(large, (byte) 'a');
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = filter(login(large), response);
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+
+        //Content-Length 없이(chunked) 보내도 4096byte를 넘으면 거절
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/api/authenticate") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setServletPath("/api/authenticate");
+        chunked.setContent(large);
+        response = new MockHttpServletResponse();
+        chain = filter(chunked, response);
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void nonJsonBodyPassesThroughWithCachedBody() throws Exception {
+        byte[] body = "username=admin".getBytes(StandardCharsets.UTF_8);
+
+        MockFilterChain chain = filter(login(body));
+
+        //username을 꺼내지 못해도 거절하지 않고 컨트롤러(@Valid)에 맡긴다, 컨트롤러는 같은 body를 다시 읽을 수 있다
+        assertThat(chain.getRequest()).isInstanceOf(CachedBodyHttpServletRequest.class);
+        assertThat(StreamUtils.copyToByteArray(chain.getRequest().getInputStream())).isEqualTo(body);
+    }
+
+    @Test
+    void controllerReceivesCachedBody() throws Exception {
+        MockFilterChain chain = filter(login(LOGIN_BODY));
+
+        assertThat(StreamUtils.copyToByteArray(chain.getRequest().getInputStream())).isEqualTo(LOGIN_BODY);
+    }
+
+    @Test
+    void otherRequestsAreNotFiltered() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/hello");
+        request.setServletPath("/api/hello");
+        for (int i = 0; i < MAX_ATTEMPTS_PER_IP * 2; i++) {
+            MockFilterChain chain = filter(request);
+            assertThat(chain.getRequest()).isSameAs(request);
+        }
+    }
+
+    private MockFilterChain filter(MockHttpServletRequest request) throws IOException, ServletException {
+        return filter(request, new MockHttpServletResponse());
+    }
+
+    private MockFilterChain filter(MockHttpServletRequest request, MockHttpServletResponse response)
+            throws IOException, ServletException {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return chain;
+    }
+
+    private static MockHttpServletRequest login(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/authenticate");
+        request.setServletPath("/api/authenticate");
+        request.setContentType("application/json");
+        request.setContent(body);
+        return request;
+    }
+}
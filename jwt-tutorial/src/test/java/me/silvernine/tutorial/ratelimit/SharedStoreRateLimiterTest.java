@@ -0,0 +1,78 @@
+package me.silvernine.tutorial.ratelimit;
+
+import me.silvernine.tutorial.store.RemoteSharedStore;
+import me.silvernine.tutorial.store.SharedStoreServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//두 서버가 같은 키로 동시에 시도해도 합쳐서 limit까지만 허용되어야 한다
+class SharedStoreRateLimiterTest {
+
+    private static final String SECRET = "test-secret";
+    private static final int LIMIT = 20;
+    //테스트 중에 window가 바뀌지 않도록 길게
+    private static final long WINDOW = TimeUnit.HOURS.toMillis(1);
+
+    private SharedStoreServer server;
+    private RemoteSharedStore first;
+    private RemoteSharedStore second;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new SharedStoreServer(0, InetAddress.getLoopbackAddress(), SECRET);
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        //near-cache를 켜서 확인용으로 읽은 값이 오래된 값이어도 제한이 지켜지는지 확인
+        first = new RemoteSharedStore(host, server.getPort(), SECRET, 2000, 100);
+        second = new RemoteSharedStore(host, server.getPort(), SECRET, 2000, 100);
+        executor = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        first.close();
+        second.close();
+        server.close();
+    }
+
+    @Test
+    void concurrentNodesShareOneLimit() throws Exception {
+        RateLimiter[] limiters = {
+                new SharedStoreRateLimiter(first, "test", LIMIT, WINDOW, WINDOW),
+                new SharedStoreRateLimiter(second, "test", LIMIT, WINDOW, WINDOW)
+        };
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < LIMIT * 5; i++) {
+            RateLimiter limiter = limiters[i % 2];
+            results.add(executor.submit(() -> {
+                start.await();
+                return limiter.tryAcquire("1.2.3.4");
+            }));
+        }
+        start.countDown();
+
+        int allowed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                allowed++;
+            }
+        }
+        assertThat(allowed).isEqualTo(LIMIT);
+        assertThat(limiters[0].isBlocked("1.2.3.4")).isTrue();
+        assertThat(limiters[1].tryAcquire("1.2.3.4")).isFalse();
+    }
+}
@@ -0,0 +1,118 @@
+package me.silvernine.tutorial.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowRateLimiterTest {
+
+    private static final long WINDOW = 60_000;
+    private static final long LOCKOUT = 300_000;
+
+    private final AtomicLong now = new AtomicLong(WINDOW * 1000);
+
+    private SlidingWindowRateLimiter limiter(int limit, int maxKeys) {
+        return new SlidingWindowRateLimiter(limit, WINDOW, LOCKOUT, maxKeys, now::get);
+    }
+
+    @Test
+    void rejectsOverLimitAndLocksOut() {
+        SlidingWindowRateLimiter limiter = limiter(3, 100);
+
+        assertThat(limiter.tryAcquire("1.2.3.4")).isTrue();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isTrue();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isTrue();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isFalse();
+        assertThat(limiter.tryAcquire("5.6.7.8")).isTrue();
+
+        //window가 지나도 lockout 동안은 거절
+        now.addAndGet(WINDOW * 2);
+        assertThat(limiter.tryAcquire("1.2.3.4")).isFalse();
+        now.addAndGet(LOCKOUT);
+        assertThat(limiter.tryAcquire("1.2.3.4")).isTrue();
+    }
+
+    @Test
+    void previousWindowCountsByOverlap() {
+        SlidingWindowRateLimiter limiter = limiter(4, 100);
+        for (int i = 0; i < 4; i++) {
+            limiter.record("user");
+        }
+        limiter.reset("user");
+        assertThat(limiter.isBlocked("user")).isFalse();
+
+        limiter = new SlidingWindowRateLimiter(4, WINDOW, 0, 100, now::get);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire("user")).isTrue();
+        }
+        //다음 window의 절반: 이전 window 4회 * 0.5 = 2, 2번 더 허용
+        now.addAndGet(WINDOW + WINDOW / 2);
+        assertThat(limiter.tryAcquire("user")).isTrue();
+        assertThat(limiter.tryAcquire("user")).isTrue();
+        assertThat(limiter.tryAcquire("user")).isFalse();
+    }
+
+    @Test
+    void keysAreBounded() {
+        SlidingWindowRateLimiter limiter = limiter(3, 10);
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("10.0.0." + i);
+        }
+        assertThat(limiter.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void keysAreBoundedWhenEveryKeyIsLocked() {
+        SlidingWindowRateLimiter limiter = limiter(1, 10);
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("10.0.0." + i);
+            limiter.tryAcquire("10.0.0." + i);
+        }
+        assertThat(limiter.size()).isLessThanOrEqualTo(10);
+        assertThat(limiter.isBlocked("10.0.0.999")).isTrue();
+    }
+
+    @Test
+    void evictsUnlockedKeyBeyondSamples() {
+        SlidingWindowRateLimiter limiter = limiter(1, 64);
+        limiter.tryAcquire("idle");
+        for (int i = 0; i < 63; i++) {
+            now.incrementAndGet();
+            limiter.tryAcquire("10.0.0." + i);
+            limiter.tryAcquire("10.0.0." + i);
+        }
+
+        //샘플에 잠기지 않은 키가 없어도 잠긴 키 대신 잠기지 않은 키를 지운다
+        limiter.tryAcquire("new");
+        assertThat(limiter.size()).isLessThanOrEqualTo(64);
+        for (int i = 0; i < 63; i++) {
+            assertThat(limiter.isBlocked("10.0.0." + i)).isTrue();
+        }
+    }
+
+    @Test
+    void lockedKeysDoNotSlowDownOrBlockEviction() {
+        SlidingWindowRateLimiter limiter = limiter(1, 64);
+        for (int i = 0; i < 32; i++) {
+            limiter.tryAcquire("locked-" + i);
+            limiter.tryAcquire("locked-" + i);
+        }
+
+        //잠기지 않은 키가 계속 바뀌어도 잠긴 키는 남아있고, 키 수는 maxKeys를 넘지 않는다
+        for (int i = 0; i < 10_000; i++) {
+            now.incrementAndGet();
+            limiter.tryAcquire("10.0." + (i / 256) + "." + (i % 256));
+        }
+        assertThat(limiter.size()).isLessThanOrEqualTo(64);
+        for (int i = 0; i < 32; i++) {
+            assertThat(limiter.isBlocked("locked-" + i)).isTrue();
+        }
+
+        //lockout이 끝나면 다시 시도할 수 있다
+        now.addAndGet(LOCKOUT);
+        assertThat(limiter.tryAcquire("locked-0")).isTrue();
+        assertThat(limiter.size()).isLessThanOrEqualTo(64);
+    }
+}
@@ -0,0 +1,83 @@
+package me.silvernine.tutorial.repository;
+
+import me.silvernine.tutorial.config.CacheConfig;
+import me.silvernine.tutorial.dto.UserAccountRow;
+import me.silvernine.tutorial.entity.User;
+import me.silvernine.tutorial.service.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//users 캐시에는 엔티티가 아니라 불변 projection이 들어가고, 저장/재해시하면 지워진다
+//테스트 트랜잭션은 롤백되므로 캐시도 테스트마다 비운다
+@SpringBootTest
+@Transactional
+class UserRepositoryCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void tearDown() {
+        usersCache().clear();
+        cacheManager.getCache(CacheConfig.USER_INFO).clear();
+    }
+
+    @Test
+    void cachesAccountRowsInsteadOfEntity() {
+        List<UserAccountRow> first = userRepository.findAccountRowsByUsername("admin");
+        List<UserAccountRow> second = userRepository.findAccountRowsByUsername("admin");
+
+        assertThat(second).isSameAs(first);
+        assertThat(first).extracting(UserAccountRow::getAuthorityName)
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        assertThat(usersCache().get("admin").get()).isSameAs(first);
+        //없는 유저는 캐시하지 않는다
+        assertThat(userRepository.findAccountRowsByUsername("nobody")).isEmpty();
+        assertThat(usersCache().get("nobody")).isNull();
+    }
+
+    @Test
+    void saveEvictsCachedRows() {
+        userRepository.findAccountRowsByUsername("user");
+        User user = userRepository.findOneWithAuthoritiesByUsername("user").get();
+        user.setNickname("changed");
+        userRepository.save(user);
+
+        assertThat(usersCache().get("user")).isNull();
+        assertThat(userRepository.findAccountRowsByUsername("user"))
+                .extracting(UserAccountRow::getNickname).containsOnly("changed");
+    }
+
+    @Test
+    void rehashEvictsCachedPassword() {
+        UserDetails userDetails = customUserDetailsService.loadUserByUsername("user");
+        String oldHash = userDetails.getPassword();
+        assertThat(usersCache().get("user")).isNotNull();
+
+        customUserDetailsService.updatePassword(userDetails, "{bcrypt}rehashed");
+
+        assertThat(usersCache().get("user")).isNull();
+        UserDetails reloaded = customUserDetailsService.loadUserByUsername("user");
+        assertThat(reloaded.getPassword()).isEqualTo("{bcrypt}rehashed").isNotEqualTo(oldHash);
+    }
+
+    private Cache usersCache() {
+        return cacheManager.getCache(CacheConfig.USERS);
+    }
+}
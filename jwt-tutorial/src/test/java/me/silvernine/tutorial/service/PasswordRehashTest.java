@@ -0,0 +1,104 @@
+package me.silvernine.tutorial.service;
+
+import me.silvernine.tutorial.config.CacheConfig;
+import me.silvernine.tutorial.entity.User;
+import me.silvernine.tutorial.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//로그인에 성공했을때 저장된 해시의 접두사나 cost가 설정(password.bcrypt.strength: 10)과 다르면
+//DaoAuthenticationProvider가 CustomUserDetailsService.updatePassword로 재해시해서 저장하고 users 캐시를 지운다
+//테스트 트랜잭션은 롤백되므로 캐시도 테스트마다 비운다
+@SpringBootTest
+@Transactional
+class PasswordRehashTest {
+
+    private static final String USERNAME = "user";
+    private static final String PASSWORD = "rehash-password";
+
+    @Autowired
+    private AuthenticationManagerBuilder authenticationManagerBuilder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void tearDown() {
+        usersCache().clear();
+        cacheManager.getCache(CacheConfig.USER_INFO).clear();
+    }
+
+    @Test
+    void unprefixedLowCostHashIsRehashed() {
+        storePassword(new BCryptPasswordEncoder(8).encode(PASSWORD));
+
+        login();
+
+        String rehashed = storedPassword();
+        assertThat(rehashed).startsWith("{bcrypt}$2a$10$");
+        assertThat(passwordEncoder.matches(PASSWORD, rehashed)).isTrue();
+        assertThat(usersCache().get(USERNAME)).isNull();
+
+        //재해시된 다음에는 다시 바꾸지 않는다
+        login();
+        assertThat(storedPassword()).isEqualTo(rehashed);
+    }
+
+    @Test
+    void prefixedLowCostHashIsRehashed() {
+        storePassword("{bcrypt}" + new BCryptPasswordEncoder(8).encode(PASSWORD));
+
+        login();
+
+        assertThat(storedPassword()).startsWith("{bcrypt}$2a$10$");
+        assertThat(usersCache().get(USERNAME)).isNull();
+    }
+
+    @Test
+    void currentCostHashIsKept() {
+        String current = passwordEncoder.encode(PASSWORD);
+        storePassword(current);
+
+        login();
+
+        assertThat(storedPassword()).isEqualTo(current);
+        //재해시하지 않았으므로 로그인할때 읽은 값이 캐시에 남아있다
+        assertThat(usersCache().get(USERNAME)).isNotNull();
+    }
+
+    private void login() {
+        authenticationManagerBuilder.getObject()
+                .authenticate(new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+    }
+
+    private void storePassword(String encodedPassword) {
+        User user = userRepository.findOneWithAuthoritiesByUsername(USERNAME).get();
+        user.setPassword(encodedPassword);
+        userRepository.saveAndFlush(user);
+    }
+
+    private String storedPassword() {
+        return userRepository.findOneWithAuthoritiesByUsername(USERNAME).get().getPassword();
+    }
+
+    private Cache usersCache() {
+        return cacheManager.getCache(CacheConfig.USERS);
+    }
+}
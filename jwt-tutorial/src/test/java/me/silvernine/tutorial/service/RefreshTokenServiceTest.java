@@ -0,0 +1,183 @@
+package me.silvernine.tutorial.service;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.silvernine.tutorial.dto.TokenDto;
+import me.silvernine.tutorial.dto.UserAccountRow;
+import me.silvernine.tutorial.entity.RefreshToken;
+import me.silvernine.tutorial.exception.InvalidRefreshTokenException;
+import me.silvernine.tutorial.jwt.CompactTokenCodec;
+import me.silvernine.tutorial.jwt.JwtAuthentication;
+import me.silvernine.tutorial.jwt.KeyRing;
+import me.silvernine.tutorial.jwt.RoleRegistry;
+import me.silvernine.tutorial.jwt.SigningKey;
+import me.silvernine.tutorial.jwt.TokenProvider;
+import me.silvernine.tutorial.jwt.VerifiedTokenCache;
+import me.silvernine.tutorial.metrics.AuthMetrics;
+import me.silvernine.tutorial.repository.RefreshTokenRepository;
+import me.silvernine.tutorial.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RefreshTokenServiceTest {
+
+    private static final String SECRET = "c2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQtc2lsdmVybmluZS10ZWNoLXNwcmluZy1ib290LWp3dC10dXRvcmlhbC1zZWNyZXQK";
+
+    //refresh_token 테이블과 users 캐시 대신 사용하는 목록
+    private final List<RefreshToken> tokens = new ArrayList<>();
+    private final List<UserAccountRow> accountRows = new ArrayList<>();
+    private TokenProvider tokenProvider;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        KeyRing keyRing = KeyRing.fixed(SigningKey.hmac(SignatureAlgorithm.HS512, SECRET));
+        CompactTokenCodec compactTokenCodec = new CompactTokenCodec(keyRing,
+                RoleRegistry.fixed(Arrays.asList("ROLE_USER", "ROLE_ADMIN")), false, "HmacSHA256", 16);
+        tokenProvider = new TokenProvider(keyRing, 60, new VerifiedTokenCache(false, 0),
+                new AuthMetrics(new SimpleMeterRegistry()), compactTokenCodec, true);
+        tokenProvider.afterPropertiesSet();
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository(), userRepository(), tokenProvider, 3600);
+        account("before", true, "ROLE_USER");
+    }
+
+    @Test
+    void refreshRotatesTokenWithinFamily() {
+        String refreshToken = refreshTokenService.issue(login("before", 1L));
+
+        TokenDto refreshed = refreshTokenService.refresh(refreshToken);
+
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(refreshToken);
+        assertThat(verify(refreshed).getName()).isEqualTo("user");
+        assertThat(tokens).hasSize(2);
+        assertThat(tokens.get(0).isUsed()).isTrue();
+        assertThat(tokens.get(1).getFamilyId()).isEqualTo(tokens.get(0).getFamilyId());
+        assertThat(tokens.get(1).getExpiresAt()).isEqualTo(tokens.get(0).getExpiresAt());
+        //새 refresh 토큰으로 다시 재발급할 수 있다
+        assertThat(refreshTokenService.refresh(refreshed.getRefreshToken()).getToken()).isNotNull();
+    }
+
+    @Test
+    void reusedTokenRevokesWholeFamily() {
+        String refreshToken = refreshTokenService.issue(login("before", 1L));
+        String rotated = refreshTokenService.refresh(refreshToken).getRefreshToken();
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(refreshToken))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        assertThat(tokens).isEmpty();
+        //탈취되지 않은 쪽이 가지고 있던 최신 토큰도 더 이상 사용할 수 없다
+        assertThatThrownBy(() -> refreshTokenService.refresh(rotated))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        RefreshTokenService expiring = new RefreshTokenService(refreshTokenRepository(), userRepository(), tokenProvider, 0);
+        String refreshToken = expiring.issue(login("before", 1L));
+
+        assertThatThrownBy(() -> expiring.refresh(refreshToken))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("만료");
+        assertThat(tokens.get(0).isUsed()).isFalse();
+    }
+
+    @Test
+    void refreshUsesCurrentAuthorities() {
+        String refreshToken = refreshTokenService.issue(login("before", 1L));
+        account("before", true, "ROLE_USER", "ROLE_ADMIN");
+
+        assertThat(verify(refreshTokenService.refresh(refreshToken)).getAuthorities())
+                .extracting("authority")
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void deactivatedUserCannotRefresh() {
+        String refreshToken = refreshTokenService.issue(login("before", 1L));
+        account("before", false, "ROLE_USER");
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(refreshToken))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        assertThat(tokens).isEmpty();
+    }
+
+    @Test
+    void refreshedTokenCarriesCurrentProfile() {
+        String refreshToken = refreshTokenService.issue(login("before", 1L));
+        account("after", true, "ROLE_USER");
+        long start = System.currentTimeMillis();
+
+        JwtAuthentication authentication = verify(refreshTokenService.refresh(refreshToken));
+
+        assertThat(authentication.getNickname()).isEqualTo("after");
+        assertThat(authentication.getProfileStamp()).isGreaterThanOrEqualTo(start);
+    }
+
+    private JwtAuthentication verify(TokenDto tokenDto) {
+        return (JwtAuthentication) tokenProvider.verify(tokenDto.getToken()).getAuthentication();
+    }
+
+    private Authentication login(String nickname, long profileStamp) {
+        List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+        CustomUserDetails userDetails = new CustomUserDetails("user", "", authorities, nickname, profileStamp);
+        return new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+    }
+
+    private void account(String nickname, boolean activated, String... authorityNames) {
+        accountRows.clear();
+        for (String authorityName : authorityNames) {
+            accountRows.add(new UserAccountRow("user", "{bcrypt}hash", nickname, activated, authorityName));
+        }
+    }
+
+    private UserRepository userRepository() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAccountRowsByUsername")) {
+                        return "user".equals(args[0]) ? new ArrayList<>(accountRows) : Collections.emptyList();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private RefreshTokenRepository refreshTokenRepository() {
+        return (RefreshTokenRepository) Proxy.newProxyInstance(RefreshTokenRepository.class.getClassLoader(),
+                new Class<?>[]{RefreshTokenRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "save":
+                            RefreshToken token = (RefreshToken) args[0];
+                            token.setRefreshTokenId((long) tokens.size() + 1);
+                            tokens.add(token);
+                            return token;
+                        case "findByTokenHash":
+                            return tokens.stream().filter(row -> row.getTokenHash().equals(args[0])).findFirst();
+                        case "markUsed":
+                            Optional<RefreshToken> unused = tokens.stream()
+                                    .filter(row -> row.getRefreshTokenId().equals(args[0]) && !row.isUsed())
+                                    .findFirst();
+                            unused.ifPresent(row -> row.setUsed(true));
+                            return unused.isPresent() ? 1 : 0;
+                        case "deleteByFamilyId":
+                            int before = tokens.size();
+                            tokens.removeIf(row -> row.getFamilyId().equals(args[0]));
+                            return before - tokens.size();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
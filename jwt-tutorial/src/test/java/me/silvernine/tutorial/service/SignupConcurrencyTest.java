@@ -0,0 +1,76 @@
+package me.silvernine.tutorial.service;
+
+import me.silvernine.tutorial.dto.UserDto;
+import me.silvernine.tutorial.exception.DuplicateMemberException;
+import me.silvernine.tutorial.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//같은 username으로 동시에 가입하면 조회 없이 INSERT하므로 unique 인덱스가 하나만 통과시킨다
+//트랜잭션마다 커밋되어야 하므로 테스트 트랜잭션을 쓰지 않고 끝나면 직접 지운다
+@SpringBootTest
+class SignupConcurrencyTest {
+
+    private static final String USERNAME = "concurrent-signup";
+    private static final int ATTEMPTS = 8;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findOneWithAuthoritiesByUsername(USERNAME).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void onlyOneConcurrentSignupSucceeds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(ATTEMPTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UserDto>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < ATTEMPTS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return userService.signup(UserDto.builder()
+                            .username(USERNAME)
+                            .password("password")
+                            .nickname("concurrent")
+                            .build());
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            int duplicates = 0;
+            for (Future<UserDto> result : results) {
+                try {
+                    result.get(30, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(DuplicateMemberException.class);
+                    duplicates++;
+                }
+            }
+            assertThat(succeeded).isEqualTo(1);
+            assertThat(duplicates).isEqualTo(ATTEMPTS - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package me.silvernine.tutorial.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class UserImportReaderTest {
+
+    private List<UserImportReader.Row> read(String content, UserImportReader.Format format) {
+        UserImportReader reader = new UserImportReader(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, new ObjectMapper());
+        List<UserImportReader.Row> rows = new ArrayList<>();
+        reader.forEachRemaining(rows::add);
+        return rows;
+    }
+
+    @Test
+    void readsQuotedCsvFields() {
+        List<UserImportReader.Row> rows = read("username,password,nickname\n"
+                + "alice,\"pa,ss\"\"word\",Alice\n"
+                + "\n"
+                + "bob,\"multi\nline\", Bob \n", UserImportReader.Format.CSV);
+
+        assertThat(rows).extracting(UserImportReader.Row::getLine, UserImportReader.Row::getError)
+                .containsExactly(tuple(2L, null), tuple(4L, null));
+        assertThat(rows.get(0).getUser().getPassword()).isEqualTo("pa,ss\"word");
+        assertThat(rows.get(1).getUser().getPassword()).isEqualTo("multi\nline");
+        assertThat(rows.get(1).getUser().getNickname()).isEqualTo("Bob");
+    }
+
+    @Test
+    void reportsMalformedCsvRows() {
+        List<UserImportReader.Row> rows = read("carol,pass\"word,Carol\n"
+                + "dave,\"pass\"word,Dave\n"
+                + "eve,password,Eve,extra\n"
+                + "frank,password\n"
+                + "grace,\"unterminated,Grace\n", UserImportReader.Format.CSV);
+
+        assertThat(rows).extracting(UserImportReader.Row::getLine).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.getUser()).isNull();
+            assertThat(row.getError()).isNotNull();
+        });
+    }
+
+    @Test
+    void readsNdjson() {
+        List<UserImportReader.Row> rows = read("{\"username\":\"alice\",\"password\":\"password\",\"nickname\":\"Alice\"}\n"
+                + "not json\n", UserImportReader.Format.NDJSON);
+
+        assertThat(rows.get(0).getUser().getUsername()).isEqualTo("alice");
+        assertThat(rows.get(1).getError()).isNotNull();
+    }
+}
@@ -0,0 +1,86 @@
+package me.silvernine.tutorial.service;
+
+import me.silvernine.tutorial.dto.ImportErrorDto;
+import me.silvernine.tutorial.dto.ImportResultDto;
+import me.silvernine.tutorial.entity.User;
+import me.silvernine.tutorial.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+//테스트 트랜잭션 안에서 실행되고 롤백된다 (시퀀스 값은 롤백되지 않는다)
+@SpringBootTest
+@Transactional
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportsDuplicatesAndInvalidRows() {
+        ImportResultDto result = importCsv("username,password,nickname\n"
+                + "import-1,password,first\n"
+                + "admin,password,existing\n"
+                + "import-1,password,again\n"
+                + "import-2,\"pass,word\",second\n"
+                + "x,password,short\n");
+
+        assertThat(result.getTotal()).isEqualTo(5);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(ImportErrorDto::getLine, ImportErrorDto::getUsername)
+                .containsExactlyInAnyOrder(tuple(3L, "admin"), tuple(4L, "import-1"), tuple(6L, "x"));
+        String hash = jdbcTemplate.queryForObject(
+                "select password from \"user\" where username = 'import-2'", String.class);
+        assertThat(passwordEncoder.matches("pass,word", hash)).isTrue();
+    }
+
+    @Test
+    void importedIdsDoNotCollideWithJpaIds() {
+        //시퀀스 블록(User.ID_ALLOCATION_SIZE) 하나보다 많이
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < User.ID_ALLOCATION_SIZE + 10; i++) {
+            csv.append("bulk-").append(i).append(",password,bulk\n");
+        }
+        assertThat(importCsv(csv.toString()).getImported()).isEqualTo(User.ID_ALLOCATION_SIZE + 10);
+
+        User saved = userRepository.saveAndFlush(User.builder()
+                .username("jpa-user")
+                .password("password")
+                .nickname("jpa")
+                .activated(true)
+                .authorities(Collections.emptySet())
+                .build());
+
+        List<Long> ids = jdbcTemplate.queryForList("select user_id from \"user\"", Long.class);
+        assertThat(ids).doesNotHaveDuplicates().contains(saved.getUserId());
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from user_authority ua join \"user\" u on u.user_id = ua.user_id where u.username like 'bulk-%'",
+                Integer.class)).isEqualTo(User.ID_ALLOCATION_SIZE + 10);
+    }
+
+    private ImportResultDto importCsv(String csv) {
+        return userImportService.importUsers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                UserImportReader.Format.CSV);
+    }
+}
@@ -0,0 +1,141 @@
+package me.silvernine.tutorial.service;
+
+import me.silvernine.tutorial.dto.ProfileDto;
+import me.silvernine.tutorial.dto.UserAuthorityRow;
+import me.silvernine.tutorial.dto.UserDto;
+import me.silvernine.tutorial.entity.Authority;
+import me.silvernine.tutorial.entity.User;
+import me.silvernine.tutorial.exception.DuplicateMemberException;
+import me.silvernine.tutorial.jwt.JwtAuthentication;
+import me.silvernine.tutorial.repository.UserRepository;
+import me.silvernine.tutorial.store.LocalSharedStore;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//토큰의 프로필(nick, pst claim)은 그 뒤에 프로필이 바뀌지 않았을때만 사용한다
+class UserServiceTest {
+
+    private final User user = User.builder()
+            .userId(2L)
+            .username("user")
+            .password("{bcrypt}hash")
+            .nickname("before")
+            .activated(true)
+            .authorities(Collections.singleton(Authority.builder().authorityName("ROLE_USER").build()))
+            .build();
+    private final AtomicInteger rowQueries = new AtomicInteger();
+    //saveAndFlush가 던질 예외
+    private DataIntegrityViolationException saveFailure;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository(), NoOpPasswordEncoder.getInstance(),
+                new ProfileChangeTracker(new LocalSharedStore(), 600), new ConcurrentMapCacheManager());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void answersFromTokenClaimsWhenProfileIsUnchanged() {
+        login("before", System.currentTimeMillis());
+
+        UserDto userDto = userService.getMyUserWithAuthorities();
+
+        assertThat(userDto.getNickname()).isEqualTo("before");
+        assertThat(rowQueries).hasValue(0);
+    }
+
+    @Test
+    void staleProfileStampFallsBackToDatabase() {
+        login("before", System.currentTimeMillis());
+        userService.updateMyProfile(ProfileDto.builder().nickname("after").build());
+
+        //같은 토큰(pst가 변경 전)으로 다시 요청
+        UserDto userDto = userService.getMyUserWithAuthorities();
+
+        assertThat(userDto.getNickname()).isEqualTo("after");
+        assertThat(rowQueries).hasValue(1);
+    }
+
+    @Test
+    void signupDoesNotMarkProfileChanged() {
+        login("before", System.currentTimeMillis());
+        signup("other");
+
+        assertThat(userService.getMyUserWithAuthorities().getNickname()).isEqualTo("before");
+        assertThat(rowQueries).hasValue(0);
+    }
+
+    @Test
+    void onlyUsernameConstraintMeansDuplicateMember() {
+        saveFailure = violation("PUBLIC.IDX_USER_USERNAME", "23505",
+                "Unique index or primary key violation: \"PUBLIC.IDX_USER_USERNAME ON PUBLIC.\"\"user\"\"(USERNAME)\"");
+        assertThatThrownBy(() -> signup("user")).isInstanceOf(DuplicateMemberException.class);
+
+        //Hibernate가 제약조건 이름을 꺼내지 못해도 JDBC 메세지로 판단한다
+        saveFailure = violation(null, "23505", "duplicate key value violates unique constraint \"idx_user_username\"");
+        assertThatThrownBy(() -> signup("user")).isInstanceOf(DuplicateMemberException.class);
+
+        saveFailure = violation(null, "22001", "Value too long for column \"NICKNAME CHARACTER VARYING(50)\"");
+        assertThatThrownBy(() -> signup("user")).isExactlyInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private UserDto signup(String username) {
+        return userService.signup(UserDto.builder().username(username).password("password").nickname(username).build());
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName, String sqlState, String message) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(message, sqlState),
+                        constraintName));
+    }
+
+    private void login(String nickname, long profileStamp) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new JwtAuthentication("user", "ROLE_USER", "token", nickname, profileStamp));
+    }
+
+    private UserRepository userRepository() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findOneWithAuthoritiesByUsername":
+                            return Optional.of(user).filter(found -> found.getUsername().equals(args[0]));
+                        case "saveAndFlush":
+                            if (saveFailure != null) {
+                                throw saveFailure;
+                            }
+                            return args[0];
+                        case "save":
+                            return args[0];
+                        case "findAuthorityRowsByUsername":
+                            rowQueries.incrementAndGet();
+                            List<UserAuthorityRow> rows = Collections.singletonList(
+                                    new UserAuthorityRow(user.getUsername(), user.getNickname(), "ROLE_USER"));
+                            return rows;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
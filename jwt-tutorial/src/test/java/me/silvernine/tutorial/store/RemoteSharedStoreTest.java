@@ -0,0 +1,135 @@
+package me.silvernine.tutorial.store;
+
+import me.silvernine.tutorial.exception.SharedStoreException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//두 서버(RemoteSharedStore 2개)가 SharedStoreServer 하나를 공유하는 경우
+class RemoteSharedStoreTest {
+
+    private static final String SECRET = "test-secret";
+
+    private SharedStoreServer server;
+    private RemoteSharedStore first;
+    private RemoteSharedStore second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new SharedStoreServer(0, InetAddress.getLoopbackAddress(), SECRET);
+        first = new RemoteSharedStore(host(), server.getPort(), SECRET, 2000, 100);
+        second = new RemoteSharedStore(host(), server.getPort(), SECRET, 2000, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        first.close();
+        second.close();
+        server.close();
+    }
+
+    @Test
+    void sharesValuesAndCounters() {
+        first.put("a", "1", 0);
+
+        assertThat(second.get("a")).isEqualTo("1");
+        assertThat(second.getAll(Arrays.asList("a", "missing"))).containsOnlyKeys("a");
+        assertThat(second.putIfAbsent("a", "2", 0)).isFalse();
+
+        assertThat(first.increment("count", 60_000)).isEqualTo(1);
+        assertThat(second.increment("count", 60_000)).isEqualTo(2);
+    }
+
+    @Test
+    void invalidatesNearCacheWhenAnotherServerWrites() throws Exception {
+        first.put("user", "v1", 0);
+        //near cache에 올라간다
+        assertThat(second.get("user")).isEqualTo("v1");
+
+        first.put("user", "v2", 0);
+        assertThat(await(() -> "v2".equals(second.get("user")))).isTrue();
+
+        first.delete("user");
+        assertThat(await(() -> second.get("user") == null)).isTrue();
+    }
+
+    @Test
+    void deliversPublishedMessagesToAllSubscribers() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        first.subscribe("channel", received::add);
+        second.subscribe("channel", received::add);
+
+        second.publish("channel", "hello");
+
+        assertThat(received.poll(2, TimeUnit.SECONDS)).isEqualTo("hello");
+        assertThat(received.poll(2, TimeUnit.SECONDS)).isEqualTo("hello");
+    }
+
+    @Test
+    void rejectsClientsWithWrongSecret() {
+        RemoteSharedStore intruder = new RemoteSharedStore(host(), server.getPort(), "wrong", 2000, 0);
+        try {
+            assertThatThrownBy(() -> intruder.put("a", "1", 0)).isInstanceOf(SharedStoreException.class);
+            assertThat(first.get("a")).isNull();
+        } finally {
+            intruder.close();
+        }
+    }
+
+    @Test
+    void splitsLargeGetAllAndRejectsOversizedFrames() throws Exception {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < StoreProtocol.MAX_KEYS_PER_REQUEST * 2 + 1; i++) {
+            keys.add("key-" + i);
+        }
+        first.put("key-2000", "v", 0);
+        assertThat(second.getAll(keys)).containsOnlyKeys("key-2000");
+
+        //키 수를 크게 보내면 배열을 만들지 않고 연결을 끊는다
+        try (Socket socket = new Socket(host(), server.getPort())) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            byte[] nonce = new byte[StoreProtocol.NONCE_LENGTH];
+            in.readFully(nonce);
+            out.write(StoreProtocol.authenticate(SECRET, nonce));
+            assertThat(in.readByte()).isEqualTo(StoreProtocol.OK);
+
+            out.writeInt(1);
+            out.writeByte(StoreProtocol.GET_ALL);
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    private static String host() {
+        return InetAddress.getLoopbackAddress().getHostAddress();
+    }
+
+    private static boolean await(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.get()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}